@@ -0,0 +1,10 @@
+package com.company.bank_system.cfg;
+
+import com.company.bank_system.risk.RiskProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RiskProperties.class)
+public class RiskConfig {
+}
@@ -3,8 +3,10 @@ package com.company.bank_system.cfg;
 
 import com.company.bank_system.security.JwtAuthenticationFilter;
 import com.company.bank_system.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -33,8 +35,12 @@ public class SecurityConfig {
                 //TODO csrf ENABLE
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                // the request was authorized before it went async (SSE streams, statement exports)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**", "/swagger-ui.html").permitAll()
                                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                                // bulk postings are not risk scored, see BatchTransferService
+                                .requestMatchers(HttpMethod.POST, "/api/transactions/batch").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
                 .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
@@ -2,6 +2,7 @@ package com.company.bank_system.controller;
 
 import com.company.bank_system.dto.AccountResponse;
 import com.company.bank_system.dto.CreateAccountRequest;
+import com.company.bank_system.dto.PortfolioSummary;
 import com.company.bank_system.repo.AccountRepository;
 import com.company.bank_system.service.AccountService;
 import jakarta.validation.Valid;
@@ -88,6 +89,12 @@ public class AccountController {
         return Map.of("totalBalance", total, "currency", currency.name());
     }
 
+    // balances per currency and account / card counts in one query
+    @GetMapping("/portfolio")
+    public PortfolioSummary getPortfolio() {
+        return accountService.getPortfolio();
+    }
+
     @PatchMapping("/{id}/status")
     public AccountResponse updateAccountStatus(
             @PathVariable("id") Long accountId,
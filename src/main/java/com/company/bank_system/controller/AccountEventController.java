@@ -0,0 +1,43 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.entity.User;
+import com.company.bank_system.events.AccountEventBus;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.service.CurrentUserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountEventController {
+
+    private final AccountEventBus accountEventBus;
+    private final AccountService accountService;
+    private final CurrentUserService currentUserService;
+    private final long streamTimeoutMs;
+
+    public AccountEventController(AccountEventBus accountEventBus,
+                                  AccountService accountService,
+                                  CurrentUserService currentUserService,
+                                  @Value("${bank.events.stream-timeout:30m}") Duration streamTimeout) {
+        this.accountEventBus = accountEventBus;
+        this.accountService = accountService;
+        this.currentUserService = currentUserService;
+        this.streamTimeoutMs = streamTimeout.toMillis();
+    }
+
+    // SSE: a "snapshot" of the accounts (same as /getAll), then "account-update" per posting; reconnect on close
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        User user = currentUserService.getCurrentUser();
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        accountEventBus.subscribe(user.getId(), emitter, accountService::getMyAccounts);
+        return emitter;
+    }
+}
@@ -0,0 +1,38 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.FxRatesRequest;
+import com.company.bank_system.dto.FxRatesResponse;
+import com.company.bank_system.fx.FxRateService;
+import com.company.bank_system.fx.FxRateTable;
+import jakarta.validation.Valid;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/fx")
+public class AdminFxController {
+
+    private final FxRateService fxRateService;
+
+    public AdminFxController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping("/rates")
+    public FxRatesResponse getRates() {
+        return toResponse(fxRateService.current());
+    }
+
+    // replaces the whole table, currencies left out lose their rate
+    @PutMapping("/rates")
+    public FxRatesResponse updateRates(
+            Authentication authentication,
+            @Valid @RequestBody FxRatesRequest request
+    ) {
+        return toResponse(fxRateService.update(request.base(), request.rates(), "admin:" + authentication.getName()));
+    }
+
+    private FxRatesResponse toResponse(FxRateTable table) {
+        return new FxRatesResponse(table.getVersion(), table.getBase(), table.getRates(), table.getSource(), table.getLoadedAt());
+    }
+}
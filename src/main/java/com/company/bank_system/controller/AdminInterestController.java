@@ -0,0 +1,32 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.InterestRunReport;
+import com.company.bank_system.interest.InterestAccrualService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/interest/runs")
+public class AdminInterestController {
+
+    private final InterestAccrualService interestAccrualService;
+
+    public AdminInterestController(InterestAccrualService interestAccrualService) {
+        this.interestAccrualService = interestAccrualService;
+    }
+
+    // 202; runs for today unless a business date is given, poll GET for progress
+    @PostMapping
+    public ResponseEntity<InterestRunReport> start(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        return ResponseEntity.accepted().body(interestAccrualService.start(businessDate != null ? businessDate : LocalDate.now()));
+    }
+
+    @GetMapping("/{businessDate}")
+    public InterestRunReport report(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        return interestAccrualService.report(businessDate);
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.AccountLimitOverrideRequest;
+import com.company.bank_system.dto.AccountLimitsResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.limits.SpendingLimitProperties.Limit;
+import com.company.bank_system.limits.SpendingLimitService;
+import com.company.bank_system.service.AccountService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/limits")
+public class AdminLimitsController {
+
+    private final SpendingLimitService spendingLimitService;
+    private final AccountService accountService;
+
+    public AdminLimitsController(SpendingLimitService spendingLimitService, AccountService accountService) {
+        this.spendingLimitService = spendingLimitService;
+        this.accountService = accountService;
+    }
+
+    @GetMapping("/accounts/{accountId}")
+    public AccountLimitsResponse getLimits(@PathVariable Long accountId) {
+        return toResponse(accountService.getAnyAccountById(accountId));
+    }
+
+    @PutMapping("/accounts/{accountId}")
+    public AccountLimitsResponse setOverride(
+            @PathVariable Long accountId,
+            @Valid @RequestBody AccountLimitOverrideRequest request
+    ) {
+        Account account = accountService.getAnyAccountById(accountId);
+        spendingLimitService.setOverride(account.getId(), request.perTransaction(), request.daily());
+        return toResponse(account);
+    }
+
+    @DeleteMapping("/accounts/{accountId}")
+    public ResponseEntity<Void> removeOverride(@PathVariable Long accountId) {
+        spendingLimitService.removeOverride(accountService.getAnyAccountById(accountId).getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    private AccountLimitsResponse toResponse(Account account) {
+        Limit limit = spendingLimitService.accountLimit(account);
+        return new AccountLimitsResponse(
+                account.getId(),
+                account.getCurrency(),
+                limit != null ? limit.perTransaction() : null,
+                limit != null ? limit.daily() : null,
+                spendingLimitService.spent(account.getId()),
+                spendingLimitService.hasOverride(account.getId())
+        );
+    }
+}
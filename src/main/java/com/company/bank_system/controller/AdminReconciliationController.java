@@ -0,0 +1,28 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.ReconciliationReport;
+import com.company.bank_system.service.ReconciliationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+public class AdminReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    public AdminReconciliationController(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    // 202; poll GET for progress and drifts
+    @PostMapping
+    public ResponseEntity<ReconciliationReport> start() {
+        return ResponseEntity.accepted().body(reconciliationService.start());
+    }
+
+    @GetMapping
+    public ReconciliationReport report() {
+        return reconciliationService.report();
+    }
+}
@@ -0,0 +1,34 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.service.TransactionService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// transactions held by the risk checks
+@RestController
+@RequestMapping("/api/admin/risk/reviews")
+public class AdminRiskController {
+
+    private final TransactionService transactionService;
+
+    public AdminRiskController(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @GetMapping
+    public List<TransactionResponse> getReviews() {
+        return transactionService.getTransactionsUnderReview();
+    }
+
+    @PostMapping("/{id}/approve")
+    public TransactionResponse approve(@PathVariable("id") Long transactionId) {
+        return transactionService.approveReview(transactionId);
+    }
+
+    @PostMapping("/{id}/reject")
+    public TransactionResponse reject(@PathVariable("id") Long transactionId) {
+        return transactionService.rejectReview(transactionId);
+    }
+}
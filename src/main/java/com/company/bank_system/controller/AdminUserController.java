@@ -1,10 +1,14 @@
 package com.company.bank_system.controller;
 
 
+import com.company.bank_system.dto.AccountResponse;
+import com.company.bank_system.dto.CardResponse;
 import com.company.bank_system.entity.Account;
 import com.company.bank_system.entity.Card;
 import com.company.bank_system.repo.AccountRepository;
 import com.company.bank_system.repo.CardRepository;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.service.CardService;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,10 +20,17 @@ public class AdminUserController {
 
     private final CardRepository cardRepository;
     private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final CardService cardService;
 
-    public AdminUserController(CardRepository cardRepository, AccountRepository accountRepository) {
+    public AdminUserController(CardRepository cardRepository,
+                               AccountRepository accountRepository,
+                               AccountService accountService,
+                               CardService cardService) {
         this.cardRepository = cardRepository;
         this.accountRepository = accountRepository;
+        this.accountService = accountService;
+        this.cardService = cardService;
     }
 
     @GetMapping("/hello")
@@ -31,18 +42,18 @@ public class AdminUserController {
     }
 
     @GetMapping("/getAll")
-    public List<Card> getAllCards(
+    public List<CardResponse> getAllCards(
             Authentication authentication
     ) {
-        return cardRepository.findAll();
+        return cardService.adminGetAllCards();
     }
 
     @GetMapping
-    public List<Card> findByUser(
+    public List<CardResponse> findByUser(
             Authentication authentication,
             @RequestBody Long userId
     ) {
-        return cardRepository.findByUserId(userId);
+        return cardService.adminGetCardsByUser(userId);
     }
 
 
@@ -60,4 +71,12 @@ public class AdminUserController {
         return accountRepository.save(account);
     }
 
+    @PatchMapping("/accounts/{id}/balanceSlots/{slots}")
+    public AccountResponse configureBalanceSlots(
+            @PathVariable("id") Long accountId,
+            @PathVariable("slots") int slots
+    ) {
+        return accountService.configureBalanceSlots(accountId, slots);
+    }
+
 }
@@ -0,0 +1,27 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.DashboardResponse;
+import com.company.bank_system.service.DashboardService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // accounts with balances, masked cards and the last N transactions of each account
+    @GetMapping
+    public DashboardResponse getDashboard(
+            @RequestParam(name = "transactions", defaultValue = "5") int transactions
+    ) {
+        return dashboardService.getDashboard(transactions);
+    }
+}
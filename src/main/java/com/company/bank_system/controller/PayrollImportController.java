@@ -0,0 +1,51 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.PayrollImportLineError;
+import com.company.bank_system.dto.PayrollImportResponse;
+import com.company.bank_system.payroll.PayrollImportService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payroll/imports")
+public class PayrollImportController {
+
+    private final PayrollImportService payrollImportService;
+
+    public PayrollImportController(PayrollImportService payrollImportService) {
+        this.payrollImportService = payrollImportService;
+    }
+
+    // 202; lines are account_number,amount[,description], posted in the background - poll GET /{id}
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PayrollImportResponse> upload(
+            @RequestParam Long fromAccountId,
+            @RequestParam("file") MultipartFile file
+    ) {
+        return ResponseEntity.accepted().body(payrollImportService.upload(fromAccountId, file));
+    }
+
+    @GetMapping
+    public List<PayrollImportResponse> getMyImports() {
+        return payrollImportService.getMyImports();
+    }
+
+    @GetMapping("/{id}")
+    public PayrollImportResponse getImport(@PathVariable("id") Long importId) {
+        return payrollImportService.getImport(importId);
+    }
+
+    // rejected lines in line order; next page: afterLine = last lineNumber returned
+    @GetMapping("/{id}/errors")
+    public List<PayrollImportLineError> getErrors(
+            @PathVariable("id") Long importId,
+            @RequestParam(defaultValue = "0") long afterLine,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return payrollImportService.getErrors(importId, afterLine, limit);
+    }
+}
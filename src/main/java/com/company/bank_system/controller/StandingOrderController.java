@@ -0,0 +1,46 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.CreateStandingOrderRequest;
+import com.company.bank_system.dto.StandingOrderResponse;
+import com.company.bank_system.service.StandingOrderService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/standing-orders")
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+
+    public StandingOrderController(StandingOrderService standingOrderService) {
+        this.standingOrderService = standingOrderService;
+    }
+
+    @PostMapping
+    public StandingOrderResponse create(
+            @Valid @RequestBody CreateStandingOrderRequest request
+    ) {
+        return standingOrderService.create(request);
+    }
+
+    @GetMapping
+    public List<StandingOrderResponse> getMyStandingOrders() {
+        return standingOrderService.getMyStandingOrders();
+    }
+
+    @GetMapping("/{id}")
+    public StandingOrderResponse getStandingOrder(
+            @PathVariable("id") Long standingOrderId
+    ) {
+        return standingOrderService.getStandingOrder(standingOrderId);
+    }
+
+    @PostMapping("/{id}/cancel")
+    public StandingOrderResponse cancel(
+            @PathVariable("id") Long standingOrderId
+    ) {
+        return standingOrderService.cancel(standingOrderId);
+    }
+}
@@ -1,49 +1,148 @@
 package com.company.bank_system.controller;
 
+import com.company.bank_system.dto.BatchTransferRequest;
+import com.company.bank_system.dto.BatchTransferResponse;
 import com.company.bank_system.dto.DepositRequest;
+import com.company.bank_system.dto.TransactionHistoryResponse;
 import com.company.bank_system.dto.TransactionResponse;
 import com.company.bank_system.dto.TransferRequest;
 import com.company.bank_system.dto.WithdrawRequest;
 import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.service.BatchTransferService;
+import com.company.bank_system.service.IdempotencyService;
+import com.company.bank_system.service.StatementExportService;
+import com.company.bank_system.service.TransactionHistoryService;
 import com.company.bank_system.service.TransactionService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final BatchTransferService batchTransferService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final StatementExportService statementExportService;
+    private final IdempotencyService idempotencyService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 BatchTransferService batchTransferService,
+                                 TransactionHistoryService transactionHistoryService,
+                                 StatementExportService statementExportService,
+                                 IdempotencyService idempotencyService) {
         this.transactionService = transactionService;
+        this.batchTransferService = batchTransferService;
+        this.transactionHistoryService = transactionHistoryService;
+        this.statementExportService = statementExportService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/deposit")
     public TransactionResponse deposit(
-            @Valid @RequestBody DepositRequest depositRequest
+            @Valid @RequestBody DepositRequest depositRequest,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        TransactionResponse transaction = transactionService.deposit(depositRequest);
+        TransactionResponse transaction = idempotencyService.execute(idempotencyKey, "DEPOSIT", depositRequest,
+                () -> transactionService.deposit(depositRequest));
         return transaction;
     }
     @PostMapping("/withdraw")
     public TransactionResponse withdraw(
-            @Valid @RequestBody WithdrawRequest withdrawRequest
+            @Valid @RequestBody WithdrawRequest withdrawRequest,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        TransactionResponse transaction = transactionService.withdraw(withdrawRequest);
+        TransactionResponse transaction = idempotencyService.execute(idempotencyKey, "WITHDRAW", withdrawRequest,
+                () -> transactionService.withdraw(withdrawRequest));
         return transaction;
     }
 
     @PostMapping("/transfer")
     public TransactionResponse transfer(
-            @Valid @RequestBody TransferRequest transferRequest
+            @Valid @RequestBody TransferRequest transferRequest,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
     ){
-        TransactionResponse transaction = transactionService.transfer(transferRequest);
+        TransactionResponse transaction = idempotencyService.execute(idempotencyKey, "TRANSFER", transferRequest,
+                () -> transactionService.transfer(transferRequest));
         return transaction;
     }
 
+    // 202 + Location of the PENDING transaction; poll it until COMPLETED or FAILED
+    @PostMapping("/transfer/async")
+    public ResponseEntity<TransactionResponse> transferAsync(
+            @Valid @RequestBody TransferRequest transferRequest,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        TransactionResponse transaction = idempotencyService.execute(idempotencyKey, "TRANSFER_ASYNC", transferRequest,
+                () -> transactionService.transferAsync(transferRequest));
+
+        if (transaction.status() != TransactionStatus.PENDING) {
+            return ResponseEntity.ok(transaction);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transactions/" + transaction.id()))
+                .body(transaction);
+    }
+
+    @GetMapping("/{id}")
+    public TransactionResponse getTransaction(
+            @PathVariable("id") Long transactionId
+    ) {
+        return transactionService.getTransaction(transactionId);
+    }
+
+    @PostMapping("/batch")
+    public BatchTransferResponse batchTransfer(
+            @Valid @RequestBody BatchTransferRequest batchTransferRequest
+    ) {
+        return batchTransferService.transfer(batchTransferRequest);
+    }
+
+    @GetMapping("/history/{accountId}")
+    public TransactionHistoryResponse history(
+            @PathVariable("accountId") Long accountId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "type", required = false) TransactionType type,
+            @RequestParam(name = "status", required = false) TransactionStatus status,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "" + TransactionHistoryService.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        return transactionHistoryService.getHistory(accountId, from, to, type, status, cursor, limit);
+    }
+
+    @GetMapping("/statement/{accountId}")
+    public ResponseEntity<StreamingResponseBody> statement(
+            @PathVariable("accountId") Long accountId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "format", defaultValue = "CSV") StatementExportService.Format format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        StreamingResponseBody body = statementExportService.export(accountId, from, to, format, gzip);
+        String fileName = "statement-" + accountId + "." + format.getExtension() + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
 }
@@ -0,0 +1,12 @@
+package com.company.bank_system.dto;
+
+import java.math.BigDecimal;
+
+// balance: stored (account row + slots), expected: net of the account's transactions
+public record AccountDrift(
+        Long accountId,
+        BigDecimal balance,
+        BigDecimal expected,
+        BigDecimal drift
+) {
+}
@@ -0,0 +1,14 @@
+package com.company.bank_system.dto;
+
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+// a null amount keeps the account type default
+public record AccountLimitOverrideRequest(
+        @Positive(message = "perTransaction must be positive")
+        BigDecimal perTransaction,
+        @Positive(message = "daily must be positive")
+        BigDecimal daily
+) {
+}
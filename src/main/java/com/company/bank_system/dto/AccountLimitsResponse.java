@@ -0,0 +1,15 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.Currency;
+
+import java.math.BigDecimal;
+
+public record AccountLimitsResponse(
+        Long accountId,
+        Currency currency,
+        BigDecimal perTransaction,
+        BigDecimal daily,
+        BigDecimal spent,
+        boolean overridden
+) {
+}
@@ -0,0 +1,20 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Currency;
+
+// what a payment needs to know about the account on the other side; no balance
+public record AccountRoute(
+        Long id,
+        String accountNumber,
+        Currency currency,
+        AccountStatus status,
+        Long userId
+) {
+
+    public static AccountRoute of(Account account) {
+        return new AccountRoute(account.getId(), account.getAccountNumber(), account.getCurrency(),
+                account.getStatus(), account.getUser().getId());
+    }
+}
@@ -0,0 +1,12 @@
+package com.company.bank_system.dto;
+
+import java.math.BigDecimal;
+
+// pushed on /api/accounts/events. balance is null for accounts with balance slots and with the ledger engine
+// (read /api/accounts/{id}/balance); transaction is null for settlement credits of async transfers
+public record AccountUpdateEvent(
+        Long accountId,
+        BigDecimal balance,
+        TransactionResponse transaction
+) {
+}
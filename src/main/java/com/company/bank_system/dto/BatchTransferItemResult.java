@@ -0,0 +1,10 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+
+public record BatchTransferItemResult(
+        int index,
+        TransactionStatus status, // COMPLETED or FAILED
+        Long transactionId,
+        String error
+) {}
@@ -0,0 +1,13 @@
+package com.company.bank_system.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchTransferRequest(
+        @NotEmpty(message = "transfers are required")
+        @Size(max = 100000, message = "maximum 100,000 transfers per batch")
+        List<@Valid TransferRequest> transfers
+) {}
@@ -0,0 +1,10 @@
+package com.company.bank_system.dto;
+
+import java.util.List;
+
+public record BatchTransferResponse(
+        int total,
+        int succeeded,
+        int failed,
+        List<BatchTransferItemResult> results
+) {}
@@ -0,0 +1,27 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CreateStandingOrderRequest(
+        @NotNull(message = "fromAccount is required")
+        Long fromAccountId,
+        @NotNull(message = "toAccount is required")
+        String toAccountNumber,
+        @NotNull(message = "amount is required")
+        @DecimalMin(value = "0.01", message = "sum must be bigger than 0.01")
+        @DecimalMax(value = "1000000", message = "maximum for transfer: 1,000,000")
+        BigDecimal amount,
+        @Size(max = 255, message = "Описание слишком длинное")
+        @Pattern(regexp = "^[\\w\\s\\p{Punct}&&[^<>\"'&]]*$",
+                message = "Uncorrected symbols")
+        String description,
+        @NotNull(message = "frequency is required")
+        StandingOrderFrequency frequency,
+        LocalDateTime startAt, // null - now
+        LocalDateTime endAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.company.bank_system.dto;
+
+import java.util.List;
+
+// recentTransactions: newest first
+public record DashboardAccount(
+        AccountResponse account,
+        List<CardResponse> cards,
+        List<TransactionResponse> recentTransactions
+) {
+}
@@ -0,0 +1,13 @@
+package com.company.bank_system.dto;
+
+import java.util.List;
+
+public record DashboardResponse(
+        Long userId,
+        String firstName,
+        String lastName,
+        int accountsCount,
+        int cardsCount,
+        List<DashboardAccount> accounts
+) {
+}
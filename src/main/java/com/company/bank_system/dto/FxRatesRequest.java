@@ -0,0 +1,18 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.Currency;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// rates: units of base per unit of the currency
+public record FxRatesRequest(
+        @NotNull(message = "base is required")
+        Currency base,
+        @NotEmpty(message = "rates are required")
+        Map<Currency, @NotNull @DecimalMin(value = "0", inclusive = false, message = "rate must be positive") BigDecimal> rates
+) {
+}
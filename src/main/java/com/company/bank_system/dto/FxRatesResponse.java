@@ -0,0 +1,16 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+public record FxRatesResponse(
+        long version,
+        Currency base,
+        Map<Currency, BigDecimal> rates,
+        String source,
+        Instant loadedAt
+) {
+}
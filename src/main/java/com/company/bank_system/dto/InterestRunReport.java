@@ -0,0 +1,19 @@
+package com.company.bank_system.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// status: RUNNING, COMPLETED, INCOMPLETE (accounts left locked, picked up by the next run) or FAILED
+public record InterestRunReport(
+        LocalDate businessDate,
+        String status,
+        long checkpointId,
+        long accounts,
+        BigDecimal interest,
+        String error,
+        LocalDateTime startedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime finishedAt
+) {
+}
@@ -0,0 +1,9 @@
+package com.company.bank_system.dto;
+
+public record PayrollImportLineError(
+        long lineNumber,
+        String accountNumber,
+        String amount,
+        String error
+) {
+}
@@ -0,0 +1,20 @@
+package com.company.bank_system.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// status: PENDING, RUNNING, COMPLETED or FAILED; lines counts the lines read so far, header included
+public record PayrollImportResponse(
+        Long id,
+        Long fromAccountId,
+        String fileName,
+        String status,
+        long lines,
+        long succeeded,
+        long failed,
+        BigDecimal totalAmount,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt
+) {
+}
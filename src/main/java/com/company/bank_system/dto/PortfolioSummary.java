@@ -0,0 +1,18 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// balances: totals of ACTIVE accounts per currency, balance slots included
+public record PortfolioSummary(
+        Map<Currency, BigDecimal> balances,
+        Map<AccountStatus, Long> accountsByStatus,
+        Map<AccountType, Long> accountsByType,
+        Map<CardStatus, Long> cardsByStatus
+) {
+}
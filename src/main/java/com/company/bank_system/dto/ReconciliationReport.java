@@ -0,0 +1,20 @@
+package com.company.bank_system.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// drifts holds the first bank.reconciliation.max-reported ones, driftCount all of them
+public record ReconciliationReport(
+        long runId,
+        String status,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        long rangesTotal,
+        long rangesDone,
+        double progressPercent,
+        long accountsChecked,
+        long driftCount,
+        List<AccountDrift> drifts,
+        String error
+) {
+}
@@ -0,0 +1,25 @@
+package com.company.bank_system.dto;
+
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record StandingOrderResponse(
+        Long id,
+        Long fromAccountId,
+        String toAccountNumber,
+        BigDecimal amount,
+        String description,
+        StandingOrderFrequency frequency,
+        LocalDateTime startAt,
+        LocalDateTime endAt,
+        StandingOrderStatus status,
+        int runCount,
+        LocalDateTime nextRunAt,
+        LocalDateTime lastRunAt,
+        int failureCount,
+        String lastError
+) {
+}
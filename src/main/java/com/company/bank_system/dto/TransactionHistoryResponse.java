@@ -0,0 +1,8 @@
+package com.company.bank_system.dto;
+
+import java.util.List;
+
+public record TransactionHistoryResponse(
+        List<TransactionResponse> transactions,
+        String nextCursor // null - last page
+) {}
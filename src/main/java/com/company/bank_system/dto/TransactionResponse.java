@@ -7,6 +7,8 @@ import com.company.bank_system.entity.enums.Transaction.TransactionType;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// fxRate, creditedAmount and creditedCurrency are set for converted transfers only: the receiver got
+// creditedAmount in creditedCurrency, amount and currency are what the sender paid
 public record TransactionResponse(
         Long id,
         Long fromAccountId,
@@ -16,5 +18,21 @@ public record TransactionResponse(
         Currency currency,
         String description,
         TransactionStatus status,
-        LocalDateTime createdAt
-) {}
\ No newline at end of file
+        LocalDateTime createdAt,
+        BigDecimal fxRate,
+        BigDecimal creditedAmount,
+        Currency creditedCurrency
+) {
+
+    public TransactionResponse(Long id,
+                               Long fromAccountId,
+                               Long toAccountId,
+                               TransactionType transactionType,
+                               BigDecimal amount,
+                               Currency currency,
+                               String description,
+                               TransactionStatus status,
+                               LocalDateTime createdAt) {
+        this(id, fromAccountId, toAccountId, transactionType, amount, currency, description, status, createdAt, null, null, null);
+    }
+}
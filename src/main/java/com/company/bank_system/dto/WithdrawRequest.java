@@ -14,5 +14,7 @@ public record WithdrawRequest(
         BigDecimal amount,
         @Pattern(regexp = "^[\\w\\s\\p{Punct}&&[^<>\"'&]]*$",
                 message = "Uncorrected symbols")
-        String description
+        String description,
+        @Positive(message = "cardId must be positive")
+        Long cardId // card used for the withdrawal, optional
 ) {}
\ No newline at end of file
@@ -8,6 +8,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,13 +19,18 @@ import java.util.List;
 @Getter
 @Setter
 @ToString(exclude = {"user", "cards"})
+@NamedEntityGraph(name = "Account.cards", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("cards")
+})
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -46,8 +52,18 @@ public class Account {
     @Enumerated(EnumType.STRING)
     private AccountStatus status; // ACTIVE, BLOCKED, CLOSED
 
+    // 0 - whole balance in this row, N - credits are spread over N rows of account_balance_slots
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int balanceSlots;
+
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.company.bank_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// part of a sharded account balance, see Account.balanceSlots
+@Entity
+@Table(name = "account_balance_slots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+@Getter
+@Setter
+public class AccountBalanceSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_balance_slots_seq")
+    @SequenceGenerator(name = "account_balance_slots_seq", sequenceName = "account_balance_slots_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+}
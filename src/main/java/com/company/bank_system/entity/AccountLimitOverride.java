@@ -0,0 +1,26 @@
+package com.company.bank_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// replaces the account type limits of one account, a null amount keeps the type default
+@Entity
+@Table(name = "account_limit_overrides")
+@Getter
+@Setter
+public class AccountLimitOverride {
+
+    @Id
+    private Long accountId;
+
+    private BigDecimal perTransaction;
+
+    private BigDecimal daily;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
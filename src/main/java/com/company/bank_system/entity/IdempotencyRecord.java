@@ -0,0 +1,31 @@
+package com.company.bank_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// stored result of a request sent with an Idempotency-Key header
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 512)
+    private String scope; // principal:key
+
+    @Column(nullable = false, length = 32)
+    private String operation;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(columnDefinition = "text")
+    private String response; // json, null while the first attempt is running
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
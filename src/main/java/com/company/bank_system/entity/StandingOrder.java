@@ -0,0 +1,75 @@
+package com.company.bank_system.entity;
+
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// recurring or future-dated transfer, executed by StandingOrderExecutor
+@Entity
+@Table(name = "standing_orders")
+@Getter
+@Setter
+@ToString(exclude = "fromAccount")
+@NamedEntityGraph(name = "StandingOrder.fromAccount", attributeNodes = @NamedAttributeNode("fromAccount"))
+public class StandingOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "standing_orders_seq")
+    @SequenceGenerator(name = "standing_orders_seq", sequenceName = "standing_orders_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_account_id", nullable = false)
+    private Account fromAccount;
+
+    @Column(nullable = false)
+    private String toAccountNumber;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    private String description;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderFrequency frequency;
+
+    @Column(nullable = false)
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt; // last run is due no later than this, null - no end
+
+    @Column(nullable = false)
+    private int runCount; // runs done or skipped, next run = frequency.occurrence(startAt, runCount)
+
+    @Column(nullable = false)
+    private LocalDateTime nextRunAt; // due time of the next run
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt; // nextRunAt, or later while a failed run is retried
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderStatus status;
+
+    @Column(nullable = false)
+    private int failureCount; // failed attempts of the current run
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime lastRunAt;
+
+    private LocalDateTime lockedUntil; // lease of the executor that claimed the order
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -15,19 +15,28 @@ import java.time.LocalDateTime;
 @Table(name = "transactions")
 @Getter
 @Setter
+@NamedEntityGraph(name = "Transaction.accounts", attributeNodes = {
+        @NamedAttributeNode("fromAccount"),
+        @NamedAttributeNode("toAccount")
+})
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_account_id")
     private Account fromAccount; //  (nullable for deposit)
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_account_id")
     private Account toAccount; // (nullable withdraw)
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "card_id")
+    private Card card; // card used for a withdrawal, null otherwise
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType; // TRANSFER, DEPOSIT, WITHDRAWAL, PAYMENT
 
@@ -37,12 +46,24 @@ public class Transaction {
     private Currency currency; // RUB, USD, EUR
     private String description;
 
+    // cross-currency transfers only: the destination is credited creditedAmount = amount * fxRate
+    @Column(precision = 19, scale = 8)
+    private BigDecimal fxRate;
+    private BigDecimal creditedAmount;
+    @Enumerated(EnumType.STRING)
+    private Currency creditedCurrency;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private TransactionStatus status; // PENDING, COMPLETED, FAILED
 
-    @Column(updatable = false)
+    // partition key of the transactions table
+    @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     private LocalDateTime completedAt;
+
+    // ledger journal position, only for postings made through LedgerEngine (unique by construction,
+    // a partitioned table cannot enforce it)
+    private Long journalSeq;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.company.bank_system.entity.enums.StandingOrder;
+
+import java.time.LocalDateTime;
+
+public enum StandingOrderFrequency {
+    ONCE,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Due time of the n-th run (0-based), always counted from the start, so months of different
+     * length do not shift the day: a schedule starting on Jan 31 runs on Feb 28 and Mar 31.
+     * Null when there is no such run.
+     */
+    public LocalDateTime occurrence(LocalDateTime start, int n) {
+        return switch (this) {
+            case ONCE -> n == 0 ? start : null;
+            case DAILY -> start.plusDays(n);
+            case WEEKLY -> start.plusWeeks(n);
+            case MONTHLY -> start.plusMonths(n);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.company.bank_system.entity.enums.StandingOrder;
+
+public enum StandingOrderStatus {
+    ACTIVE,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
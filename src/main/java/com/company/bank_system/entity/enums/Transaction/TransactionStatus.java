@@ -2,6 +2,7 @@ package com.company.bank_system.entity.enums.Transaction;
 
 public enum TransactionStatus {
     PENDING,
+    UNDER_REVIEW, // held by the risk checks until an admin approves or rejects it
     COMPLETED,
     FAILED
 }
@@ -4,5 +4,6 @@ public enum TransactionType {
     TRANSFER,
     DEPOSIT,
     WITHDRAW,
-    PAYMENT
+    PAYMENT,
+    INTEREST
 }
@@ -0,0 +1,207 @@
+package com.company.bank_system.events;
+
+import com.company.bank_system.dto.AccountUpdateEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-process bus from the posting code to the SSE streams of /api/accounts/events.
+ * <p>
+ * Events are published after the posting commits and only for users with an open stream, so a posting
+ * nobody watches costs one map lookup. An idle stream is an async request (no thread) plus a small queue;
+ * queued events are written by a virtual thread per stream, so a slow client never blocks the posting
+ * thread. A stream whose queue fills up is closed and the client reconnects and reloads.
+ */
+@Component
+@Slf4j
+public class AccountEventBus {
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final Map<Long, Deque<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final int maxStreamsPerUser;
+
+    public AccountEventBus(MeterRegistry meterRegistry,
+                           @Value("${bank.events.max-streams-per-user:5}") int maxStreamsPerUser) {
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        Gauge.builder("bank.events.streams", connections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Registers the stream, then reads the snapshot and sends it as the first event, followed by the events
+     * published since registration. The oldest stream of the user is closed when the limit is reached.
+     */
+    public void subscribe(Long userId, SseEmitter emitter, Supplier<Object> snapshot) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        // added inside compute, so it cannot race with remove() dropping an empty deque
+        Deque<Subscriber> streams = subscribers.compute(userId, (id, current) -> {
+            Deque<Subscriber> deque = current != null ? current : new ConcurrentLinkedDeque<>();
+            deque.addLast(subscriber);
+            return deque;
+        });
+        connections.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        while (streams.size() > maxStreamsPerUser) {
+            Subscriber oldest = streams.peekFirst();
+            if (oldest == null) {
+                break;
+            }
+            // removed here, not by the completion callback: that one only counts what it still finds in the deque
+            remove(oldest);
+            oldest.emitter.complete();
+            if (streams.peekFirst() == oldest) {
+                break; // the deque was replaced meanwhile, remove() looked at the new one
+            }
+        }
+
+        try {
+            subscriber.start(SseEmitter.event().name("snapshot").data(snapshot.get()));
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        log.debug("EVENT_STREAM_OPENED userId={} streams={}", userId, streams.size());
+    }
+
+    public boolean hasSubscribers(Long userId) {
+        return userId != null && subscribers.containsKey(userId);
+    }
+
+    /**
+     * Delivers the event to the user's streams once the current transaction commits (right away without one);
+     * nothing is sent if it rolls back.
+     */
+    public void publishAfterCommit(Long userId, AccountUpdateEvent event) {
+        if (!hasSubscribers(userId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId, event);
+                }
+            });
+        } else {
+            publish(userId, event);
+        }
+    }
+
+    // keeps proxies from closing idle streams and finds dead connections
+    @Scheduled(fixedDelayString = "${bank.events.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(streams -> streams.forEach(s -> s.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(streams -> streams.forEach(s -> s.emitter.complete()));
+        senders.shutdown();
+    }
+
+    private void publish(Long userId, AccountUpdateEvent event) {
+        Deque<Subscriber> streams = subscribers.get(userId);
+        if (streams == null) {
+            return;
+        }
+        for (Subscriber subscriber : streams) {
+            subscriber.offer(SseEmitter.event().name("account-update").data(event));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        Deque<Subscriber> streams = subscribers.get(subscriber.userId);
+        if (streams != null && streams.remove(subscriber)) {
+            connections.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.userId, (id, current) -> current.isEmpty() ? null : current);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile SseEmitter.SseEventBuilder first;
+        private volatile boolean started;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                log.warn("EVENT_STREAM_OVERFLOW userId={}", userId);
+                remove(this);
+                queue.clear();
+                emitter.complete();
+                return;
+            }
+            schedule();
+        }
+
+        // events offered before this wait until the first one is sent
+        void start(SseEmitter.SseEventBuilder firstEvent) {
+            first = firstEvent;
+            started = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (started && sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event = first;
+                first = null;
+                if (event == null) {
+                    event = queue.poll();
+                }
+                for (; event != null; event = queue.poll()) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // client went away; the container reports it through onError / onCompletion
+                        remove(this);
+                        queue.clear();
+                    }
+                }
+                sending.set(false);
+                // an event offered after the last poll but before the flag was cleared
+                if (queue.isEmpty() || !sending.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class IdempotencyKeyMismatchException extends BankException {
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency-Key " + key + " was already used with a different request");
+    }
+}
@@ -0,0 +1,9 @@
+package com.company.bank_system.exception.Exceptions;
+
+import java.time.LocalDate;
+
+public class InterestRunNotFoundException extends BankException {
+    public InterestRunNotFoundException(LocalDate businessDate) {
+        super("Interest run for " + businessDate + " not found");
+    }
+}
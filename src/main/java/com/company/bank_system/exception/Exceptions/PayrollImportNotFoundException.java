@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class PayrollImportNotFoundException extends BankException {
+    public PayrollImportNotFoundException(Long importId) {
+        super("Payroll import with id " + importId + " not found");
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class SpendingLimitExceededException extends BankException {
+    public SpendingLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class StandingOrderNotFoundException extends BankException {
+    public StandingOrderNotFoundException(Long standingOrderId) {
+        super("Standing order with id " + standingOrderId + " not found");
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class TransactionBlockedException extends BankException {
+    public TransactionBlockedException(String message) {
+        super(message);
+    }
+}
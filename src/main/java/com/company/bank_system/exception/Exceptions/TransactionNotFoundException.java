@@ -0,0 +1,7 @@
+package com.company.bank_system.exception.Exceptions;
+
+public class TransactionNotFoundException extends BankException {
+    public TransactionNotFoundException(Long transactionId) {
+        super("Transaction with id " + transactionId + " not found");
+    }
+}
@@ -93,6 +93,40 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(SpendingLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleSpendingLimitExceeded(
+            SpendingLimitExceededException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Spending Limit Exceeded",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+
+    @ExceptionHandler(TransactionBlockedException.class)
+    public ResponseEntity<ErrorResponse> handleTransactionBlocked(
+            TransactionBlockedException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.FORBIDDEN.value(),
+                "Transaction Blocked",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+    }
+
+
     @ExceptionHandler(AccountNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleAccountNotFound(
             AccountNotFoundException ex,
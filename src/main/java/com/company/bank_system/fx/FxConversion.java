@@ -0,0 +1,16 @@
+package com.company.bank_system.fx;
+
+import com.company.bank_system.entity.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of converting an amount: what the destination receives and the rate of the snapshot that was used.
+ */
+public record FxConversion(
+        BigDecimal rate,
+        BigDecimal amount,
+        Currency currency,
+        long rateVersion
+) {
+}
@@ -0,0 +1,118 @@
+package com.company.bank_system.fx;
+
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.CurrencyMismatchException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current FX rates, held as one immutable {@link FxRateTable} behind a volatile reference.
+ * <p>
+ * Readers take the reference once per conversion and never lock; an update builds a complete new table
+ * and swaps it in, so a transfer sees either the old or the new rates, never a mix.
+ * Rates come from the rates file (reloaded when it changes) or from the admin endpoint.
+ * <p>
+ * File format (properties), rates against the base currency:
+ * <pre>
+ * base=RUB
+ * USD=92.15
+ * EUR=99.80
+ * </pre>
+ */
+@Service
+@Slf4j
+public class FxRateService {
+
+    private final Path ratesFile;
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile FxRateTable current;
+    private volatile FileTime loadedFileTime;
+
+    public FxRateService(@Value("${bank.fx.rates-file:./fx-rates.properties}") String ratesFile,
+                         @Value("${bank.fx.base:RUB}") Currency base) {
+        this.ratesFile = Path.of(ratesFile);
+        this.current = FxRateTable.empty(base);
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+    }
+
+    public FxRateTable current() {
+        return current;
+    }
+
+    /**
+     * Converts an amount with the current snapshot, rounding to cents (half even).
+     *
+     * @throws CurrencyMismatchException when there is no rate for the pair
+     */
+    public FxConversion convert(BigDecimal amount, Currency from, Currency to) {
+        FxRateTable table = current;
+        BigDecimal rate = table.rate(from, to);
+        if (rate == null) {
+            log.error("FX_RATE_MISSING from={} to={} version={}", from, to, table.getVersion());
+            throw new CurrencyMismatchException("No exchange rate from " + from + " to " + to);
+        }
+        BigDecimal converted = from == to ? amount : amount.multiply(rate).setScale(2, RoundingMode.HALF_EVEN);
+        return new FxConversion(rate, converted, to, table.getVersion());
+    }
+
+    // writers are serialized so versions are swapped in order; readers are never blocked
+    public synchronized FxRateTable update(Currency base, Map<Currency, BigDecimal> rates, String source) {
+        FxRateTable table = new FxRateTable(versions.incrementAndGet(), base, rates, source, Instant.now());
+        current = table;
+        log.info("FX_RATES_UPDATED version={} source={} base={} rates={}", table.getVersion(), source, base, table.getRates());
+        return table;
+    }
+
+    @Scheduled(fixedDelayString = "${bank.fx.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        try {
+            if (!Files.exists(ratesFile)) {
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(ratesFile);
+            if (modified.equals(loadedFileTime)) {
+                return;
+            }
+            loadedFileTime = modified; // a broken file is reported once, not on every poll
+
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(ratesFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            Currency base = Currency.valueOf(properties.getProperty("base", current.getBase().name()).trim());
+            Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+            for (String name : properties.stringPropertyNames()) {
+                if (!name.equals("base")) {
+                    rates.put(Currency.valueOf(name.trim()), new BigDecimal(properties.getProperty(name).trim()));
+                }
+            }
+
+            update(base, rates, ratesFile.toString());
+        } catch (IOException | IllegalArgumentException e) {
+            // keep serving the previous snapshot
+            log.error("FX_RATES_FILE_INVALID path={} error={}", ratesFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.company.bank_system.fx;
+
+import com.company.bank_system.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of exchange rates. Rates are given against a base currency
+ * (1 unit of the currency = rate units of base); every cross rate is computed once here,
+ * so a lookup is two array reads.
+ */
+public final class FxRateTable {
+
+    public static final int RATE_SCALE = 8;
+
+    private final long version;
+    private final Currency base;
+    private final Map<Currency, BigDecimal> rates;
+    private final String source;
+    private final Instant loadedAt;
+    private final BigDecimal[][] cross; // [from][to], null when a side has no rate
+
+    public FxRateTable(long version, Currency base, Map<Currency, BigDecimal> rates, String source, Instant loadedAt) {
+        EnumMap<Currency, BigDecimal> toBase = new EnumMap<>(Currency.class);
+        toBase.putAll(rates);
+        toBase.put(base, BigDecimal.ONE);
+        toBase.forEach((currency, rate) -> {
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("FX rate for " + currency + " must be positive");
+            }
+        });
+
+        this.version = version;
+        this.base = base;
+        this.rates = Collections.unmodifiableMap(toBase);
+        this.source = source;
+        this.loadedAt = loadedAt;
+
+        Currency[] currencies = Currency.values();
+        this.cross = new BigDecimal[currencies.length][currencies.length];
+        for (Currency from : currencies) {
+            for (Currency to : currencies) {
+                if (from == to) {
+                    cross[from.ordinal()][to.ordinal()] = BigDecimal.ONE;
+                } else if (toBase.containsKey(from) && toBase.containsKey(to)) {
+                    cross[from.ordinal()][to.ordinal()] = toBase.get(from).divide(toBase.get(to), RATE_SCALE, RoundingMode.HALF_EVEN);
+                }
+            }
+        }
+    }
+
+    // before any rates are loaded: only same-currency conversions
+    public static FxRateTable empty(Currency base) {
+        return new FxRateTable(0, base, Map.of(), "none", Instant.EPOCH);
+    }
+
+    /**
+     * @return units of {@code to} per unit of {@code from}, null when there is no rate
+     */
+    public BigDecimal rate(Currency from, Currency to) {
+        return cross[from.ordinal()][to.ordinal()];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Currency getBase() {
+        return base;
+    }
+
+    public Map<Currency, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,431 @@
+package com.company.bank_system.interest;
+
+import com.company.bank_system.dto.InterestRunReport;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.exception.Exceptions.InterestRunNotFoundException;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.outbox.OutboxWriter;
+import com.company.bank_system.service.TransactionIdAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Daily interest on accounts with a rate in bank.interest.rates.
+ * <p>
+ * accounts.interest_accrued_on is the date interest has been credited up to: a run for business date D credits
+ * balance * rate * (D - interest_accrued_on) / 365 and sets it to D, so a missed day is caught up by the next run
+ * and an account is never credited twice for the same day.
+ * <p>
+ * The id space is cut into chunks of chunk-size ids, taken by parallel workers. A chunk is one short transaction:
+ * due accounts are locked with FOR UPDATE SKIP LOCKED and credited by a single UPDATE ... RETURNING, the INTEREST
+ * transactions and outbox events are written as JDBC batches, and the run counters move with them. Accounts held
+ * by a running transfer are skipped instead of waited for and picked up by sweep passes at the end. The run row
+ * keeps a checkpoint below which every chunk is done; a run interrupted by a crash resumes from it on startup.
+ */
+@Service
+@Slf4j
+public class InterestAccrualService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String DUE = "a.status = 'ACTIVE' AND a.account_type IN (%s) " +
+            "AND (a.interest_accrued_on IS NULL OR a.interest_accrued_on < ?)";
+
+    private static final String ACCRUE = """
+            WITH due AS (
+                SELECT a.id,
+                       GREATEST(ROUND(
+                           (a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0))
+                           * CASE a.account_type %s END
+                           * (?::date - COALESCE(a.interest_accrued_on, a.created_at::date)) / 365, 2), 0) AS interest
+                FROM accounts a
+                WHERE a.id BETWEEN ? AND ? AND %s
+                FOR UPDATE OF a SKIP LOCKED
+            )
+            UPDATE accounts a
+            SET balance = a.balance + due.interest, interest_accrued_on = ?, version = a.version + 1, updated_at = ?
+            FROM due
+            WHERE a.id = due.id
+            RETURNING a.id, a.currency, due.interest
+            """;
+
+    private static final String NEXT_DUE = "SELECT MIN(a.id) FROM accounts a WHERE a.id >= ? AND %s";
+    private static final String ID_BOUNDS = "SELECT MIN(id), MAX(id) FROM accounts";
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (id, to_account_id, transaction_type, amount, currency, description, status, " +
+                    "created_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // a completed run is not started again
+    private static final String START_RUN = "INSERT INTO interest_runs (business_date, status, started_at, updated_at) " +
+            "VALUES (?, 'RUNNING', ?, ?) ON CONFLICT (business_date) DO UPDATE SET status = 'RUNNING', error = NULL, " +
+            "finished_at = NULL, updated_at = EXCLUDED.updated_at WHERE interest_runs.status <> 'COMPLETED' " +
+            "RETURNING checkpoint_id";
+    private static final String PROGRESS = "UPDATE interest_runs SET checkpoint_id = GREATEST(checkpoint_id, ?), " +
+            "accounts = accounts + ?, interest = interest + ?, updated_at = ? WHERE business_date = ?";
+    private static final String FINISH_RUN = "UPDATE interest_runs SET status = ?, error = ?, updated_at = ?, finished_at = ? " +
+            "WHERE business_date = ?";
+    private static final String INTERRUPTED_RUNS = "SELECT business_date FROM interest_runs WHERE status = 'RUNNING' " +
+            "ORDER BY business_date";
+    private static final String RUN = "SELECT * FROM interest_runs WHERE business_date = ?";
+
+    private static final RowMapper<Credit> CREDIT_MAPPER = (rs, rowNum) -> new Credit(
+            rs.getLong("id"),
+            Currency.valueOf(rs.getString("currency")),
+            rs.getBigDecimal("interest")
+    );
+
+    private static final RowMapper<InterestRunReport> RUN_MAPPER = (rs, rowNum) -> new InterestRunReport(
+            rs.getDate("business_date").toLocalDate(),
+            rs.getString("status"),
+            rs.getLong("checkpoint_id"),
+            rs.getLong("accounts"),
+            rs.getBigDecimal("interest"),
+            rs.getString("error"),
+            rs.getTimestamp("started_at").toLocalDateTime(),
+            rs.getTimestamp("updated_at").toLocalDateTime(),
+            rs.getTimestamp("finished_at") != null ? rs.getTimestamp("finished_at").toLocalDateTime() : null
+    );
+
+    private final InterestProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionIdAllocator transactionIdAllocator;
+    private final OutboxWriter outboxWriter;
+    private final boolean ledgerEnabled;
+    private final String accrueSql;
+    private final String nextDueSql;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InterestAccrualService(InterestProperties properties,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  TransactionIdAllocator transactionIdAllocator,
+                                  OutboxWriter outboxWriter,
+                                  Optional<LedgerEngine> ledgerEngine) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionIdAllocator = transactionIdAllocator;
+        this.outboxWriter = outboxWriter;
+        this.ledgerEnabled = ledgerEngine.isPresent();
+
+        // rates are config values, inlined so every chunk runs the same statement
+        Map<AccountType, BigDecimal> rates = properties.rates();
+        String types = rates.isEmpty() ? "NULL" : rates.keySet().stream()
+                .map(type -> "'" + type.name() + "'")
+                .collect(Collectors.joining(", "));
+        String cases = rates.entrySet().stream()
+                .map(e -> "WHEN '" + e.getKey().name() + "' THEN " + e.getValue().toPlainString())
+                .collect(Collectors.joining(" ")) + " ELSE 0";
+        String due = DUE.formatted(types);
+        this.accrueSql = ACCRUE.formatted(cases, due);
+        this.nextDueSql = NEXT_DUE.formatted(due);
+    }
+
+    @Scheduled(cron = "${bank.interest.cron:0 30 0 * * *}")
+    public void scheduled() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            accrue(LocalDate.now());
+        } catch (InvalidOperationException e) {
+            log.warn("INTEREST_RUN_SKIPPED reason={}", e.getMessage());
+        }
+    }
+
+    // runs cut short by a crash or a shutdown
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!properties.enabled() || ledgerEnabled) {
+            return;
+        }
+        List<LocalDate> dates = jdbcTemplate.queryForList(INTERRUPTED_RUNS, Date.class).stream()
+                .map(Date::toLocalDate)
+                .toList();
+        if (dates.isEmpty()) {
+            return;
+        }
+        log.info("INTEREST_RUNS_RESUMING dates={}", dates);
+        Thread.ofPlatform().name("interest-resume").start(() -> {
+            for (LocalDate date : dates) {
+                try {
+                    accrue(date);
+                } catch (RuntimeException e) {
+                    log.error("INTEREST_RUN_RESUME_FAILED businessDate={} error={}", date, e.getMessage());
+                }
+            }
+        });
+    }
+
+    // runs in the background, follow it with report(date)
+    public InterestRunReport start(LocalDate businessDate) {
+        acquire();
+        try {
+            Long checkpoint = begin(businessDate);
+            if (checkpoint != null) {
+                Thread.ofPlatform().name("interest-" + businessDate).start(() -> {
+                    try {
+                        execute(businessDate, checkpoint);
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } else {
+                running.set(false);
+            }
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return report(businessDate);
+    }
+
+    // runs in the calling thread
+    public InterestRunReport accrue(LocalDate businessDate) {
+        acquire();
+        try {
+            Long checkpoint = begin(businessDate);
+            if (checkpoint != null) {
+                execute(businessDate, checkpoint);
+            }
+        } finally {
+            running.set(false);
+        }
+        return report(businessDate);
+    }
+
+    public InterestRunReport report(LocalDate businessDate) {
+        return jdbcTemplate.query(RUN, RUN_MAPPER, Date.valueOf(businessDate)).stream()
+                .findFirst()
+                .orElseThrow(() -> new InterestRunNotFoundException(businessDate));
+    }
+
+    private void acquire() {
+        if (ledgerEnabled) {
+            throw new InvalidOperationException("Interest accrual is not available while the ledger engine owns balances");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new InvalidOperationException("Interest accrual already running");
+        }
+    }
+
+    // checkpoint of the run, null if it has already completed
+    private Long begin(LocalDate businessDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> started = jdbcTemplate.queryForList(START_RUN, Long.class, Date.valueOf(businessDate), now, now);
+        if (started.isEmpty()) {
+            log.info("INTEREST_RUN_ALREADY_COMPLETED businessDate={}", businessDate);
+            return null;
+        }
+        return started.getFirst();
+    }
+
+    private void execute(LocalDate businessDate, long checkpoint) {
+        Date date = Date.valueOf(businessDate);
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(ID_BOUNDS);
+            Number min = (Number) bounds.get("min");
+            Number max = (Number) bounds.get("max");
+            if (min != null) {
+                Pass pass = new Pass(Math.max(min.longValue(), checkpoint), max.longValue());
+                log.info("INTEREST_RUN_STARTED businessDate={} fromId={} toId={} chunks={} workers={}",
+                        businessDate, pass.fromId, pass.toId, pass.chunks, properties.workers());
+                runParallel(date, pass);
+            }
+
+            String status = sweep(date) ? "COMPLETED" : "INCOMPLETE";
+            finish(date, status, null);
+            InterestRunReport report = report(businessDate);
+            log.info("INTEREST_RUN_FINISHED businessDate={} status={} accounts={} interest={} timeMs={}",
+                    businessDate, status, report.accounts(), report.interest(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            finish(date, "FAILED", e.getMessage());
+            log.error("INTEREST_RUN_FAILED businessDate={} error={}", businessDate, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private void runParallel(Date date, Pass pass) {
+        ExecutorService pool = Executors.newFixedThreadPool(properties.workers(),
+                Thread.ofPlatform().name("interest-worker-", 0).factory());
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < properties.workers(); i++) {
+                workers.add(pool.submit(() -> {
+                    long chunk;
+                    while (!failed.get() && (chunk = pass.next.getAndIncrement()) < pass.chunks) {
+                        long fromId = pass.fromId + chunk * properties.chunkSize();
+                        try {
+                            accrueChunk(date, fromId, Math.min(fromId + properties.chunkSize() - 1, pass.toId), pass, chunk);
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while accruing interest", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Picks up accounts the parallel pass skipped because they were locked, or that lie below a checkpoint
+     * written ahead of a failed chunk. Accounts still locked after max-passes wait for the next run.
+     *
+     * @return whether every due account has been credited
+     */
+    private boolean sweep(Date date) {
+        for (int pass = 1; ; pass++) {
+            Long next = jdbcTemplate.queryForObject(nextDueSql, Long.class, 0L, date);
+            if (next == null) {
+                return true;
+            }
+            if (pass > properties.maxPasses()) {
+                return false;
+            }
+            if (pass > 1) {
+                log.info("INTEREST_SWEEP_WAITING_FOR_LOCKED pass={} businessDate={}", pass, date);
+                try {
+                    Thread.sleep(properties.passDelay());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            while (next != null) {
+                long toId = next + properties.chunkSize() - 1;
+                accrueChunk(date, next, toId, null, 0);
+                next = jdbcTemplate.queryForObject(nextDueSql, Long.class, toId + 1, date);
+            }
+        }
+    }
+
+    private void accrueChunk(Date date, long fromId, long toId, Pass pass, long chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp timestamp = Timestamp.valueOf(now);
+            List<Credit> credits = jdbcTemplate.query(accrueSql, CREDIT_MAPPER, date, fromId, toId, date, date, timestamp);
+
+            // accounts whose interest rounds to zero only move their date
+            List<Credit> posted = credits.stream().filter(c -> c.interest().signum() > 0).toList();
+            long[] transactionIds = transactionIdAllocator.allocate(posted.size());
+            String description = "Interest up to " + date;
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Credit credit = posted.get(i);
+                    ps.setLong(1, transactionIds[i]);
+                    ps.setLong(2, credit.accountId());
+                    ps.setString(3, TransactionType.INTEREST.name());
+                    ps.setBigDecimal(4, credit.interest());
+                    ps.setString(5, credit.currency().name());
+                    ps.setString(6, description);
+                    ps.setString(7, TransactionStatus.COMPLETED.name());
+                    ps.setTimestamp(8, timestamp);
+                    ps.setTimestamp(9, timestamp);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return posted.size();
+                }
+            });
+
+            List<TransactionResponse> created = new ArrayList<>(posted.size());
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < posted.size(); i++) {
+                Credit credit = posted.get(i);
+                total = total.add(credit.interest());
+                created.add(new TransactionResponse(transactionIds[i], null, credit.accountId(), TransactionType.INTEREST,
+                        credit.interest(), credit.currency(), description, TransactionStatus.COMPLETED, now));
+            }
+            outboxWriter.transactionsCreated(created);
+
+            // last statement of the chunk: the run row is shared by all workers
+            long checkpoint = pass != null ? pass.complete(chunk) : 0;
+            jdbcTemplate.update(PROGRESS, checkpoint, credits.size(), total, timestamp, date);
+        });
+    }
+
+    private void finish(Date date, String status, String error) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (error != null && error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        jdbcTemplate.update(FINISH_RUN, status, error, now, now, date);
+    }
+
+    private record Credit(long accountId, Currency currency, BigDecimal interest) {
+    }
+
+    // chunks of one parallel pass; the checkpoint is the first id of the first chunk not yet done
+    private final class Pass {
+        private final long fromId;
+        private final long toId;
+        private final long chunks;
+        private final AtomicLong next = new AtomicLong();
+        private final BitSet done = new BitSet();
+        private int contiguous;
+
+        Pass(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.chunks = fromId > toId ? 0 : (toId - fromId) / properties.chunkSize() + 1;
+        }
+
+        synchronized long complete(long chunk) {
+            done.set((int) chunk);
+            while (done.get(contiguous)) {
+                contiguous++;
+            }
+            return fromId + (long) contiguous * properties.chunkSize();
+        }
+    }
+}
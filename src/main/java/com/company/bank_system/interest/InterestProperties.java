@@ -0,0 +1,31 @@
+package com.company.bank_system.interest;
+
+import com.company.bank_system.entity.enums.Account.AccountType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * bank.interest: annual rates per account type (0.05 = 5%), accrued daily on an actual/365 basis.
+ * Account types without a rate earn nothing.
+ */
+@ConfigurationProperties("bank.interest")
+public record InterestProperties(
+        boolean enabled,
+        Map<AccountType, BigDecimal> rates,
+        int workers,
+        int chunkSize,
+        int maxPasses,
+        Duration passDelay
+) {
+
+    public InterestProperties {
+        rates = rates != null ? Map.copyOf(rates) : Map.of();
+        workers = workers > 0 ? workers : 4;
+        chunkSize = chunkSize > 0 ? chunkSize : 1000;
+        maxPasses = maxPasses > 0 ? maxPasses : 3;
+        passDelay = passDelay != null ? passDelay : Duration.ofSeconds(5);
+    }
+}
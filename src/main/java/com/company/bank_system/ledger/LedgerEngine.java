@@ -0,0 +1,412 @@
+package com.company.bank_system.ledger;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.exception.Exceptions.AccountNotFoundException;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.exception.Exceptions.InvalidAmountException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.service.AccountBalanceService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Single-writer ledger core (bank.ledger.enabled=true).
+ * <p>
+ * Balances live in a long[] indexed by account id (minor units), every posting is appended to
+ * {@link LedgerJournal} and acknowledged after the batch is forced to disk (group commit).
+ * Postgres is updated later by {@link LedgerProjector}, accounts/transactions stay the read model.
+ * On startup state = latest snapshot + journal tail. The snapshot (long seq | int count | count x (long id,
+ * long balance) | long crc32c) is forced to disk and renamed into place before any journal segment it covers
+ * is deleted. While enabled the engine owns the balances of every account it has touched - nothing else may write them.
+ * The first balance of an account is read from the db on the posting thread, so the writer never waits for the db.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerEngine {
+
+    private static final long NOT_LOADED = Long.MIN_VALUE;
+    private static final int BATCH_SIZE = 1024;
+    private static final String SNAPSHOT = "ledger.snapshot";
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceService accountBalanceService;
+    private final Path directory;
+    private final long snapshotEvery;
+    private final LedgerJournal journal;
+    private final BlockingQueue<Command> queue;
+    private final Thread writer;
+
+    // writer thread only
+    private long[] balances = new long[0];
+    private long seq;
+    private long snapshotSeq;
+
+    // ids the writer has loaded, one bit each; written by the writer, read by posting threads.
+    // A stale view only makes post() read a balance the writer will ignore
+    private volatile AtomicLongArray loaded = new AtomicLongArray(0);
+
+    private volatile long projectedSeq;
+    private volatile boolean running = true;
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        AccountBalanceService accountBalanceService,
+                        @Value("${bank.ledger.directory:./ledger}") String directory,
+                        @Value("${bank.ledger.segment-size-mb:64}") int segmentSizeMb,
+                        @Value("${bank.ledger.snapshot-every:1000000}") long snapshotEvery,
+                        @Value("${bank.ledger.queue-capacity:65536}") int queueCapacity) throws IOException {
+        this.accountRepository = accountRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.directory = Path.of(directory);
+        this.snapshotEvery = snapshotEvery;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.journal = new LedgerJournal(this.directory, segmentSizeMb * 1024 * 1024);
+
+        recover();
+
+        this.writer = new Thread(this::run, "ledger-writer");
+        this.writer.start();
+    }
+
+    /**
+     * Queues a posting. The future completes once the posting is on disk,
+     * or exceptionally with {@link InsufficientFundsException} / {@link AccountNotFoundException}.
+     */
+    public CompletableFuture<LedgerPosting> post(TransactionType type,
+                                                 Long fromAccountId,
+                                                 Long toAccountId,
+                                                 BigDecimal amount,
+                                                 Currency currency,
+                                                 String description) {
+        if (!running) {
+            throw new IllegalStateException("Ledger engine is stopped");
+        }
+
+        Preload fromPreload;
+        Preload toPreload;
+        try {
+            fromPreload = preload(fromAccountId);
+            toPreload = preload(toAccountId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Command command = new Command(type, fromAccountId, toAccountId, toMinor(amount), currency, description,
+                fromPreload, toPreload, new CompletableFuture<>());
+        try {
+            queue.put(command); // full queue = backpressure on request threads
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while posting to ledger", e);
+        }
+        return command.result();
+    }
+
+    // null when there is no account or the writer has it already
+    private Preload preload(Long accountId) {
+        if (accountId == null || isLoaded(accountId)) {
+            return null;
+        }
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(AccountNotFoundException.Type.ID, String.valueOf(accountId)));
+        return new Preload(toMinor(accountBalanceService.totalBalance(account)), account.getCurrency());
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    LedgerJournal.Reader reader(long afterSeq) {
+        return journal.reader(afterSeq);
+    }
+
+    void projectedUpTo(long seq) {
+        projectedSeq = seq;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        log.info("LEDGER_ENGINE_STOPPED lastSeq={}", seq);
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(BATCH_SIZE);
+        List<Runnable> acks = new ArrayList<>(BATCH_SIZE);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                for (Command command : batch) {
+                    try {
+                        LedgerPosting posting = apply(command);
+                        acks.add(() -> command.result().complete(posting));
+                    } catch (RuntimeException e) {
+                        command.result().completeExceptionally(e);
+                    }
+                }
+
+                journal.flush();
+                acks.forEach(Runnable::run);
+
+                if (seq - snapshotSeq >= snapshotEvery) {
+                    try {
+                        snapshot();
+                    } catch (UncheckedIOException e) {
+                        // not fatal: the journal still has everything, next batch tries again
+                        log.warn("LEDGER_SNAPSHOT_FAILED seq={} error={}", seq, e.getMessage());
+                    }
+                }
+                journal.deleteUpTo(Math.min(snapshotSeq, projectedSeq));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                // journal is broken: memory state is ahead of disk, refuse to go on
+                log.error("LEDGER_ENGINE_HALTED seq={} error={}", seq, e.getMessage(), e);
+                running = false;
+                queue.drainTo(batch);
+                batch.forEach(c -> c.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+                acks.clear();
+            }
+        }
+    }
+
+    private LedgerPosting apply(Command command) {
+        long from = command.fromAccountId() == null ? 0 : command.fromAccountId();
+        long to = command.toAccountId() == null ? 0 : command.toAccountId();
+
+        if (from != 0) {
+            ensureLoaded(from, command.fromPreload());
+            if (balances[(int) from] < command.amountMinor()) {
+                throw new InsufficientFundsException(from, toDecimal(command.amountMinor()), toDecimal(balances[(int) from]));
+            }
+        }
+        if (to != 0) {
+            ensureLoaded(to, command.toPreload());
+        }
+
+        if (from != 0) {
+            balances[(int) from] -= command.amountMinor();
+        }
+        if (to != 0) {
+            balances[(int) to] += command.amountMinor();
+        }
+
+        LedgerPosting posting = new LedgerPosting(++seq, command.type(), from, to, command.amountMinor(),
+                command.currency(), System.currentTimeMillis(), command.description());
+        journal.append(posting);
+        return posting;
+    }
+
+    // first touch: take the balance post() read from the db and journal it, so replay never needs the db.
+    // A second preload of the same account, queued before the first was applied, is ignored
+    private void ensureLoaded(long accountId, Preload preload) {
+        grow(accountId);
+        if (balances[(int) accountId] != NOT_LOADED) {
+            return;
+        }
+        if (preload == null) {
+            throw new IllegalStateException("Account " + accountId + " was not preloaded");
+        }
+
+        balances[(int) accountId] = preload.balanceMinor();
+        markLoaded(accountId);
+        journal.append(new LedgerPosting(++seq, null, 0, accountId, preload.balanceMinor(), preload.currency(),
+                System.currentTimeMillis(), null));
+    }
+
+    private boolean isLoaded(long accountId) {
+        AtomicLongArray bits = loaded;
+        int word = (int) (accountId >>> 6);
+        return word < bits.length() && (bits.get(word) & (1L << accountId)) != 0;
+    }
+
+    // writer thread (or recovery, before it starts) only
+    private void markLoaded(long accountId) {
+        int word = (int) (accountId >>> 6);
+        AtomicLongArray bits = loaded;
+        if (word >= bits.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, bits.length() * 2));
+            for (int i = 0; i < bits.length(); i++) {
+                grown.set(i, bits.get(i));
+            }
+            bits = grown;
+            loaded = grown;
+        }
+        bits.set(word, bits.get(word) | (1L << accountId));
+    }
+
+    private void grow(long accountId) {
+        if (accountId >= Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Account id " + accountId + " does not fit the ledger arrays");
+        }
+        if (accountId < balances.length) {
+            return;
+        }
+        int oldLength = balances.length;
+        balances = Arrays.copyOf(balances, (int) Math.max(accountId + 1, Math.min(Integer.MAX_VALUE - 8, oldLength * 2L)));
+        Arrays.fill(balances, oldLength, balances.length, NOT_LOADED);
+    }
+
+    private void recover() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            readSnapshot(snapshot);
+        }
+
+        long[] replayed = {0};
+        journal.replay(snapshotSeq, posting -> {
+            if (posting.isLoad()) {
+                grow(posting.toAccountId());
+                balances[(int) posting.toAccountId()] = posting.amountMinor();
+                markLoaded(posting.toAccountId());
+            } else {
+                if (posting.fromAccountId() != 0) {
+                    balances[(int) posting.fromAccountId()] -= posting.amountMinor();
+                }
+                if (posting.toAccountId() != 0) {
+                    balances[(int) posting.toAccountId()] += posting.amountMinor();
+                }
+            }
+            replayed[0]++;
+        });
+        seq = Math.max(snapshotSeq, journal.lastSeq());
+
+        log.info("LEDGER_ENGINE_RECOVERED snapshotSeq={} replayed={} seq={}", snapshotSeq, replayed[0], seq);
+    }
+
+    // the journal segments before snapshotSeq may already be gone, so a damaged snapshot cannot be worked around
+    private void readSnapshot(Path snapshot) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot)), new CRC32C());
+             DataInputStream in = new DataInputStream(checked)) {
+            long coveredSeq = in.readLong();
+            int count = in.readInt();
+            long[] entries = new long[count * 2];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = in.readLong();
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IllegalStateException("Ledger snapshot " + snapshot + " is corrupt (checksum mismatch)");
+            }
+
+            for (int i = 0; i < entries.length; i += 2) {
+                grow(entries[i]);
+                balances[(int) entries[i]] = entries[i + 1];
+                markLoaded(entries[i]);
+            }
+            snapshotSeq = coveredSeq;
+        } catch (EOFException e) {
+            throw new IllegalStateException("Ledger snapshot " + snapshot + " is truncated", e);
+        }
+    }
+
+    private void snapshot() {
+        Path tmp = directory.resolve(SNAPSHOT + ".tmp");
+        int count = 0;
+        for (long balance : balances) {
+            if (balance != NOT_LOADED) {
+                count++;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeLong(seq);
+            out.writeInt(count);
+            for (int id = 0; id < balances.length; id++) {
+                if (balances[id] != NOT_LOADED) {
+                    out.writeLong(id);
+                    out.writeLong(balances[id]);
+                }
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write ledger snapshot", e);
+        }
+
+        try {
+            Files.move(tmp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish ledger snapshot", e);
+        }
+        LedgerJournal.forceDirectory(directory);
+
+        // only now may deleteUpTo drop the segments the snapshot covers
+        snapshotSeq = seq;
+        log.info("LEDGER_SNAPSHOT_WRITTEN seq={} accounts={}", seq, count);
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("Amount must have at most 2 decimal places");
+        }
+    }
+
+    private record Command(
+            TransactionType type,
+            Long fromAccountId,
+            Long toAccountId,
+            long amountMinor,
+            Currency currency,
+            String description,
+            Preload fromPreload,
+            Preload toPreload,
+            CompletableFuture<LedgerPosting> result
+    ) {
+    }
+
+    // balance of an account the writer has not loaded yet, read by post()
+    private record Preload(long balanceMinor, Currency currency) {
+    }
+}
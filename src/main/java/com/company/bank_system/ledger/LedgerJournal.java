@@ -0,0 +1,351 @@
+package com.company.bank_system.ledger;
+
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal in memory-mapped segment files (journal-{firstSeq}.log).
+ * <p>
+ * Record: int length | int crc32c | long seq | byte type | byte currency | long from | long to | long amount
+ * | long time | short descLength | desc bytes. The checksum covers everything after it. The length is written last,
+ * but the page holding it may reach the disk before the rest, so on open the scan stops at the first record whose
+ * checksum does not match and everything from there on is treated as a torn tail.
+ * <p>
+ * One writer thread appends, any number of {@link Reader}s follow it. Readers only see records
+ * published by {@link #flush()}.
+ */
+@Slf4j
+class LedgerJournal {
+
+    private static final int HEADER = 52;
+    private static final int MAX_DESCRIPTION_BYTES = 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private Segment active;
+    private long lastSeq;
+
+    LedgerJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().matches("journal-\\d{20}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = open(file, Long.parseLong(name.substring(8, 28)));
+            segment.writePosition = scanEnd(segment);
+            segment.limit = segment.writePosition;
+            segment.sealed = true;
+            segments.add(segment);
+        }
+
+        if (!segments.isEmpty()) {
+            clearTail(segments.getLast());
+        }
+
+        if (segments.isEmpty()) {
+            active = create(1);
+        } else {
+            active = segments.getLast();
+            active.sealed = false;
+            segments.forEach(s -> forEachRecord(s, p -> lastSeq = Math.max(lastSeq, p.seq())));
+        }
+
+        log.info("LEDGER_JOURNAL_OPENED dir={} segments={} lastSeq={}", directory, segments.size(), lastSeq);
+    }
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Feeds every record with seq > afterSeq to the consumer, oldest first. Startup only.
+     */
+    void replay(long afterSeq, Consumer<LedgerPosting> consumer) {
+        for (Segment segment : segments) {
+            forEachRecord(segment, p -> {
+                if (p.seq() > afterSeq) {
+                    consumer.accept(p);
+                }
+            });
+        }
+    }
+
+    // writer thread only
+    void append(LedgerPosting posting) {
+        byte[] description = encodeDescription(posting.description());
+        int length = HEADER + description.length;
+
+        if (active.writePosition + length + 4 > segmentSize) {
+            roll(posting.seq());
+        }
+
+        MappedByteBuffer buffer = active.buffer;
+        int at = active.writePosition;
+        buffer.putLong(at + 8, posting.seq());
+        buffer.put(at + 16, posting.type() == null ? 0 : (byte) (posting.type().ordinal() + 1));
+        buffer.put(at + 17, posting.currency() == null ? 0 : (byte) (posting.currency().ordinal() + 1));
+        buffer.putLong(at + 18, posting.fromAccountId());
+        buffer.putLong(at + 26, posting.toAccountId());
+        buffer.putLong(at + 34, posting.amountMinor());
+        buffer.putLong(at + 42, posting.timestamp());
+        buffer.putShort(at + 50, (short) description.length);
+        buffer.put(at + HEADER, description);
+        buffer.putInt(at + 4, checksum(buffer, at, length));
+        buffer.putInt(at, length);
+
+        active.writePosition += length;
+        lastSeq = posting.seq();
+    }
+
+    /**
+     * Forces appended records to disk and makes them visible to readers. Writer thread only.
+     */
+    void flush() {
+        active.buffer.force();
+        active.limit = active.writePosition;
+    }
+
+    Reader reader(long afterSeq) {
+        Segment start = segments.getFirst();
+        for (Segment segment : segments) {
+            if (segment.firstSeq <= afterSeq + 1) {
+                start = segment;
+            }
+        }
+
+        Reader reader = new Reader(start);
+        reader.skipUpTo(afterSeq);
+        return reader;
+    }
+
+    /**
+     * Deletes sealed segments that contain only records with seq <= upToSeq.
+     */
+    void deleteUpTo(long upToSeq) {
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Segment segment = segments.get(i);
+            Segment next = segments.get(i + 1);
+            if (!segment.sealed || next.firstSeq > upToSeq + 1) {
+                break;
+            }
+            segments.remove(segment);
+            i--;
+            // the mapping itself is released by gc, the file handle was closed right after map()
+            try {
+                Files.deleteIfExists(segment.path);
+                log.info("LEDGER_JOURNAL_SEGMENT_DELETED file={}", segment.path.getFileName());
+            } catch (IOException e) {
+                log.warn("LEDGER_JOURNAL_SEGMENT_DELETE_FAILED file={} error={}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Makes created, renamed and deleted files in the directory durable. Not every platform
+     * can open a directory for this (Windows), there the rename is as durable as the OS makes it.
+     */
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("LEDGER_DIRECTORY_FORCE_UNSUPPORTED dir={} error={}", directory, e.getMessage());
+        }
+    }
+
+    private void roll(long nextSeq) {
+        flush();
+        active.sealed = true;
+        active = create(nextSeq);
+        log.info("LEDGER_JOURNAL_ROLLED firstSeq={}", nextSeq);
+    }
+
+    private Segment create(long firstSeq) {
+        try {
+            Segment segment = open(directory.resolve(String.format("journal-%020d.log", firstSeq)), firstSeq);
+            forceDirectory(directory);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment", e);
+        }
+    }
+
+    private Segment open(Path path, long firstSeq) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (file.length() < segmentSize) {
+                file.setLength(segmentSize);
+            }
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            return new Segment(path, firstSeq, buffer);
+        }
+    }
+
+    private int scanEnd(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int at = 0;
+        while (at + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(at);
+            if (length == 0) {
+                break;
+            }
+            if (length < HEADER || at + length > buffer.capacity()
+                    || length != HEADER + buffer.getShort(at + 50)
+                    || buffer.getInt(at + 4) != checksum(buffer, at, length)) {
+                log.warn("LEDGER_JOURNAL_TORN_RECORD file={} position={}", segment.path.getFileName(), at);
+                break;
+            }
+            at += length;
+        }
+        return at;
+    }
+
+    // a torn record may have left bytes behind the end, zero them so new records never run into them
+    private void clearTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        if (segment.writePosition + 4 > buffer.capacity() || buffer.getInt(segment.writePosition) == 0) {
+            return;
+        }
+        for (int at = segment.writePosition; at < buffer.capacity(); at++) {
+            buffer.put(at, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int at, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(at + 8, length - 8));
+        return (int) crc.getValue();
+    }
+
+    private void forEachRecord(Segment segment, Consumer<LedgerPosting> consumer) {
+        int at = 0;
+        while (at < segment.limit) {
+            consumer.accept(decode(segment.buffer, at));
+            at += segment.buffer.getInt(at);
+        }
+    }
+
+    private static LedgerPosting decode(MappedByteBuffer buffer, int at) {
+        byte type = buffer.get(at + 16);
+        byte currency = buffer.get(at + 17);
+        byte[] description = new byte[buffer.getShort(at + 50)];
+        buffer.get(at + HEADER, description);
+
+        return new LedgerPosting(
+                buffer.getLong(at + 8),
+                type == 0 ? null : TransactionType.values()[type - 1],
+                buffer.getLong(at + 18),
+                buffer.getLong(at + 26),
+                buffer.getLong(at + 34),
+                currency == 0 ? null : Currency.values()[currency - 1],
+                buffer.getLong(at + 42),
+                description.length == 0 ? null : new String(description, StandardCharsets.UTF_8)
+        );
+    }
+
+    private static byte[] encodeDescription(String description) {
+        if (description == null) {
+            return new byte[0];
+        }
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_DESCRIPTION_BYTES) {
+            return new String(bytes, 0, MAX_DESCRIPTION_BYTES, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long firstSeq;
+        final MappedByteBuffer buffer;
+        int writePosition;          // writer thread
+        volatile int limit;         // published end, readers never go past it
+        volatile boolean sealed;    // no more writes, limit is final
+
+        Segment(Path path, long firstSeq, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Follows the journal from a position. Not thread-safe, one per consumer.
+     */
+    final class Reader {
+
+        private Segment segment;
+        private int offset;
+
+        private Reader(Segment segment) {
+            this.segment = segment;
+        }
+
+        List<LedgerPosting> next(int max) {
+            List<LedgerPosting> postings = new ArrayList<>();
+
+            while (postings.size() < max) {
+                boolean sealed = segment.sealed;
+                int limit = segment.limit;
+
+                if (offset < limit) {
+                    postings.add(decode(segment.buffer, offset));
+                    offset += segment.buffer.getInt(offset);
+                    continue;
+                }
+
+                Segment next = sealed ? successor(segment) : null;
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                offset = 0;
+            }
+
+            return postings;
+        }
+
+        private void skipUpTo(long seq) {
+            while (offset < segment.limit && decode(segment.buffer, offset).seq() <= seq) {
+                offset += segment.buffer.getInt(offset);
+            }
+        }
+
+        private Segment successor(Segment current) {
+            for (Segment candidate : segments) {
+                if (candidate.firstSeq > current.firstSeq) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.company.bank_system.ledger;
+
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+
+/**
+ * One journal record. Amounts are in minor units (kopecks / cents).
+ * type == null is a LOAD record: the account entered the engine with {@code amountMinor} taken from the db,
+ * it is only needed for replay and is never projected.
+ */
+public record LedgerPosting(
+        long seq,
+        TransactionType type,
+        long fromAccountId, // 0 - none
+        long toAccountId,   // 0 - none
+        long amountMinor,
+        Currency currency,
+        long timestamp,
+        String description
+) {
+
+    public boolean isLoad() {
+        return type == null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.company.bank_system.ledger;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.outbox.OutboxWriter;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies ledger postings into accounts/transactions. The position is the max transactions.journal_seq,
+ * written in the same db transaction as the rows, so a crash never projects a posting twice.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "bank.ledger.enabled", havingValue = "true")
+public class LedgerProjector {
+
+    private final LedgerEngine ledgerEngine;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outboxWriter;
+    private final int batchSize;
+
+    private LedgerJournal.Reader reader;
+
+    public LedgerProjector(LedgerEngine ledgerEngine,
+                           AccountRepository accountRepository,
+                           TransactionRepository transactionRepository,
+                           PlatformTransactionManager transactionManager,
+                           OutboxWriter outboxWriter,
+                           @Value("${bank.ledger.projection-batch-size:1000}") int batchSize) {
+        this.ledgerEngine = ledgerEngine;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxWriter = outboxWriter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${bank.ledger.projection-interval-ms:200}")
+    public void project() {
+        if (reader == null) {
+            Long projected = transactionRepository.findMaxJournalSeq();
+            reader = ledgerEngine.reader(projected == null ? 0 : projected);
+            log.info("LEDGER_PROJECTION_RESUMED afterSeq={}", projected);
+        }
+
+        List<LedgerPosting> postings;
+        while (!(postings = reader.next(batchSize)).isEmpty()) {
+            List<LedgerPosting> batch = postings;
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException e) {
+                // start over from what the db has really committed
+                log.error("LEDGER_PROJECTION_FAILED fromSeq={} error={}", batch.getFirst().seq(), e.getMessage());
+                reader = null;
+                return;
+            }
+            ledgerEngine.projectedUpTo(batch.getLast().seq());
+            log.debug("LEDGER_PROJECTED upToSeq={} count={}", batch.getLast().seq(), batch.size());
+        }
+    }
+
+    private void write(List<LedgerPosting> postings) {
+        Map<Long, Long> deltas = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(postings.size());
+
+        for (LedgerPosting posting : postings) {
+            if (posting.isLoad()) {
+                continue;
+            }
+            if (posting.fromAccountId() != 0) {
+                deltas.merge(posting.fromAccountId(), -posting.amountMinor(), Long::sum);
+            }
+            if (posting.toAccountId() != 0) {
+                deltas.merge(posting.toAccountId(), posting.amountMinor(), Long::sum);
+            }
+            transactions.add(toTransaction(posting));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((accountId, delta) ->
+                accountRepository.addToBalance(accountId, LedgerEngine.toDecimal(delta), now)
+        );
+        transactionRepository.saveAll(transactions);
+        outboxWriter.transactionsCreated(transactions.stream().map(LedgerProjector::toResponse).toList());
+    }
+
+    private static TransactionResponse toResponse(Transaction transaction) {
+        return new TransactionResponse(
+                transaction.getId(),
+                transaction.getFromAccount() != null ? transaction.getFromAccount().getId() : null,
+                transaction.getToAccount() != null ? transaction.getToAccount().getId() : null,
+                transaction.getTransactionType(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getDescription(),
+                transaction.getStatus(),
+                transaction.getCreatedAt()
+        );
+    }
+
+    private Transaction toTransaction(LedgerPosting posting) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(posting.timestamp()), ZoneId.systemDefault());
+
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(posting.fromAccountId() == 0 ? null : accountRepository.getReferenceById(posting.fromAccountId()));
+        transaction.setToAccount(posting.toAccountId() == 0 ? null : accountRepository.getReferenceById(posting.toAccountId()));
+        transaction.setTransactionType(posting.type());
+        transaction.setAmount(LedgerEngine.toDecimal(posting.amountMinor()));
+        transaction.setCurrency(posting.currency());
+        transaction.setDescription(posting.description());
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(time);
+        transaction.setCompletedAt(time);
+        transaction.setJournalSeq(posting.seq());
+        return transaction;
+    }
+}
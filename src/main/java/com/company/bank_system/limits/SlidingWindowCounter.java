@@ -0,0 +1,87 @@
+package com.company.bank_system.limits;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sum of amounts over a sliding time window, kept in a ring of fixed-size buckets (window / buckets wide).
+ * Lock-free: a bucket is a LongAdder tagged with its period, replaced by CAS when the ring wraps around.
+ * An add that races with the replacement of its own bucket is dropped, but that bucket's period has
+ * already left the window, so the sum is never short.
+ */
+public final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    public long sum(long nowMillis) {
+        long period = nowMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && period - bucket.period < ring.length()) {
+                total += bucket.amount.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds the amount to the bucket of the given time.
+     *
+     * @return the bucket, to take the amount back, or null when the time is already out of the window
+     */
+    public Bucket add(long atMillis, long amount) {
+        long period = atMillis / bucketMillis;
+        int index = (int) (period % ring.length());
+        while (true) {
+            Bucket bucket = ring.get(index);
+            if (bucket != null && bucket.period == period) {
+                bucket.amount.add(amount);
+                return bucket;
+            }
+            if (bucket != null && bucket.period > period) {
+                return null;
+            }
+            Bucket fresh = new Bucket(period);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                fresh.amount.add(amount);
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * Adds the amount only if the window sum stays within the limit. Two racing reservations may both
+     * be refused when only one would fit; the limit is never exceeded.
+     */
+    public Bucket tryAdd(long nowMillis, long amount, long limit) {
+        if (sum(nowMillis) + amount > limit) {
+            return null;
+        }
+        Bucket bucket = add(nowMillis, amount);
+        if (bucket != null && sum(nowMillis) > limit) {
+            bucket.amount.add(-amount);
+            return null;
+        }
+        return bucket;
+    }
+
+    public boolean isEmpty(long nowMillis) {
+        return sum(nowMillis) == 0;
+    }
+
+    public static final class Bucket {
+        final long period;
+        final LongAdder amount = new LongAdder();
+
+        Bucket(long period) {
+            this.period = period;
+        }
+    }
+}
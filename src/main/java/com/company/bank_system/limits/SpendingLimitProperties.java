@@ -0,0 +1,42 @@
+package com.company.bank_system.limits;
+
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Cards.CardType;
+import com.company.bank_system.entity.enums.Currency;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * bank.limits: default limits per account type and card type, given per currency and applied in the
+ * currency of the account. A missing type, currency or a null amount means no limit.
+ */
+@ConfigurationProperties("bank.limits")
+public record SpendingLimitProperties(
+        boolean enabled,
+        Duration window,
+        int buckets,
+        Map<AccountType, Map<Currency, Limit>> accountTypes,
+        Map<CardType, Map<Currency, Limit>> cardTypes
+) {
+
+    public SpendingLimitProperties {
+        window = window != null ? window : Duration.ofHours(24);
+        buckets = buckets > 0 ? buckets : 96;
+        accountTypes = accountTypes != null ? Map.copyOf(accountTypes) : Map.of();
+        cardTypes = cardTypes != null ? Map.copyOf(cardTypes) : Map.of();
+    }
+
+    public Limit accountLimit(AccountType type, Currency currency) {
+        return accountTypes.getOrDefault(type, Map.of()).get(currency);
+    }
+
+    public Limit cardLimit(CardType type, Currency currency) {
+        return cardTypes.getOrDefault(type, Map.of()).get(currency);
+    }
+
+    public record Limit(BigDecimal perTransaction, BigDecimal daily) {
+    }
+}
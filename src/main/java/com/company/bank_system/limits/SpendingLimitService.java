@@ -0,0 +1,310 @@
+package com.company.bank_system.limits;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.AccountLimitOverride;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.exception.Exceptions.SpendingLimitExceededException;
+import com.company.bank_system.limits.SlidingWindowCounter.Bucket;
+import com.company.bank_system.limits.SpendingLimitProperties.Limit;
+import com.company.bank_system.repo.AccountLimitOverrideRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-transaction and rolling-window ("daily") spending limits of accounts and cards.
+ * <p>
+ * Spending is counted in memory, in one {@link SlidingWindowCounter} per account and per card, so a check
+ * is a few atomic reads and adds instead of a SUM over transactions. A reservation made inside a db
+ * transaction is given back if that transaction rolls back.
+ * <p>
+ * Counters are rebuilt from the transactions of the last window at startup and every resync interval;
+ * the resync also picks up what other nodes spent since the last one. Reservations still open when the rebuild
+ * starts (their transaction has not committed, so the query cannot see them) and those taken while it runs are
+ * copied into the new counters. One that commits before the query reads it is counted twice until the next
+ * resync - the limit errs on the strict side, never short.
+ */
+@Service
+@Slf4j
+public class SpendingLimitService {
+
+    private static final String RECENT_SPENDING = "SELECT from_account_id, card_id, amount, created_at FROM transactions " +
+            "WHERE created_at >= ? AND from_account_id IS NOT NULL " +
+            "AND transaction_type IN ('WITHDRAW', 'TRANSFER') AND status <> 'FAILED'";
+
+    private final SpendingLimitProperties properties;
+    private final AccountLimitOverrideRepository overrideRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long windowMillis;
+
+    private final Set<Reservation> open = ConcurrentHashMap.newKeySet();
+
+    private volatile Counters counters = new Counters();
+    private volatile Counters rebuilding; // set while rebuild() runs
+    private volatile Map<Long, AccountLimitOverride> overrides = new ConcurrentHashMap<>();
+
+    public SpendingLimitService(SpendingLimitProperties properties,
+                                AccountLimitOverrideRepository overrideRepository,
+                                JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.overrideRepository = overrideRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMillis = properties.window().toMillis();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Counts the amount against the account (and the card, when given) or throws if a limit would be exceeded.
+     */
+    public Reservation reserve(Account account, Card card, BigDecimal amount) {
+        if (!properties.enabled()) {
+            return Reservation.NONE;
+        }
+
+        Limit accountLimit = accountLimit(account);
+        Limit cardLimit = card != null ? properties.cardLimit(card.getCardType(), account.getCurrency()) : null;
+        checkPerTransaction(accountLimit, amount, "account " + account.getId());
+        checkPerTransaction(cardLimit, amount, "card " + card(card));
+
+        long minor = toMinor(amount);
+        long now = System.currentTimeMillis();
+        Counters current = counters;
+
+        Bucket accountBucket = add(current.accounts, account.getId(), accountLimit, now, minor);
+        if (accountBucket == null && hasWindowLimit(accountLimit)) {
+            throw exceeded("account " + account.getId(), accountLimit.daily());
+        }
+        Bucket cardBucket = null;
+        if (card != null) {
+            cardBucket = add(current.cards, card.getId(), cardLimit, now, minor);
+            if (cardBucket == null && hasWindowLimit(cardLimit)) {
+                if (accountBucket != null) {
+                    accountBucket.amount.add(-minor);
+                }
+                throw exceeded("card " + card(card), cardLimit.daily());
+            }
+        }
+
+        Reservation reservation = new Reservation(account.getId(), card(card), now, minor, accountBucket, cardBucket);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            open.add(reservation);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    open.remove(reservation);
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        // read after joining open: either rebuild() copies it from there or it is copied here,
+        // also when a whole rebuild ran since current was read
+        Counters next = rebuilding != null ? rebuilding : counters;
+        if (next != null && next != current) {
+            reservation.copyTo(next, this::newCounter);
+        }
+        return reservation;
+    }
+
+    // amount counted against the account in the current window
+    public BigDecimal spent(Long accountId) {
+        SlidingWindowCounter counter = counters.accounts.get(accountId);
+        return counter == null ? BigDecimal.ZERO : BigDecimal.valueOf(counter.sum(System.currentTimeMillis()), 2);
+    }
+
+    public boolean hasOverride(Long accountId) {
+        return overrides.containsKey(accountId);
+    }
+
+    public AccountLimitOverride setOverride(Long accountId, BigDecimal perTransaction, BigDecimal daily) {
+        AccountLimitOverride override = new AccountLimitOverride();
+        override.setAccountId(accountId);
+        override.setPerTransaction(perTransaction);
+        override.setDaily(daily);
+        override.setUpdatedAt(LocalDateTime.now());
+        AccountLimitOverride saved = overrideRepository.save(override);
+        overrides.put(accountId, saved);
+        log.info("LIMIT_OVERRIDE_SET accountId={} perTransaction={} daily={}", accountId, perTransaction, daily);
+        return saved;
+    }
+
+    public void removeOverride(Long accountId) {
+        if (overrideRepository.existsById(accountId)) {
+            overrideRepository.deleteById(accountId);
+        }
+        overrides.remove(accountId);
+        log.info("LIMIT_OVERRIDE_REMOVED accountId={}", accountId);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.limits.resync-interval-ms:300000}", initialDelayString = "${bank.limits.resync-interval-ms:300000}")
+    public void resync() {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+
+    // counters of the last window from the db plus the reservations it cannot see yet, swapped in at once
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Counters rebuilt = new Counters();
+        rebuilding = rebuilt;
+        open.forEach(reservation -> reservation.copyTo(rebuilt, this::newCounter));
+
+        RowCallbackHandler handler = rs -> {
+            long at = rs.getTimestamp("created_at").getTime();
+            long minor = toMinor(rs.getBigDecimal("amount"));
+            rebuilt.accounts.computeIfAbsent(rs.getLong("from_account_id"), id -> newCounter()).add(at, minor);
+            long cardId = rs.getLong("card_id");
+            if (!rs.wasNull()) {
+                rebuilt.cards.computeIfAbsent(cardId, id -> newCounter()).add(at, minor);
+            }
+        };
+        jdbcTemplate.query(RECENT_SPENDING, handler, new Timestamp(now - windowMillis));
+
+        Map<Long, AccountLimitOverride> loaded = new ConcurrentHashMap<>();
+        overrideRepository.findAll().forEach(o -> loaded.put(o.getAccountId(), o));
+
+        counters = rebuilt;
+        rebuilding = null;
+        overrides = loaded;
+        log.info("LIMIT_COUNTERS_REBUILT accounts={} cards={} overrides={} timeMs={}",
+                rebuilt.accounts.size(), rebuilt.cards.size(), loaded.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // account type default, overridden field by field
+    public Limit accountLimit(Account account) {
+        Limit typeLimit = properties.accountLimit(account.getAccountType(), account.getCurrency());
+        AccountLimitOverride override = overrides.get(account.getId());
+        if (override == null) {
+            return typeLimit;
+        }
+        return new Limit(
+                override.getPerTransaction() != null ? override.getPerTransaction() : typeLimit != null ? typeLimit.perTransaction() : null,
+                override.getDaily() != null ? override.getDaily() : typeLimit != null ? typeLimit.daily() : null
+        );
+    }
+
+    // spending without a window limit is still counted, in case a limit is set later
+    private Bucket add(Map<Long, SlidingWindowCounter> counters, Long id, Limit limit, long now, long minor) {
+        SlidingWindowCounter counter = counters.computeIfAbsent(id, key -> newCounter());
+        if (!hasWindowLimit(limit)) {
+            return counter.add(now, minor);
+        }
+        return counter.tryAdd(now, minor, toMinor(limit.daily()));
+    }
+
+    private static boolean hasWindowLimit(Limit limit) {
+        return limit != null && limit.daily() != null;
+    }
+
+    private void checkPerTransaction(Limit limit, BigDecimal amount, String owner) {
+        if (limit != null && limit.perTransaction() != null && amount.compareTo(limit.perTransaction()) > 0) {
+            log.warn("LIMIT_PER_TRANSACTION_EXCEEDED owner={} amount={} limit={}", owner, amount, limit.perTransaction());
+            throw new SpendingLimitExceededException(
+                    "Amount " + amount + " exceeds the per-transaction limit " + limit.perTransaction() + " of " + owner);
+        }
+    }
+
+    private SpendingLimitExceededException exceeded(String owner, BigDecimal limit) {
+        log.warn("LIMIT_WINDOW_EXCEEDED owner={} limit={} window={}", owner, limit, properties.window());
+        return new SpendingLimitExceededException(
+                "Spending limit " + limit + " per " + properties.window().toHours() + "h of " + owner + " exceeded");
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(windowMillis, properties.buckets());
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private static Long card(Card card) {
+        return card != null ? card.getId() : null;
+    }
+
+    private static final class Counters {
+        final Map<Long, SlidingWindowCounter> accounts = new ConcurrentHashMap<>();
+        final Map<Long, SlidingWindowCounter> cards = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Amount counted by {@link #reserve}; released automatically when the surrounding transaction rolls back,
+     * otherwise by the caller if the operation fails.
+     */
+    public static final class Reservation {
+
+        public static final Reservation NONE = new Reservation(null, null, 0, 0, null, null);
+
+        private final Long accountId;
+        private final Long cardId;
+        private final long at;
+        private final long amount;
+        private final List<Bucket> buckets = new ArrayList<>(4);
+        private Counters copiedTo;
+        private boolean released;
+
+        private Reservation(Long accountId, Long cardId, long at, long amount, Bucket accountBucket, Bucket cardBucket) {
+            this.accountId = accountId;
+            this.cardId = cardId;
+            this.at = at;
+            this.amount = amount;
+            if (accountBucket != null) {
+                buckets.add(accountBucket);
+            }
+            if (cardBucket != null) {
+                buckets.add(cardBucket);
+            }
+        }
+
+        public synchronized void release() {
+            if (amount == 0 || released) {
+                return;
+            }
+            released = true;
+            buckets.forEach(bucket -> bucket.amount.add(-amount));
+        }
+
+        // counts the amount in counters being rebuilt as well, released together with the original
+        private synchronized void copyTo(Counters target, Supplier<SlidingWindowCounter> newCounter) {
+            if (amount == 0 || released || copiedTo == target) {
+                return;
+            }
+            copiedTo = target;
+            add(target.accounts.computeIfAbsent(accountId, id -> newCounter.get()));
+            if (cardId != null) {
+                add(target.cards.computeIfAbsent(cardId, id -> newCounter.get()));
+            }
+        }
+
+        private void add(SlidingWindowCounter counter) {
+            Bucket bucket = counter.add(at, amount);
+            if (bucket != null) {
+                buckets.add(bucket);
+            }
+        }
+    }
+}
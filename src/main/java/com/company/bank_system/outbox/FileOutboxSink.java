@@ -0,0 +1,100 @@
+package com.company.bank_system.outbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Appends events as NDJSON lines to a local file, for development and replay into other tools.
+ * A batch is forced to disk before the relay deletes it from the outbox.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "bank.outbox.sinks.file.enabled", havingValue = "true")
+public class FileOutboxSink implements OutboxSink {
+
+    private static final int TAIL_BYTES = 1024 * 1024;
+    private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+),", Pattern.MULTILINE);
+
+    private final Path path;
+    private final FileChannel channel;
+
+    public FileOutboxSink(@Value("${bank.outbox.sinks.file.path:./outbox/events.ndjson}") String path) throws IOException {
+        this.path = Path.of(path);
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        this.channel = FileChannel.open(this.path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        for (OutboxEvent event : events) {
+            // payload is already json, embedded as is
+            lines.append("{\"id\":").append(event.id())
+                    .append(",\"type\":\"").append(event.eventType()).append('"')
+                    .append(",\"transactionId\":").append(event.transactionId())
+                    .append(",\"createdAt\":\"").append(event.createdAt()).append('"')
+                    .append(",\"payload\":").append(event.payload())
+                    .append("}\n");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    // ids in the last megabyte of the file - more than the relay's dedup window
+    @Override
+    public Collection<Long> recentlyDelivered() {
+        try {
+            long size = channel.size();
+            long from = Math.max(0, size - TAIL_BYTES);
+            ByteBuffer tail = ByteBuffer.allocate((int) (size - from));
+            try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (tail.hasRemaining() && reader.read(tail, from + tail.position()) > 0) {
+                    // read the whole tail
+                }
+            }
+
+            List<Long> ids = new ArrayList<>();
+            Matcher matcher = ID.matcher(new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                ids.add(Long.parseLong(matcher.group(1)));
+            }
+            return ids;
+        } catch (IOException e) {
+            log.warn("OUTBOX_FILE_TAIL_UNREADABLE path={} error={}", path, e.getMessage());
+            return List.of();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+}
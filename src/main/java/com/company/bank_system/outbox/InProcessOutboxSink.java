@@ -0,0 +1,33 @@
+package com.company.bank_system.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands every event to in-process {@code @EventListener(OutboxEvent.class)} beans, synchronously
+ * and inside the relay transaction: a listener that throws makes the batch come again, also to the listeners
+ * that already handled it, so listeners must be idempotent per event id.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.outbox.sinks.in-process.enabled", havingValue = "true", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InProcessOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,18 @@
+package com.company.bank_system.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * One outbox row. The id is unique and increasing, consumers use it to drop redeliveries.
+ */
+public record OutboxEvent(
+        long id,
+        String eventType,
+        Long transactionId,
+        String payload, // json
+        LocalDateTime createdAt
+) {
+
+    public static final String TRANSACTION_CREATED = "TRANSACTION_CREATED";
+    public static final String TRANSACTION_SETTLED = "TRANSACTION_SETTLED";
+}
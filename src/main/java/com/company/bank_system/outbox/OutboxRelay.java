@@ -0,0 +1,162 @@
+package com.company.bank_system.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains outbox_events into the sinks.
+ * <p>
+ * A batch is claimed with FOR UPDATE SKIP LOCKED (relays on other nodes take the next batch instead of waiting),
+ * published to every sink and deleted in the same transaction. Delivery to a sink is at least once: consumers
+ * must dedupe by event id. To keep duplicates rare this relay remembers the last ids each sink took and skips
+ * them when a batch comes again after a failed commit, but that window is per node and in memory - a batch
+ * taken over by another node, or a sink that fails half way through a batch, is delivered again.
+ * <p>
+ * Metrics: bank.outbox.published (events), bank.outbox.batch (publish time), bank.outbox.lag (age of the
+ * oldest undelivered event, ms).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "bank.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final String CLAIM = "SELECT id, event_type, transaction_id, payload, created_at FROM outbox_events " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String DELETE = "DELETE FROM outbox_events WHERE id = ANY(?)";
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"),
+            rs.getString("event_type"),
+            rs.getObject("transaction_id", Long.class),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final Map<String, SequencedSet<Long>> recentlyDelivered = new HashMap<>(); // best effort, not a guarantee
+    private final int batchSize;
+    private final int dedupWindow;
+
+    private final Counter published;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       List<OutboxSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${bank.outbox.relay.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.dedupWindow = batchSize * 4;
+
+        for (OutboxSink sink : sinks) {
+            SequencedSet<Long> ids = new LinkedHashSet<>(sink.recentlyDelivered());
+            trim(ids);
+            recentlyDelivered.put(sink.name(), ids);
+        }
+
+        this.published = Counter.builder("bank.outbox.published").baseUnit("events").register(meterRegistry);
+        this.batchTimer = Timer.builder("bank.outbox.batch").register(meterRegistry);
+        Gauge.builder("bank.outbox.lag", lagMillis, AtomicLong::get).baseUnit("milliseconds").register(meterRegistry);
+
+        log.info("OUTBOX_RELAY_STARTED sinks={} batchSize={}", sinks.stream().map(OutboxSink::name).toList(), batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.outbox.relay.interval-ms:100}")
+    public void relay() {
+        try {
+            while (relayBatch() == batchSize) {
+                // keep draining while there is a backlog
+            }
+        } catch (RuntimeException e) {
+            // nothing was deleted, the batch is delivered again on the next run
+            log.error("OUTBOX_RELAY_FAILED error={}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return number of events taken from the outbox
+     */
+    public int relayBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = jdbcTemplate.query(CLAIM, ROW_MAPPER, batchSize);
+            if (events.isEmpty()) {
+                lagMillis.set(0);
+                return 0;
+            }
+            lagMillis.set(Duration.between(events.getFirst().createdAt(), LocalDateTime.now()).toMillis());
+
+            batchTimer.record(() -> sinks.forEach(sink -> deliver(sink, events)));
+
+            Long[] ids = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+            jdbcTemplate.update(DELETE, (PreparedStatementSetter) ps ->
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+            return events.size();
+        });
+
+        if (count != null && count > 0) {
+            published.increment(count);
+            log.debug("OUTBOX_RELAYED count={} lagMs={}", count, lagMillis.get());
+        }
+        return count == null ? 0 : count;
+    }
+
+    public long getLagMillis() {
+        return lagMillis.get();
+    }
+
+    private void deliver(OutboxSink sink, List<OutboxEvent> events) {
+        SequencedSet<Long> seen = recentlyDelivered.get(sink.name());
+        List<OutboxEvent> fresh = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            if (!seen.contains(event.id())) {
+                fresh.add(event);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        try {
+            sink.publish(fresh);
+        } catch (Exception e) {
+            throw new IllegalStateException("Outbox sink " + sink.name() + " failed: " + e.getMessage(), e);
+        }
+
+        fresh.forEach(event -> seen.add(event.id()));
+        trim(seen);
+    }
+
+    private void trim(SequencedSet<Long> ids) {
+        while (ids.size() > dedupWindow) {
+            ids.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.company.bank_system.outbox;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Destination of outbox events - one consumer. Every enabled sink gets every event.
+ * <p>
+ * {@link #publish} is called inside the relay's db transaction, events are deleted from the outbox only
+ * when all sinks returned. If that commit fails the batch comes again. Delivery is at least once: the relay
+ * filters out ids this node saw the sink take (seeded from {@link #recentlyDelivered()} after a restart), but
+ * consumers still have to dedupe by {@link OutboxEvent#id()}.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    /**
+     * Delivers the events in id order. Throwing rolls the whole batch back for all sinks.
+     */
+    void publish(List<OutboxEvent> events) throws Exception;
+
+    /**
+     * Ids the sink delivered before the application started, used to drop redeliveries of the last batches.
+     */
+    default Collection<Long> recentlyDelivered() {
+        return List.of();
+    }
+}
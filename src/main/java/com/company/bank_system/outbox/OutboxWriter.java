@@ -0,0 +1,85 @@
+package com.company.bank_system.outbox;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Appends transaction events to the outbox. Must be called inside the transaction that writes the
+ * transaction rows - the event exists if and only if the posting was committed.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT =
+            "INSERT INTO outbox_events (event_type, transaction_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate, JsonMapper jsonMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public void transactionCreated(TransactionResponse transaction) {
+        transactionsCreated(List.of(transaction));
+    }
+
+    public void transactionsCreated(List<TransactionResponse> transactions) {
+        append(OutboxEvent.TRANSACTION_CREATED, transactions.size(),
+                i -> transactions.get(i).id(),
+                i -> jsonMapper.writeValueAsString(transactions.get(i))
+        );
+    }
+
+    public void transactionsSettled(List<Long> transactionIds, TransactionStatus status) {
+        append(OutboxEvent.TRANSACTION_SETTLED, transactionIds.size(),
+                transactionIds::get,
+                i -> jsonMapper.writeValueAsString(Map.of("id", transactionIds.get(i), "status", status))
+        );
+    }
+
+    private void append(String eventType, int count, IntFunction<Long> transactionId, IntFunction<String> payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written inside the posting transaction");
+        }
+        if (count == 0) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, eventType);
+                Long id = transactionId.apply(i);
+                if (id != null) {
+                    ps.setLong(2, id);
+                } else {
+                    ps.setNull(2, Types.BIGINT);
+                }
+                ps.setString(3, payload.apply(i));
+                ps.setTimestamp(4, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package com.company.bank_system.payroll;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams payroll lines out of a memory-mapped file, one window of the file at a time, so heap use does not
+ * depend on the file size. Format: {@code account_number,amount[,description]}, UTF-8, LF or CRLF line ends;
+ * a first line that does not start with a digit is a header. Lines are numbered from 1 including the header.
+ * <p>
+ * {@link #offset()} is the byte offset of the next line: a reader opened at a saved offset and line number
+ * continues exactly where the previous one stopped.
+ */
+final class PayrollCsvReader implements Closeable {
+
+    static final int MAX_DESCRIPTION_LENGTH = 255;
+    private static final long DEFAULT_WINDOW = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long offset;
+    private long lineNumber;
+
+    PayrollCsvReader(Path file, long offset, long lineNumber) throws IOException {
+        this(file, offset, lineNumber, DEFAULT_WINDOW);
+    }
+
+    PayrollCsvReader(Path file, long offset, long lineNumber, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the next non-blank line, null at the end of the file
+     */
+    PayrollLine next() throws IOException {
+        while (offset < size) {
+            String text = readLine();
+            if (lineNumber == 1 && text.startsWith("\uFEFF")) {
+                text = text.substring(1);
+            }
+            if (text.isBlank() || (lineNumber == 1 && !Character.isDigit(text.charAt(0)))) {
+                continue;
+            }
+            return parse(lineNumber, text);
+        }
+        return null;
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readLine() throws IOException {
+        if (window == null || offset < windowStart || offset >= windowStart + window.limit()) {
+            map(offset);
+        }
+        int start = (int) (offset - windowStart);
+        int end = indexOfNewline(start);
+        if (end < 0 && windowStart + window.limit() < size) {
+            // the line runs past the window: map again from its start
+            map(offset);
+            start = 0;
+            end = indexOfNewline(start);
+            if (end < 0 && window.limit() < size - windowStart) {
+                throw new IOException("Line " + (lineNumber + 1) + " is longer than " + windowSize + " bytes");
+            }
+        }
+        int next = end < 0 ? window.limit() : end + 1;
+        int stop = end < 0 ? window.limit() : end;
+        if (stop > start && window.get(stop - 1) == '\r') {
+            stop--;
+        }
+
+        byte[] bytes = new byte[stop - start];
+        window.get(start, bytes);
+        offset = windowStart + next;
+        lineNumber++;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from, limit = window.limit(); i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+
+    static PayrollLine parse(long lineNumber, String text) {
+        int first = text.indexOf(',');
+        if (first < 0) {
+            return new PayrollLine(lineNumber, text.strip(), null, null, null, "Expected account_number,amount[,description]");
+        }
+        int second = text.indexOf(',', first + 1);
+        String accountNumber = text.substring(0, first).strip();
+        String amountText = (second < 0 ? text.substring(first + 1) : text.substring(first + 1, second)).strip();
+        String description = second < 0 ? null : unquote(text.substring(second + 1).strip());
+
+        if (accountNumber.isEmpty()) {
+            return new PayrollLine(lineNumber, accountNumber, amountText, null, description, "Account number is missing");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(amountText);
+        } catch (NumberFormatException e) {
+            return new PayrollLine(lineNumber, accountNumber, amountText, null, description, "Amount is not a number");
+        }
+        if (amount.scale() > 2) {
+            return new PayrollLine(lineNumber, accountNumber, amountText, null, description, "Amount has more than 2 decimals");
+        }
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            return new PayrollLine(lineNumber, accountNumber, amountText, null, description,
+                    "Description is longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        return new PayrollLine(lineNumber, accountNumber, amountText, amount,
+                description == null || description.isEmpty() ? null : description, null);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,286 @@
+package com.company.bank_system.payroll;
+
+import com.company.bank_system.dto.BatchTransferItemResult;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.BatchTransferService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts queued payroll imports: every line is a transfer from the import's account to the account number
+ * on the line.
+ * <p>
+ * The file is read with {@link PayrollCsvReader} chunk-size lines at a time; each chunk goes through
+ * {@link BatchTransferService#transferChunk}, which resolves its account numbers with one query and posts it
+ * in one transaction. Rejected lines and the import's counters and file offset are written in that same
+ * transaction, so heap use stays at one chunk whatever the file size, and an import taken over after a crash
+ * (its lease expired) continues after the last committed chunk. The offset update is conditional on the
+ * offset the chunk was read from: a node that lost its lease cannot post a chunk twice. An import cut short
+ * by a shutdown stays RUNNING and is resumed once its lease runs out.
+ * <p>
+ * With the ledger engine the postings would be durable before the offset commits, so the workers are not
+ * started; imports queued before it was switched on wait until it is off again.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "bank.payroll.enabled", havingValue = "true", matchIfMissing = true)
+public class PayrollImportProcessor {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String CLAIM = "UPDATE payroll_imports SET status = 'RUNNING', locked_until = ?, updated_at = ? " +
+            "WHERE id = (SELECT id FROM payroll_imports WHERE status = 'PENDING' OR (status = 'RUNNING' AND locked_until < ?) " +
+            "ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, user_id, from_account_id, file_path, next_offset, lines";
+
+    private static final String PROGRESS = "UPDATE payroll_imports SET next_offset = ?, lines = ?, " +
+            "succeeded = succeeded + ?, failed = failed + ?, total_amount = total_amount + ?, locked_until = ?, " +
+            "updated_at = ? WHERE id = ? AND next_offset = ? AND status = 'RUNNING'";
+
+    private static final String INSERT_ERROR = "INSERT INTO payroll_import_errors (import_id, line_number, account_number, " +
+            "amount, error) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String FINISH = "UPDATE payroll_imports SET status = ?, error = ?, locked_until = NULL, " +
+            "updated_at = ?, finished_at = ? WHERE id = ? AND status = 'RUNNING'";
+
+    private static final RowMapper<Claimed> CLAIMED_MAPPER = (rs, rowNum) -> new Claimed(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getLong("from_account_id"),
+            Path.of(rs.getString("file_path")),
+            rs.getLong("next_offset"),
+            rs.getLong("lines")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchTransferService batchTransferService;
+    private final UserRepository userRepository;
+    private final int workers;
+    private final int chunkSize;
+    private final Duration lease;
+    private final long idleSleepMs;
+    private final boolean ledgerEnabled;
+
+    private ExecutorService pool;
+    private volatile boolean running = true;
+
+    public PayrollImportProcessor(JdbcTemplate jdbcTemplate,
+                                  BatchTransferService batchTransferService,
+                                  UserRepository userRepository,
+                                  @Value("${bank.payroll.workers:2}") int workers,
+                                  @Value("${bank.payroll.chunk-size:1000}") int chunkSize,
+                                  @Value("${bank.payroll.lease:5m}") Duration lease,
+                                  @Value("${bank.payroll.idle-sleep-ms:1000}") long idleSleepMs,
+                                  Optional<LedgerEngine> ledgerEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransferService = batchTransferService;
+        this.userRepository = userRepository;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.idleSleepMs = idleSleepMs;
+        this.ledgerEnabled = ledgerEngine.isPresent();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (ledgerEnabled) {
+            log.warn("PAYROLL_IMPORTS_DISABLED reason=ledger");
+            return;
+        }
+        pool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("payroll-import-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            pool.submit(this::work);
+        }
+        log.info("PAYROLL_IMPORTS_STARTED workers={} chunkSize={}", workers, chunkSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (pool == null) {
+            return;
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Claims the oldest queued (or abandoned) import and posts it to the end.
+     *
+     * @return false if there was nothing to claim or the ledger engine is on
+     */
+    public boolean processNext() {
+        if (ledgerEnabled) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Claimed> claimed = jdbcTemplate.query(CLAIM, CLAIMED_MAPPER,
+                Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), Timestamp.valueOf(now));
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        process(claimed.getFirst());
+        return true;
+    }
+
+    private void process(Claimed job) {
+        long start = System.nanoTime();
+        log.info("PAYROLL_IMPORT_STARTED importId={} offset={} lines={}", job.id(), job.offset(), job.lines());
+        try (PayrollCsvReader reader = new PayrollCsvReader(job.file(), job.offset(), job.lines())) {
+            User user = userRepository.findById(job.userId()).orElseThrow();
+            long offset = job.offset();
+            List<PayrollLine> chunk = new ArrayList<>(chunkSize);
+            while (running) {
+                chunk.clear();
+                PayrollLine line;
+                while (chunk.size() < chunkSize && (line = reader.next()) != null) {
+                    chunk.add(line);
+                }
+                if (chunk.isEmpty() && reader.offset() == offset) {
+                    break;
+                }
+                postChunk(job, user, chunk, offset, reader.offset(), reader.lineNumber());
+                offset = reader.offset();
+            }
+            if (!running) {
+                log.info("PAYROLL_IMPORT_INTERRUPTED importId={} offset={}", job.id(), offset);
+                return;
+            }
+
+            finish(job, "COMPLETED", null);
+            Files.deleteIfExists(job.file());
+            log.info("PAYROLL_IMPORT_COMPLETED importId={} lines={} timeMs={}",
+                    job.id(), reader.lineNumber(), (System.nanoTime() - start) / 1_000_000);
+        } catch (LeaseLostException e) {
+            log.warn("PAYROLL_IMPORT_LEASE_LOST importId={}", job.id());
+        } catch (IOException | RuntimeException e) {
+            finish(job, "FAILED", e.getMessage());
+            log.error("PAYROLL_IMPORT_FAILED importId={} error={}", job.id(), e.getMessage(), e);
+        }
+    }
+
+    private void postChunk(Claimed job, User user, List<PayrollLine> chunk, long fromOffset, long toOffset, long lines) {
+        List<PayrollLine> parsed = new ArrayList<>(chunk.size());
+        List<TransferRequest> transfers = new ArrayList<>(chunk.size());
+        for (PayrollLine line : chunk) {
+            if (line.error() == null) {
+                parsed.add(line);
+                transfers.add(new TransferRequest(job.fromAccountId(), line.accountNumber(), line.amount(), line.description()));
+            }
+        }
+
+        batchTransferService.transferChunk(user, transfers, results -> {
+            List<PayrollLine> rejected = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            BigDecimal total = BigDecimal.ZERO;
+            int succeeded = 0;
+            for (PayrollLine line : chunk) {
+                if (line.error() != null) {
+                    rejected.add(line);
+                    errors.add(line.error());
+                }
+            }
+            for (int i = 0; i < results.length; i++) {
+                if (results[i].status() == TransactionStatus.COMPLETED) {
+                    succeeded++;
+                    total = total.add(parsed.get(i).amount());
+                } else {
+                    rejected.add(parsed.get(i));
+                    errors.add(results[i].error());
+                }
+            }
+
+            insertErrors(job.id(), rejected, errors);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int updated = jdbcTemplate.update(PROGRESS, toOffset, lines, succeeded, rejected.size(), total,
+                    Timestamp.valueOf(LocalDateTime.now().plus(lease)), now, job.id(), fromOffset);
+            if (updated == 0) {
+                throw new LeaseLostException(); // rolls the chunk back
+            }
+        });
+    }
+
+    private void insertErrors(long importId, List<PayrollLine> lines, List<String> errors) {
+        jdbcTemplate.batchUpdate(INSERT_ERROR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PayrollLine line = lines.get(i);
+                ps.setLong(1, importId);
+                ps.setLong(2, line.lineNumber());
+                ps.setString(3, truncate(line.accountNumber(), 64));
+                ps.setString(4, truncate(line.amountText(), 64));
+                ps.setString(5, truncate(errors.get(i), MAX_ERROR_LENGTH));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+
+    private void finish(Claimed job, String status, String error) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(FINISH, status, truncate(error, 1000), now, now, job.id());
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (!processNext()) {
+                    Thread.sleep(idleSleepMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("PAYROLL_IMPORTS_CLAIM_FAILED error={}", e.getMessage(), e);
+                try {
+                    Thread.sleep(idleSleepMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // the import was claimed again by another worker after this one's lease ran out
+    private static final class LeaseLostException extends RuntimeException {
+    }
+
+    private record Claimed(long id, long userId, long fromAccountId, Path file, long offset, long lines) {
+    }
+}
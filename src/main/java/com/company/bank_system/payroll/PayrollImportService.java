@@ -0,0 +1,143 @@
+package com.company.bank_system.payroll;
+
+import com.company.bank_system.dto.PayrollImportLineError;
+import com.company.bank_system.dto.PayrollImportResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.exception.Exceptions.AccessDeniedException;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.exception.Exceptions.PayrollImportNotFoundException;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.service.CurrentUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Accepts payroll files: the upload is streamed to bank.payroll.directory and queued as a PENDING import,
+ * which {@link PayrollImportProcessor} posts in the background. Refused while the ledger engine owns balances.
+ */
+@Service
+@Slf4j
+public class PayrollImportService {
+
+    private static final int MAX_ERRORS_PAGE = 10_000;
+
+    private static final String INSERT = "INSERT INTO payroll_imports (user_id, from_account_id, file_name, file_path, " +
+            "status, created_at, updated_at) VALUES (?, ?, ?, ?, 'PENDING', ?, ?) RETURNING *";
+    private static final String FIND = "SELECT * FROM payroll_imports WHERE id = ?";
+    private static final String OWNER = "SELECT user_id FROM payroll_imports WHERE id = ?";
+    private static final String FIND_BY_USER = "SELECT * FROM payroll_imports WHERE user_id = ? ORDER BY id DESC";
+    private static final String ERRORS = "SELECT line_number, account_number, amount, error FROM payroll_import_errors " +
+            "WHERE import_id = ? AND line_number > ? ORDER BY line_number LIMIT ?";
+
+    static final RowMapper<PayrollImportResponse> IMPORT_MAPPER = (rs, rowNum) -> new PayrollImportResponse(
+            rs.getLong("id"),
+            rs.getLong("from_account_id"),
+            rs.getString("file_name"),
+            rs.getString("status"),
+            rs.getLong("lines"),
+            rs.getLong("succeeded"),
+            rs.getLong("failed"),
+            rs.getBigDecimal("total_amount"),
+            rs.getString("error"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getTimestamp("finished_at") != null ? rs.getTimestamp("finished_at").toLocalDateTime() : null
+    );
+
+    private static final RowMapper<PayrollImportLineError> ERROR_MAPPER = (rs, rowNum) -> new PayrollImportLineError(
+            rs.getLong("line_number"),
+            rs.getString("account_number"),
+            rs.getString("amount"),
+            rs.getString("error")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountService accountService;
+    private final CurrentUserService currentUserService;
+    private final Path directory;
+    private final boolean ledgerEnabled;
+
+    public PayrollImportService(JdbcTemplate jdbcTemplate,
+                                AccountService accountService,
+                                CurrentUserService currentUserService,
+                                Optional<LedgerEngine> ledgerEngine,
+                                @Value("${bank.payroll.directory:./payroll}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountService = accountService;
+        this.currentUserService = currentUserService;
+        this.ledgerEnabled = ledgerEngine.isPresent();
+        this.directory = Path.of(directory);
+    }
+
+    public PayrollImportResponse upload(Long fromAccountId, MultipartFile file) {
+        if (ledgerEnabled) {
+            throw new InvalidOperationException("Payroll imports are not available while the ledger engine owns balances");
+        }
+        Account fromAccount = accountService.getAccountEntityById(fromAccountId);
+        User user = currentUserService.getCurrentUser();
+        if (file.isEmpty()) {
+            throw new InvalidOperationException("Payroll file is empty");
+        }
+
+        Path target = directory.resolve(UUID.randomUUID() + ".csv").toAbsolutePath();
+        try {
+            Files.createDirectories(directory);
+            file.transferTo(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store payroll file", e);
+        }
+
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : target.getFileName().toString();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        PayrollImportResponse created = jdbcTemplate.queryForObject(INSERT, IMPORT_MAPPER,
+                user.getId(), fromAccount.getId(), fileName, target.toString(), now, now);
+
+        log.info("PAYROLL_IMPORT_QUEUED importId={} userId={} fromAccountId={} fileName={} bytes={}",
+                created.id(), user.getId(), fromAccount.getId(), fileName, file.getSize());
+        return created;
+    }
+
+    public List<PayrollImportResponse> getMyImports() {
+        return jdbcTemplate.query(FIND_BY_USER, IMPORT_MAPPER, currentUserService.getCurrentUser().getId());
+    }
+
+    public PayrollImportResponse getImport(Long importId) {
+        return getOwnImport(importId);
+    }
+
+    // keyset paging: pass the last line number of the previous page
+    public List<PayrollImportLineError> getErrors(Long importId, long afterLine, int limit) {
+        getOwnImport(importId);
+        return jdbcTemplate.query(ERRORS, ERROR_MAPPER, importId, afterLine, Math.clamp(limit, 1, MAX_ERRORS_PAGE));
+    }
+
+    private PayrollImportResponse getOwnImport(Long importId) {
+        Long userId = currentUserService.getCurrentUser().getId();
+        Long ownerId = jdbcTemplate.queryForList(OWNER, Long.class, importId).stream()
+                .findFirst()
+                .orElseThrow(() -> {
+                    log.warn("PAYROLL_IMPORT_NOT_FOUND importId={}", importId);
+                    return new PayrollImportNotFoundException(importId);
+                });
+        if (!ownerId.equals(userId)) {
+            log.error("ACCESS_DENIED userId={} payrollImportId={}", userId, importId);
+            throw new AccessDeniedException("Access denied to payroll import " + importId);
+        }
+        return jdbcTemplate.queryForObject(FIND, IMPORT_MAPPER, importId);
+    }
+}
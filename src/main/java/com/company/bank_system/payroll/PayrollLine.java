@@ -0,0 +1,14 @@
+package com.company.bank_system.payroll;
+
+import java.math.BigDecimal;
+
+// error != null: the line could not be parsed and is reported as is
+record PayrollLine(
+        long lineNumber,
+        String accountNumber,
+        String amountText,
+        BigDecimal amount,
+        String description,
+        String error
+) {
+}
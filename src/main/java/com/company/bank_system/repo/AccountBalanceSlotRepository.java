@@ -0,0 +1,47 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceSlot s WHERE s.accountId = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    // [accountId, sum] per account that has slots
+    @Query("SELECT s.accountId, SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId IN :accountIds GROUP BY s.accountId")
+    List<Object[]> sumByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    @Modifying
+    @Query(value = "UPDATE account_balance_slots SET balance = balance + :amount " +
+            "WHERE account_id = :accountId AND slot = :slot", nativeQuery = true)
+    int credit(@Param("accountId") Long accountId,
+               @Param("slot") int slot,
+               @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE account_balance_slots SET balance = balance - :amount " +
+            "WHERE account_id = :accountId AND slot = :slot AND balance >= :amount", nativeQuery = true)
+    int debitIfSufficient(@Param("accountId") Long accountId,
+                          @Param("slot") int slot,
+                          @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT balance FROM account_balance_slots WHERE account_id = :accountId " +
+            "ORDER BY slot FOR UPDATE", nativeQuery = true)
+    List<BigDecimal> lockBalances(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.balance = 0 WHERE s.accountId = :accountId")
+    int resetByAccountId(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSlot s WHERE s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
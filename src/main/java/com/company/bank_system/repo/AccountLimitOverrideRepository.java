@@ -0,0 +1,7 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.AccountLimitOverride;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AccountLimitOverrideRepository extends JpaRepository<AccountLimitOverride, Long> {
+}
@@ -1,15 +1,23 @@
 package com.company.bank_system.repo;
 
+import com.company.bank_system.dto.AccountRoute;
 import com.company.bank_system.entity.Account;
 import com.company.bank_system.entity.User;
 import com.company.bank_system.entity.enums.Account.AccountStatus;
 import com.company.bank_system.entity.enums.Account.AccountType;
 import com.company.bank_system.entity.enums.Currency;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +27,26 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     List<Account> findByUser(User user);
 
+    // the user is fetched too: cards and accounts then resolve their owner without a query of their own
+    @EntityGraph("Account.cards")
+    @Query("SELECT a FROM Account a WHERE a.user = :user ORDER BY a.id")
+    List<Account> findWithCardsByUser(@Param("user") User user);
+
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    @Query("SELECT new com.company.bank_system.dto.AccountRoute(a.id, a.accountNumber, a.currency, a.status, a.user.id) " +
+            "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountRoute> findRouteByAccountNumber(@Param("accountNumber") String accountNumber);
+
     boolean existsByAccountNumber(String accountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    // rows are locked in id order, so concurrent batches over the same accounts cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     List<Account> findByUserAndAccountType(User user, AccountType accountType);
 
     List<Account> findByUserAndCurrency(User user, Currency currency);
@@ -46,4 +70,24 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     @Query("SELECT a FROM Account a WHERE a.user = :user AND a.status = 'CLOSED'")
     List<Account> findClosedAccounts(@Param("user") User user);
-}
\ No newline at end of file
+
+    // UPDATE ... RETURNING: postgres returns the new balance, empty result = not enough money
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1, updated_at = :now " +
+            "WHERE id = :id AND balance >= :amount RETURNING balance", nativeQuery = true)
+    Optional<BigDecimal> debitIfSufficient(@Param("id") Long id,
+                                           @Param("amount") BigDecimal amount,
+                                           @Param("now") LocalDateTime now);
+
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1, updated_at = :now " +
+            "WHERE id = :id RETURNING balance", nativeQuery = true)
+    BigDecimal credit(@Param("id") Long id,
+                      @Param("amount") BigDecimal amount,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :delta, version = version + 1, updated_at = :now " +
+            "WHERE id = :id", nativeQuery = true)
+    int addToBalance(@Param("id") Long id,
+                     @Param("delta") BigDecimal delta,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,29 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // 0 - the key is taken; waits for a concurrent uncommitted claim of the same key to finish first
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scope, operation, request_hash, created_at) " +
+            "VALUES (:scope, :operation, :requestHash, :now) ON CONFLICT (scope) DO NOTHING", nativeQuery = true)
+    int claim(@Param("scope") String scope,
+              @Param("operation") String operation,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.scope = :scope")
+    int complete(@Param("scope") String scope, @Param("response") String response);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
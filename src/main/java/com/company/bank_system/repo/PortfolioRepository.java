@@ -0,0 +1,60 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.dto.PortfolioSummary;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A user's accounts and cards summed up in one statement: the accounts are read once (CTE) and grouped three
+ * ways, the cards once; every group comes back as a (kind, key, count, amount) row. Slots are only summed
+ * for sharded accounts.
+ */
+@Repository
+public class PortfolioRepository {
+
+    static final String SUMMARY = "WITH a AS (" +
+            "SELECT a.currency, a.status, a.account_type, a.balance + CASE WHEN a.balance_slots > 0 THEN " +
+            "COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) ELSE 0 END AS balance " +
+            "FROM accounts a WHERE a.user_id = ?) " +
+            "SELECT 'BALANCE' AS kind, currency AS key, COUNT(*) AS count, SUM(balance) AS amount FROM a " +
+            "WHERE status = 'ACTIVE' GROUP BY currency " +
+            "UNION ALL SELECT 'ACCOUNT_STATUS', status, COUNT(*), NULL FROM a GROUP BY status " +
+            "UNION ALL SELECT 'ACCOUNT_TYPE', account_type, COUNT(*), NULL FROM a WHERE account_type IS NOT NULL GROUP BY account_type " +
+            "UNION ALL SELECT 'CARD_STATUS', status, COUNT(*), NULL FROM cards WHERE user_id = ? GROUP BY status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PortfolioRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public PortfolioSummary summarize(Long userId) {
+        Map<Currency, BigDecimal> balances = new EnumMap<>(Currency.class);
+        Map<AccountStatus, Long> accountsByStatus = new EnumMap<>(AccountStatus.class);
+        Map<AccountType, Long> accountsByType = new EnumMap<>(AccountType.class);
+        Map<CardStatus, Long> cardsByStatus = new EnumMap<>(CardStatus.class);
+
+        jdbcTemplate.query(SUMMARY, (RowCallbackHandler) rs -> {
+            String key = rs.getString("key");
+            long count = rs.getLong("count");
+            switch (rs.getString("kind")) {
+                case "BALANCE" -> balances.put(Currency.valueOf(key), rs.getBigDecimal("amount"));
+                case "ACCOUNT_STATUS" -> accountsByStatus.put(AccountStatus.valueOf(key), count);
+                case "ACCOUNT_TYPE" -> accountsByType.put(AccountType.valueOf(key), count);
+                case "CARD_STATUS" -> cardsByStatus.put(CardStatus.valueOf(key), count);
+                default -> throw new IllegalStateException("Unknown summary row " + rs.getString("kind"));
+            }
+        }, userId, userId);
+
+        return new PortfolioSummary(balances, accountsByStatus, accountsByType, cardsByStatus);
+    }
+}
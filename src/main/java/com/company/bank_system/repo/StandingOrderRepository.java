@@ -0,0 +1,28 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.StandingOrder;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, Long> {
+
+    List<StandingOrder> findByFromAccountUserIdOrderById(Long userId);
+
+    // the account comes in the same select, for the owner check
+    @EntityGraph("StandingOrder.fromAccount")
+    Optional<StandingOrder> findWithFromAccountById(Long id);
+
+    // status only - executors update the schedule columns of the same row concurrently
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StandingOrder o SET o.status = com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus.CANCELLED, " +
+            "o.updatedAt = :now WHERE o.id = :id " +
+            "AND o.status = com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus.ACTIVE")
+    int cancel(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,166 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keyset-paginated account history, newest first, ordered by (created_at, id).
+ * <p>
+ * An account appears either as sender or as receiver, so the query is a UNION ALL of two branches,
+ * each one a range scan of its own (account, created_at, id) index stopped after {@code limit} rows.
+ * A self-transfer is impossible, so the branches never return the same row. A filter on one type, or on statuses
+ * other than COMPLETED, would leave most index entries to be skipped, so those get their own indexes (V18) and
+ * predicates the planner can match them with: transaction_type = :type for (account, type, created_at, id),
+ * status <> 'COMPLETED' for the partial (account, created_at, id) index of the rare statuses.
+ * <p>
+ * Statements are read oldest first through a forward-only cursor, {@value #STATEMENT_FETCH_SIZE} rows per round trip.
+ * The postgres driver only uses a cursor inside a transaction, so the caller must open one.
+ */
+@Repository
+public class TransactionHistoryRepository {
+
+    private static final String COLUMNS =
+            "id, from_account_id, to_account_id, transaction_type, amount, currency, description, status, created_at, " +
+                    "fx_rate, credited_amount, credited_currency";
+
+    private static final String BRANCH = "SELECT " + COLUMNS + " FROM transactions" +
+            " WHERE %s = :accountId%s" +
+            " AND created_at >= :from AND created_at < :to" +
+            " AND transaction_type IN (:types) AND status IN (:statuses)" +
+            " AND (created_at, id) < (:cursorCreatedAt, :cursorId)" +
+            " ORDER BY created_at DESC, id DESC LIMIT :limit";
+
+    static final String PAGE = page("");
+
+    static final String STATEMENT = "SELECT " + COLUMNS + " FROM (" +
+            "(SELECT " + COLUMNS + " FROM transactions WHERE from_account_id = :accountId" +
+            " AND created_at >= :from AND created_at < :to)" +
+            " UNION ALL " +
+            "(SELECT " + COLUMNS + " FROM transactions WHERE to_account_id = :accountId" +
+            " AND created_at >= :from AND created_at < :to)" +
+            ") h ORDER BY created_at, id";
+
+    // the same two index scans as PAGE, once per account
+    static final String LATEST = "SELECT acc.id AS account_id, t.* FROM accounts acc CROSS JOIN LATERAL (" +
+            "SELECT " + COLUMNS + " FROM (" +
+            "(SELECT " + COLUMNS + " FROM transactions WHERE from_account_id = acc.id ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            " UNION ALL " +
+            "(SELECT " + COLUMNS + " FROM transactions WHERE to_account_id = acc.id ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            ") h ORDER BY created_at DESC, id DESC LIMIT :limit" +
+            ") t WHERE acc.id IN (:accountIds) ORDER BY acc.id, t.created_at DESC, t.id DESC";
+
+    private static final int STATEMENT_FETCH_SIZE = 1000;
+
+    private static final RowMapper<TransactionResponse> ROW_MAPPER = (rs, rowNum) -> new TransactionResponse(
+            rs.getLong("id"),
+            rs.getObject("from_account_id", Long.class),
+            rs.getObject("to_account_id", Long.class),
+            TransactionType.valueOf(rs.getString("transaction_type")),
+            rs.getBigDecimal("amount"),
+            Currency.valueOf(rs.getString("currency")),
+            rs.getString("description"),
+            TransactionStatus.valueOf(rs.getString("status")),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getBigDecimal("fx_rate"),
+            rs.getBigDecimal("credited_amount"),
+            rs.getString("credited_currency") != null ? Currency.valueOf(rs.getString("credited_currency")) : null
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate cursorJdbcTemplate;
+
+    public TransactionHistoryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        cursor.setFetchSize(STATEMENT_FETCH_SIZE);
+        this.cursorJdbcTemplate = new NamedParameterJdbcTemplate(cursor);
+    }
+
+    /**
+     * Rows strictly older than (cursorCreatedAt, cursorId) with created_at in [from, to).
+     */
+    public List<TransactionResponse> findPage(Long accountId,
+                                              LocalDateTime from,
+                                              LocalDateTime to,
+                                              Collection<TransactionType> types,
+                                              Collection<TransactionStatus> statuses,
+                                              LocalDateTime cursorCreatedAt,
+                                              long cursorId,
+                                              int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to))
+                .addValue("types", types.stream().map(Enum::name).toList())
+                .addValue("type", types.iterator().next().name())
+                .addValue("statuses", statuses.stream().map(Enum::name).toList())
+                .addValue("cursorCreatedAt", Timestamp.valueOf(cursorCreatedAt))
+                .addValue("cursorId", cursorId)
+                .addValue("limit", limit);
+
+        String filters = "";
+        if (types.size() == 1) {
+            filters += " AND transaction_type = :type";
+        }
+        if (!statuses.contains(TransactionStatus.COMPLETED)) {
+            filters += " AND status <> 'COMPLETED'";
+        }
+        return jdbcTemplate.query(filters.isEmpty() ? PAGE : page(filters), params, ROW_MAPPER);
+    }
+
+    static String page(String filters) {
+        return "SELECT " + COLUMNS + " FROM (" +
+                "(" + BRANCH.formatted("from_account_id", filters) + ") UNION ALL (" + BRANCH.formatted("to_account_id", filters) + ")" +
+                ") h ORDER BY created_at DESC, id DESC LIMIT :limit";
+    }
+
+    /**
+     * The newest {@code limit} rows of each account in one statement, newest first; accounts without rows are absent.
+     */
+    public Map<Long, List<TransactionResponse>> findLatest(Collection<Long> accountIds, int limit) {
+        Map<Long, List<TransactionResponse>> latest = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return latest;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountIds", accountIds)
+                .addValue("limit", limit);
+
+        jdbcTemplate.query(LATEST, params, (RowCallbackHandler) rs -> latest
+                .computeIfAbsent(rs.getLong("account_id"), id -> new ArrayList<>())
+                .add(ROW_MAPPER.mapRow(rs, 0)));
+        return latest;
+    }
+
+    /**
+     * Feeds every row with created_at in [from, to) to the consumer, oldest first, without holding them in memory.
+     */
+    public void streamStatement(Long accountId, LocalDateTime from, LocalDateTime to, Consumer<TransactionResponse> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+
+        RowCallbackHandler handler = rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0));
+        cursorJdbcTemplate.query(STATEMENT, params, handler);
+    }
+}
@@ -2,10 +2,59 @@ package com.company.bank_system.repo;
 
 import com.company.bank_system.entity.Account;
 import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByFromAccountOrToAccount(Account fromAccount, Account toAccount);
+
+    List<Transaction> findByStatusOrderById(TransactionStatus status);
+
+    // both accounts in the same select, for checks on their owners
+    @EntityGraph("Transaction.accounts")
+    Optional<Transaction> findWithAccountsById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT MAX(t.journalSeq) FROM Transaction t")
+    Long findMaxJournalSeq();
+
+    // rows taken by another settlement worker are skipped, not waited for
+    @Query(value = "SELECT id, from_account_id AS \"fromAccountId\", to_account_id AS \"toAccountId\", amount, " +
+            "COALESCE(credited_amount, amount) AS \"creditedAmount\" " +
+            "FROM transactions WHERE status = 'PENDING' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PendingTransfer> claimPending(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.completedAt = :now WHERE t.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") TransactionStatus status,
+                     @Param("now") LocalDateTime now);
+
+    interface PendingTransfer {
+        Long getId();
+
+        Long getFromAccountId();
+
+        Long getToAccountId();
+
+        BigDecimal getAmount();
+
+        // amount in the destination currency, equal to getAmount() unless the transfer converts
+        BigDecimal getCreditedAmount();
+    }
 }
@@ -0,0 +1,91 @@
+package com.company.bank_system.risk;
+
+import com.company.bank_system.risk.RiskProperties.Outlier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Amounts far above what the account usually moves. Statistics are an exponentially weighted mean and
+ * variance of log(amount), so they follow the account's recent behaviour in constant space.
+ * A z-score of review-z scores review-score; block-z scores just short of block-score, so an extreme
+ * amount alone is held for review and is only blocked together with another signal.
+ * Accounts start without history (also after a restart) and are not scored before min-samples postings.
+ */
+@Component
+public class AmountOutlierRule implements RiskRule {
+
+    // log-scale deviation below which amounts count as equal; keeps accounts that always move the same amount scoreable
+    private static final double MIN_VARIANCE = 0.01;
+
+    private final RiskProperties properties;
+    private final Outlier outlier;
+    private final BoundedStates<AmountStats> accounts;
+
+    public AmountOutlierRule(RiskProperties properties) {
+        this.properties = properties;
+        this.outlier = properties.outlier();
+        this.accounts = new BoundedStates<>(properties.maxTrackedAccounts(), id -> new AmountStats());
+    }
+
+    @Override
+    public String name() {
+        return "amountOutlier";
+    }
+
+    @Override
+    public int score(RiskContext context) {
+        AmountStats stats = accounts.get(context.accountId());
+        if (stats == null) {
+            return 0;
+        }
+        double z = stats.zScore(Math.log1p(context.amount().doubleValue()), outlier.minSamples());
+        if (z >= outlier.blockZ()) {
+            return properties.blockScore() - properties.reviewScore() / 2;
+        }
+        return z >= outlier.reviewZ() ? properties.reviewScore() : 0;
+    }
+
+    @Override
+    public void record(RiskContext context) {
+        AmountStats stats = accounts.getOrCreate(context.accountId());
+        if (stats != null) {
+            stats.add(Math.log1p(context.amount().doubleValue()), outlier.alpha(), context.atMillis());
+        }
+    }
+
+    // an account idle for 30 days starts over
+    @Override
+    public void trim(long nowMillis) {
+        long idleBefore = nowMillis - 30L * 24 * 60 * 60 * 1000;
+        accounts.removeIf(stats -> stats.lastSeen() < idleBefore);
+    }
+
+    static final class AmountStats {
+        private long count;
+        private double mean;
+        private double variance;
+        private long lastSeen;
+
+        synchronized double zScore(double x, int minSamples) {
+            if (count < minSamples) {
+                return 0;
+            }
+            return (x - mean) / Math.sqrt(Math.max(variance, MIN_VARIANCE));
+        }
+
+        synchronized void add(double x, double alpha, long atMillis) {
+            if (count++ == 0) {
+                mean = x;
+            } else {
+                double diff = x - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1 - alpha) * (variance + diff * increment);
+            }
+            lastSeen = atMillis;
+        }
+
+        synchronized long lastSeen() {
+            return lastSeen;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.company.bank_system.risk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// per-key state of a rule, at most maxEntries keys; when full, new keys get no state (and no score)
+final class BoundedStates<V> {
+
+    private final ConcurrentHashMap<Long, V> states = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Function<Long, V> factory;
+
+    BoundedStates(int maxEntries, Function<Long, V> factory) {
+        this.maxEntries = maxEntries;
+        this.factory = factory;
+    }
+
+    V get(Long key) {
+        return states.get(key);
+    }
+
+    V getOrCreate(Long key) {
+        V state = states.get(key);
+        if (state != null || states.size() >= maxEntries) {
+            return state;
+        }
+        return states.computeIfAbsent(key, factory);
+    }
+
+    void removeIf(Predicate<V> stale) {
+        states.values().removeIf(stale);
+    }
+
+    int size() {
+        return states.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.company.bank_system.risk;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Transfers to an account the sender has not paid within the lookback score half of review-score:
+ * not enough to hold a transfer on their own, but they tip an unusual amount or burst over the threshold.
+ * Known payees are loaded from the transactions of the lookback at startup and kept per account
+ * in a small ring of the most recent ones.
+ */
+@Component
+@Slf4j
+public class NewPayeeRule implements RiskRule {
+
+    private static final String RECENT_PAYEES = "SELECT from_account_id, to_account_id, MAX(created_at) AS last_at " +
+            "FROM transactions WHERE created_at >= ? AND transaction_type = 'TRANSFER' AND status <> 'FAILED' " +
+            "AND from_account_id IS NOT NULL AND to_account_id IS NOT NULL " +
+            "GROUP BY from_account_id, to_account_id ORDER BY last_at";
+
+    private final RiskProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final BoundedStates<Payees> accounts;
+
+    public NewPayeeRule(RiskProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        int remembered = properties.newPayee().remembered();
+        this.accounts = new BoundedStates<>(properties.maxTrackedAccounts(), id -> new Payees(remembered));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.enabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long since = System.currentTimeMillis() - properties.newPayee().lookback().toMillis();
+        jdbcTemplate.query(RECENT_PAYEES, rs -> {
+            Payees payees = accounts.getOrCreate(rs.getLong("from_account_id"));
+            if (payees != null) {
+                payees.add(rs.getLong("to_account_id"), rs.getTimestamp("last_at").getTime());
+            }
+        }, new Timestamp(since));
+        log.info("RISK_PAYEES_LOADED accounts={} timeMs={}", accounts.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public String name() {
+        return "newPayee";
+    }
+
+    @Override
+    public int score(RiskContext context) {
+        if (context.payeeAccountId() == null) {
+            return 0;
+        }
+        Payees payees = accounts.get(context.accountId());
+        return payees != null && payees.contains(context.payeeAccountId()) ? 0 : properties.reviewScore() / 2;
+    }
+
+    @Override
+    public void record(RiskContext context) {
+        if (context.payeeAccountId() == null) {
+            return;
+        }
+        Payees payees = accounts.getOrCreate(context.accountId());
+        if (payees != null) {
+            payees.add(context.payeeAccountId(), context.atMillis());
+        }
+    }
+
+    @Override
+    public void trim(long nowMillis) {
+        long idleBefore = nowMillis - properties.newPayee().lookback().toMillis();
+        accounts.removeIf(payees -> payees.lastSeen() < idleBefore);
+    }
+
+    static final class Payees {
+        private final long[] ids;
+        private int next;
+        private int size;
+        private long lastSeen;
+
+        Payees(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        synchronized boolean contains(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(long id, long atMillis) {
+            lastSeen = Math.max(lastSeen, atMillis);
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return;
+                }
+            }
+            ids[next] = id;
+            next = (next + 1) % ids.length;
+            size = Math.min(size + 1, ids.length);
+        }
+
+        synchronized long lastSeen() {
+            return lastSeen;
+        }
+    }
+}
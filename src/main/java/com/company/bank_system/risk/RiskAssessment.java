@@ -0,0 +1,7 @@
+package com.company.bank_system.risk;
+
+// reasons: rule=points of the rules that scored, null when none did
+public record RiskAssessment(int score, RiskDecision decision, String reasons) {
+
+    static final RiskAssessment ALLOW = new RiskAssessment(0, RiskDecision.ALLOW, null);
+}
@@ -0,0 +1,25 @@
+package com.company.bank_system.risk;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+
+import java.math.BigDecimal;
+
+// payeeAccountId is null for withdrawals
+public record RiskContext(
+        Long userId,
+        Long accountId,
+        Long payeeAccountId,
+        TransactionType type,
+        BigDecimal amount,
+        long atMillis
+) {
+
+    public static RiskContext transfer(Account from, Account to, BigDecimal amount) {
+        return new RiskContext(from.getUser().getId(), from.getId(), to.getId(), TransactionType.TRANSFER, amount, System.currentTimeMillis());
+    }
+
+    public static RiskContext withdraw(Account account, BigDecimal amount) {
+        return new RiskContext(account.getUser().getId(), account.getId(), null, TransactionType.WITHDRAW, amount, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.bank_system.risk;
+
+public enum RiskDecision {
+    ALLOW,
+    REVIEW, // funds are held, the posting waits for /api/admin/risk/reviews
+    BLOCK
+}
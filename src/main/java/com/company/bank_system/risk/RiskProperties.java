@@ -0,0 +1,57 @@
+package com.company.bank_system.risk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * bank.risk: a posting scoring review-score points or more is held for review, block-score or more is refused.
+ * Each rule keeps state for at most max-tracked-accounts accounts (and users); above that new ones are not scored.
+ */
+@ConfigurationProperties("bank.risk")
+public record RiskProperties(
+        boolean enabled,
+        int reviewScore,
+        int blockScore,
+        int maxTrackedAccounts,
+        Velocity velocity,
+        NewPayee newPayee,
+        Outlier outlier
+) {
+
+    public RiskProperties {
+        reviewScore = reviewScore > 0 ? reviewScore : 50;
+        blockScore = blockScore > 0 ? blockScore : 100;
+        maxTrackedAccounts = maxTrackedAccounts > 0 ? maxTrackedAccounts : 200_000;
+        velocity = velocity != null ? velocity : new Velocity(null, 0, 0);
+        newPayee = newPayee != null ? newPayee : new NewPayee(null, 0);
+        outlier = outlier != null ? outlier : new Outlier(0, 0, 0, 0);
+    }
+
+    // postings per account / per user within the window
+    public record Velocity(Duration window, int maxPerAccount, int maxPerUser) {
+        public Velocity {
+            window = window != null ? window : Duration.ofMinutes(1);
+            maxPerAccount = maxPerAccount > 0 ? maxPerAccount : 10;
+            maxPerUser = maxPerUser > 0 ? maxPerUser : 20;
+        }
+    }
+
+    // payees an account transferred to within the lookback are known; the most recent remembered ones are kept
+    public record NewPayee(Duration lookback, int remembered) {
+        public NewPayee {
+            lookback = lookback != null ? lookback : Duration.ofDays(90);
+            remembered = remembered > 0 ? remembered : 32;
+        }
+    }
+
+    // z-score of log(amount) against the account's exponentially weighted mean and variance
+    public record Outlier(int minSamples, double alpha, double reviewZ, double blockZ) {
+        public Outlier {
+            minSamples = minSamples > 0 ? minSamples : 10;
+            alpha = alpha > 0 ? alpha : 0.05;
+            reviewZ = reviewZ > 0 ? reviewZ : 4;
+            blockZ = blockZ > 0 ? blockZ : 8;
+        }
+    }
+}
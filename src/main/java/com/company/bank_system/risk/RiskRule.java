@@ -0,0 +1,21 @@
+package com.company.bank_system.risk;
+
+/**
+ * One signal of {@link RiskScoringService}. Every RiskRule bean is applied to every scored posting, so a rule
+ * must answer from its own in-memory state, without I/O.
+ */
+public interface RiskRule {
+
+    String name();
+
+    // points for this posting, 0 when it looks normal
+    int score(RiskContext context);
+
+    // called once a scored posting went through, never for blocked, failed or rolled back ones
+    default void record(RiskContext context) {
+    }
+
+    // drops state that no longer affects any score
+    default void trim(long nowMillis) {
+    }
+}
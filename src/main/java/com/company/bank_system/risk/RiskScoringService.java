@@ -0,0 +1,118 @@
+package com.company.bank_system.risk;
+
+import com.company.bank_system.exception.Exceptions.TransactionBlockedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores a withdrawal or transfer before it is posted: the points of all {@link RiskRule} beans are added up
+ * and compared with bank.risk.review-score / block-score. Rules work on bounded in-memory state only, so
+ * scoring costs microseconds and no db round trip. State is per node.
+ * Scoring does not change that state: a posting is only {@link #record recorded} once it went through,
+ * so retried, rolled back and rejected attempts don't count as activity.
+ */
+@Service
+@Slf4j
+public class RiskScoringService {
+
+    private final List<RiskRule> rules;
+    private final RiskProperties properties;
+    private final Map<RiskDecision, Counter> decisions = new EnumMap<>(RiskDecision.class);
+
+    public RiskScoringService(List<RiskRule> rules, RiskProperties properties, MeterRegistry meterRegistry) {
+        this.rules = List.copyOf(rules);
+        this.properties = properties;
+        for (RiskDecision decision : RiskDecision.values()) {
+            decisions.put(decision, Counter.builder("bank.risk.decisions").tag("decision", decision.name()).register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return the assessment, ALLOW or REVIEW
+     * @throws TransactionBlockedException when the score reaches block-score
+     */
+    public RiskAssessment check(RiskContext context) {
+        RiskAssessment assessment = assess(context);
+        if (assessment.decision() == RiskDecision.BLOCK) {
+            throw new TransactionBlockedException("Transaction blocked by risk checks (" + assessment.reasons() + ")");
+        }
+        return assessment;
+    }
+
+    public RiskAssessment assess(RiskContext context) {
+        if (!properties.enabled()) {
+            return RiskAssessment.ALLOW;
+        }
+
+        int score = 0;
+        StringBuilder reasons = null;
+        for (RiskRule rule : rules) {
+            int points = rule.score(context);
+            if (points > 0) {
+                score += points;
+                reasons = (reasons == null ? new StringBuilder() : reasons.append(',')).append(rule.name()).append('=').append(points);
+            }
+        }
+
+        RiskDecision decision = score >= properties.blockScore() ? RiskDecision.BLOCK
+                : score >= properties.reviewScore() ? RiskDecision.REVIEW
+                : RiskDecision.ALLOW;
+        decisions.get(decision).increment();
+
+        if (reasons == null) {
+            return RiskAssessment.ALLOW;
+        }
+        if (decision != RiskDecision.ALLOW) {
+            log.warn("RISK_FLAGGED decision={} userId={} accountId={} type={} amount={} score={} reasons={}",
+                    decision, context.userId(), context.accountId(), context.type(), context.amount(), score, reasons);
+        }
+        return new RiskAssessment(score, decision, reasons.toString());
+    }
+
+    /**
+     * Records the posting once the current transaction commits (right away without one);
+     * nothing is recorded if it rolls back.
+     */
+    public void recordAfterCommit(RiskContext context) {
+        if (!properties.enabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(context);
+                }
+            });
+        } else {
+            record(context);
+        }
+    }
+
+    // the posting went through: later scores of the account take it into account
+    public void record(RiskContext context) {
+        if (!properties.enabled()) {
+            return;
+        }
+        for (RiskRule rule : rules) {
+            rule.record(context);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.risk.trim-interval-ms:60000}")
+    public void trim() {
+        long now = System.currentTimeMillis();
+        for (RiskRule rule : rules) {
+            rule.trim(now);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.company.bank_system.risk;
+
+import com.company.bank_system.limits.SlidingWindowCounter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Postings per account and per user in the velocity window: more than the maximum scores review-score,
+ * more than twice the maximum scores block-score.
+ */
+@Component
+public class VelocityRule implements RiskRule {
+
+    private static final int BUCKETS = 12;
+
+    private final RiskProperties properties;
+    private final BoundedStates<SlidingWindowCounter> accounts;
+    private final BoundedStates<SlidingWindowCounter> users;
+
+    public VelocityRule(RiskProperties properties) {
+        this.properties = properties;
+        long windowMillis = properties.velocity().window().toMillis();
+        this.accounts = new BoundedStates<>(properties.maxTrackedAccounts(), id -> new SlidingWindowCounter(windowMillis, BUCKETS));
+        this.users = new BoundedStates<>(properties.maxTrackedAccounts(), id -> new SlidingWindowCounter(windowMillis, BUCKETS));
+    }
+
+    @Override
+    public String name() {
+        return "velocity";
+    }
+
+    @Override
+    public int score(RiskContext context) {
+        long perAccount = count(accounts.get(context.accountId()), context.atMillis()) + 1;
+        long perUser = count(users.get(context.userId()), context.atMillis()) + 1;
+        return Math.max(
+                points(perAccount, properties.velocity().maxPerAccount()),
+                points(perUser, properties.velocity().maxPerUser())
+        );
+    }
+
+    @Override
+    public void record(RiskContext context) {
+        add(accounts.getOrCreate(context.accountId()), context.atMillis());
+        add(users.getOrCreate(context.userId()), context.atMillis());
+    }
+
+    @Override
+    public void trim(long nowMillis) {
+        accounts.removeIf(counter -> counter.isEmpty(nowMillis));
+        users.removeIf(counter -> counter.isEmpty(nowMillis));
+    }
+
+    private int points(long count, int max) {
+        if (count > 2L * max) {
+            return properties.blockScore();
+        }
+        return count > max ? properties.reviewScore() : 0;
+    }
+
+    private static long count(SlidingWindowCounter counter, long nowMillis) {
+        return counter != null ? counter.sum(nowMillis) : 0;
+    }
+
+    private static void add(SlidingWindowCounter counter, long atMillis) {
+        if (counter != null) {
+            counter.add(atMillis, 1);
+        }
+    }
+}
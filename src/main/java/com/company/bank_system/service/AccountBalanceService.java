@@ -0,0 +1,317 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.AccountBalanceSlot;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.repo.AccountBalanceSlotRepository;
+import com.company.bank_system.repo.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency control for balance changes.
+ * PESSIMISTIC - SELECT ... FOR UPDATE, accounts locked in id order (no deadlocks between transfers)
+ * OPTIMISTIC - @Version check on flush, whole operation retried on conflict
+ * CONDITIONAL_UPDATE - single UPDATE ... WHERE balance >= amount, no read-modify-write in java
+ *
+ * Accounts with balanceSlots > 0 (hot merchant accounts) take credits into a random slot row
+ * instead of the account row, so incoming payments don't serialize on one lock.
+ */
+@Service
+@Slf4j
+public class AccountBalanceService {
+
+    public enum Strategy {
+        PESSIMISTIC, OPTIMISTIC, CONDITIONAL_UPDATE
+    }
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Strategy strategy;
+    private final int maxAttempts;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+
+    public AccountBalanceService(AccountRepository accountRepository,
+                                 AccountBalanceSlotRepository slotRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${bank.balance.strategy:PESSIMISTIC}") Strategy strategy,
+                                 @Value("${bank.balance.max-attempts:5}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.slotRepository = slotRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.strategy = strategy;
+        this.maxAttempts = maxAttempts;
+        log.info("BALANCE_SERVICE_INITIALIZED strategy={} maxAttempts={}", strategy, maxAttempts);
+    }
+
+    /**
+     * Runs the operation in its own transaction and retries it on optimistic conflicts and deadlocks.
+     * When called inside an existing transaction it just joins it - the caller owns the retry then.
+     */
+    public <T> T execute(Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (ConcurrencyFailureException e) {
+                if (e instanceof PessimisticLockingFailureException) {
+                    deadlocks.increment();
+                }
+                if (attempt >= maxAttempts) {
+                    log.error("BALANCE_RETRY_EXHAUSTED strategy={} attempts={} error={}",
+                            strategy, attempt, e.getMessage()
+                    );
+                    throw e;
+                }
+                retries.increment();
+                log.debug("BALANCE_RETRY strategy={} attempt={} error={}",
+                        strategy, attempt, e.getClass().getSimpleName()
+                );
+                backoff(attempt++);
+            }
+        }
+    }
+
+    /**
+     * Takes row locks for a transfer. Always in ascending id order, so two opposite transfers
+     * between the same accounts wait for each other instead of deadlocking.
+     * A sharded destination is not locked - the credit goes to a slot row.
+     */
+    public void lockForTransfer(Account from, Account to) {
+        if (strategy != Strategy.PESSIMISTIC) {
+            return;
+        }
+
+        if (isSharded(to)) {
+            lockForUpdate(from);
+        } else if (from.getId() < to.getId()) {
+            lock(from);
+            lock(to);
+        } else {
+            lock(to);
+            lock(from);
+        }
+    }
+
+    public void lockForUpdate(Account account) {
+        if (strategy == Strategy.PESSIMISTIC && !isSharded(account)) {
+            lock(account);
+        }
+    }
+
+    /**
+     * @return new balance of the account, null for a sharded account (use {@link #totalBalance})
+     * @throws InsufficientFundsException when the balance is lower than amount
+     */
+    public BigDecimal debit(Account account, BigDecimal amount) {
+        if (isSharded(account)) {
+            return debitSharded(account, amount);
+        }
+        return debitMain(account, amount);
+    }
+
+    /**
+     * @return new balance of the account, null for a sharded account (use {@link #totalBalance})
+     */
+    public BigDecimal credit(Account account, BigDecimal amount) {
+        if (isSharded(account)) {
+            int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+            if (slotRepository.credit(account.getId(), slot, amount) == 1) {
+                return null;
+            }
+            // slots were reconfigured concurrently - re-read the account and credit the row
+            lock(account);
+            if (isSharded(account)) {
+                return credit(account, amount);
+            }
+        }
+        return creditMain(account, amount);
+    }
+
+    /**
+     * Balance of the account row plus all of its slots.
+     */
+    public BigDecimal totalBalance(Account account) {
+        if (!isSharded(account)) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(slotRepository.sumByAccountId(account.getId()));
+    }
+
+    /**
+     * {@link #totalBalance} of every account by id, with one query for the slots of all the sharded ones.
+     */
+    public Map<Long, BigDecimal> totalBalances(Collection<Account> accounts) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        List<Long> sharded = new ArrayList<>();
+        for (Account account : accounts) {
+            balances.put(account.getId(), account.getBalance());
+            if (isSharded(account)) {
+                sharded.add(account.getId());
+            }
+        }
+        if (!sharded.isEmpty()) {
+            for (Object[] row : slotRepository.sumByAccountIds(sharded)) {
+                balances.merge((Long) row[0], (BigDecimal) row[1], BigDecimal::add);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Moves everything into the account row and recreates {@code slots} empty slots (0 - turn sharding off).
+     */
+    public void configureSlots(Account account, int slots) {
+        if (slots < 0) {
+            throw new InvalidOperationException("Slot count must not be negative");
+        }
+
+        lock(account);
+        if (isSharded(account)) {
+            consolidate(account);
+        }
+        slotRepository.deleteByAccountId(account.getId());
+
+        for (int i = 0; i < slots; i++) {
+            AccountBalanceSlot slot = new AccountBalanceSlot();
+            slot.setAccountId(account.getId());
+            slot.setSlot(i);
+            slot.setBalance(BigDecimal.ZERO);
+            slotRepository.save(slot);
+        }
+
+        account.setBalanceSlots(slots);
+        account.setUpdatedAt(LocalDateTime.now());
+
+        log.info("BALANCE_SLOTS_CONFIGURED accountId={} slots={}", account.getId(), slots);
+    }
+
+    private BigDecimal debitSharded(Account account, BigDecimal amount) {
+        int slots = account.getBalanceSlots();
+        int start = ThreadLocalRandom.current().nextInt(slots);
+
+        for (int i = 0; i < slots; i++) {
+            if (slotRepository.debitIfSufficient(account.getId(), (start + i) % slots, amount) == 1) {
+                return null;
+            }
+        }
+
+        // no single slot can pay - collect everything into the account row and pay from there
+        lock(account);
+        consolidate(account);
+        return debitMain(account, amount);
+    }
+
+    // caller holds the account row lock
+    private void consolidate(Account account) {
+        BigDecimal collected = slotRepository.lockBalances(account.getId()).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (collected.signum() == 0) {
+            return;
+        }
+
+        slotRepository.resetByAccountId(account.getId());
+        account.setBalance(account.getBalance().add(collected));
+        account.setUpdatedAt(LocalDateTime.now());
+        entityManager.flush();
+
+        log.debug("BALANCE_SLOTS_CONSOLIDATED accountId={} amount={}", account.getId(), collected);
+    }
+
+    private BigDecimal debitMain(Account account, BigDecimal amount) {
+        if (strategy == Strategy.CONDITIONAL_UPDATE) {
+            // entity is not touched here: its snapshot stays clean, so hibernate never flushes a stale balance
+            return accountRepository.debitIfSufficient(account.getId(), amount, LocalDateTime.now())
+                    .orElseThrow(() -> insufficientFunds(account, amount));
+        }
+
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw insufficientFunds(account, amount);
+        }
+
+        BigDecimal newBalance = account.getBalance().subtract(amount);
+        account.setBalance(newBalance);
+        account.setUpdatedAt(LocalDateTime.now());
+        return newBalance;
+    }
+
+    private BigDecimal creditMain(Account account, BigDecimal amount) {
+        if (strategy == Strategy.CONDITIONAL_UPDATE) {
+            return accountRepository.credit(account.getId(), amount, LocalDateTime.now());
+        }
+
+        BigDecimal newBalance = account.getBalance().add(amount);
+        account.setBalance(newBalance);
+        account.setUpdatedAt(LocalDateTime.now());
+        return newBalance;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getDeadlockCount() {
+        return deadlocks.sum();
+    }
+
+    private boolean isSharded(Account account) {
+        return account.getBalanceSlots() > 0;
+    }
+
+    private void lock(Account account) {
+        // refresh, not a query: a query would return the already managed instance with the old balance
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private InsufficientFundsException insufficientFunds(Account account, BigDecimal amount) {
+        log.warn("BALANCE_INSUFFICIENT_FUNDS accountId={} requested={} available={}",
+                account.getId(), amount, account.getBalance()
+        );
+        return new InsufficientFundsException(account.getId(), amount, account.getBalance());
+    }
+
+    private void backoff(int attempt) {
+        long maxDelay = Math.min(50L, 1L << attempt);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying balance operation", e);
+        }
+    }
+}
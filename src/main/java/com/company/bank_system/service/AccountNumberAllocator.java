@@ -0,0 +1,56 @@
+package com.company.bank_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Account numbers without an existence check: 40817, a 0, a 13-digit serial and a Luhn check digit.
+ * Serials are leased from account_number_seq a block at a time and handed out from memory, so only one
+ * account in BLOCK touches the sequence and two nodes never share a serial. Serials of a block not used
+ * before a restart are skipped.
+ */
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+
+    static final String PREFIX = "408170";
+    private static final String NEXT_BLOCK = "SELECT nextval('account_number_seq')";
+    private static final long BLOCK = 1000; // increment of account_number_seq
+    private static final long MAX_SERIAL = 9_999_999_999_999L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long limit;
+
+    public AccountNumberAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public String next() {
+        long serial;
+        lock.lock();
+        try {
+            if (next == limit) {
+                next = jdbcTemplate.queryForObject(NEXT_BLOCK, Long.class);
+                limit = next + BLOCK;
+                log.debug("ACCOUNT_NUMBER_BLOCK_LEASED from={} to={}", next, limit - 1);
+            }
+            serial = next++;
+        } finally {
+            lock.unlock();
+        }
+        if (serial > MAX_SERIAL) {
+            throw new IllegalStateException("Account number serials exhausted");
+        }
+
+        StringBuilder number = new StringBuilder(20).append(PREFIX);
+        String digits = Long.toString(serial);
+        number.repeat('0', 13 - digits.length()).append(digits);
+        return number.append(Luhn.checkDigit(number)).toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountRoute;
+import com.company.bank_system.repo.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of {@link AccountRoute}s by account number, so paying the same payee again does not
+ * look the number up. Bounded by size and by time since the entry was loaded; misses are not cached.
+ * A status change evicts the entry right away and again after its commit, so a lookup racing the change
+ * cannot keep the old status. Other nodes see the change once their entry expires.
+ */
+@Component
+@Slf4j
+public class AccountRoutingCache {
+
+    private final AccountRepository accountRepository;
+    private final Cache<String, AccountRoute> routes;
+
+    public AccountRoutingCache(AccountRepository accountRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${bank.accounts.routing-cache.max-size:100000}") long maxSize,
+                               @Value("${bank.accounts.routing-cache.ttl:5m}") Duration ttl) {
+        this.accountRepository = accountRepository;
+        this.routes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, routes, "account_routes");
+        Gauge.builder("bank.accounts.routing_cache.hit_ratio", routes, c -> c.stats().hitRate()).register(meterRegistry);
+        log.info("ACCOUNT_ROUTING_CACHE_INITIALIZED maxSize={} ttl={}", maxSize, ttl);
+    }
+
+    public Optional<AccountRoute> get(String accountNumber) {
+        AccountRoute route = routes.get(accountNumber, number -> accountRepository.findRouteByAccountNumber(number).orElse(null));
+        return Optional.ofNullable(route);
+    }
+
+    public void evict(String accountNumber) {
+        routes.invalidate(accountNumber);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    routes.invalidate(accountNumber);
+                }
+            });
+        }
+    }
+}
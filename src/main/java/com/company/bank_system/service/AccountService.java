@@ -1,7 +1,9 @@
 package com.company.bank_system.service;
 
 import com.company.bank_system.dto.AccountResponse;
+import com.company.bank_system.dto.AccountRoute;
 import com.company.bank_system.dto.CreateAccountRequest;
+import com.company.bank_system.dto.PortfolioSummary;
 import com.company.bank_system.entity.Account;
 import com.company.bank_system.entity.User;
 import com.company.bank_system.entity.enums.Account.AccountStatus;
@@ -10,7 +12,9 @@ import com.company.bank_system.entity.enums.Currency;
 import com.company.bank_system.exception.Exceptions.AccessDeniedException;
 import com.company.bank_system.exception.Exceptions.AccountNotFoundException;
 import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.ledger.LedgerEngine;
 import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.PortfolioRepository;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
@@ -19,7 +23,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -27,10 +32,26 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final CurrentUserService currentUserService;
-
-    public AccountService(AccountRepository accountRepository, CurrentUserService currentUserService) {
+    private final AccountBalanceService accountBalanceService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountRoutingCache accountRoutingCache;
+    private final PortfolioRepository portfolioRepository;
+    private final boolean ledgerEnabled;
+
+    public AccountService(AccountRepository accountRepository,
+                          CurrentUserService currentUserService,
+                          AccountBalanceService accountBalanceService,
+                          AccountNumberAllocator accountNumberAllocator,
+                          AccountRoutingCache accountRoutingCache,
+                          PortfolioRepository portfolioRepository,
+                          Optional<LedgerEngine> ledgerEngine) {
         this.accountRepository = accountRepository;
         this.currentUserService = currentUserService;
+        this.accountBalanceService = accountBalanceService;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.accountRoutingCache = accountRoutingCache;
+        this.portfolioRepository = portfolioRepository;
+        this.ledgerEnabled = ledgerEngine.isPresent();
     }
 
     public AccountResponse createAccount(CreateAccountRequest request) throws Exception {
@@ -48,7 +69,7 @@ public class AccountService {
 
         Account account = new Account();
         account.setUser(currentUser);
-        account.setAccountNumber(generateAccountNumber());
+        account.setAccountNumber(accountNumberAllocator.next());
         account.setAccountType(request.accountType());
         account.setCurrency(request.currency());
         account.setBalance(BigDecimal.ZERO);
@@ -78,9 +99,7 @@ public class AccountService {
                 accounts.size()
         );
 
-        return accounts.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapToResponses(accounts);
     }
 
     public AccountResponse getAccountById(Long accountId) {
@@ -152,10 +171,10 @@ public class AccountService {
                 });
     }
     // INTERNAL USE ONLY (payments, transfers)
-    public Account getAccountByNumber(String accountNumber) {
-        log.debug("GET_ACCOUNT_BY_NUMBER accountNumber={}", maskAccountNumber(accountNumber));
+    public AccountRoute getAccountRoute(String accountNumber) {
+        log.debug("GET_ACCOUNT_ROUTE accountNumber={}", maskAccountNumber(accountNumber));
 
-        return accountRepository.findByAccountNumber(accountNumber)
+        return accountRoutingCache.get(accountNumber)
                 .orElseThrow(() -> {
                     log.warn("ACCOUNT_NOT_FOUND_BY_NUMBER accountNumber={}",
                             maskAccountNumber(accountNumber)
@@ -167,6 +186,11 @@ public class AccountService {
                 });
     }
 
+    // INTERNAL USE ONLY: loaded on first access to anything but the id, so only inside a transaction
+    public Account getAccountReference(AccountRoute route) {
+        return accountRepository.getReferenceById(route.id());
+    }
+
     public AccountResponse getAccountByAccountNumber(String accountNumber) {
         User currentUser = currentUserService.getCurrentUser();
 
@@ -210,9 +234,7 @@ public class AccountService {
                 currentUser.getId(), type, accounts.size()
         );
 
-        return accounts.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapToResponses(accounts);
     }
 
     public List<AccountResponse> getAccountsByCurrency(Currency currency) {
@@ -226,9 +248,7 @@ public class AccountService {
                 currentUser.getId(), currency, accounts.size()
         );
 
-        return accounts.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapToResponses(accounts);
     }
 
     public List<AccountResponse> getAccountsByStatus(AccountStatus status) {
@@ -242,9 +262,7 @@ public class AccountService {
                 currentUser.getId(), status, accounts.size()
         );
 
-        return accounts.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return mapToResponses(accounts);
     }
 
     public BigDecimal getAccountBalance(Long accountId) {
@@ -253,12 +271,13 @@ public class AccountService {
         log.debug("GET_ACCOUNT_BALANCE userId={} accountId={}", currentUser.getId(), accountId);
 
         Account account = getAccountEntityById(accountId);
+        BigDecimal balance = accountBalanceService.totalBalance(account);
 
         log.info("GET_ACCOUNT_BALANCE_SUCCESS userId={} accountId={} balance={}",
-                currentUser.getId(), accountId, account.getBalance()
+                currentUser.getId(), accountId, balance
         );
 
-        return account.getBalance();
+        return balance;
     }
 
     public BigDecimal getTotalBalanceByCurrency(Currency currency) {
@@ -266,12 +285,8 @@ public class AccountService {
 
         log.debug("GET_TOTAL_BALANCE userId={} currency={}", currentUser.getId(), currency);
 
-        List<Account> accounts = accountRepository.findByUserAndCurrency(currentUser, currency);
-
-        BigDecimal total = accounts.stream()
-                .filter(acc -> acc.getStatus() == AccountStatus.ACTIVE)
-                .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal total = portfolioRepository.summarize(currentUser.getId()).balances()
+                .getOrDefault(currency, BigDecimal.ZERO);
 
         log.info("GET_TOTAL_BALANCE_SUCCESS userId={} currency={} total={}",
                 currentUser.getId(), currency, total
@@ -280,6 +295,18 @@ public class AccountService {
         return total;
     }
 
+    public PortfolioSummary getPortfolio() {
+        User currentUser = currentUserService.getCurrentUser();
+
+        log.debug("GET_PORTFOLIO userId={}", currentUser.getId());
+
+        PortfolioSummary portfolio = portfolioRepository.summarize(currentUser.getId());
+
+        log.info("GET_PORTFOLIO_SUCCESS userId={} currencies={}", currentUser.getId(), portfolio.balances().keySet());
+
+        return portfolio;
+    }
+
     @Transactional
     public AccountResponse updateAccountStatus(Long accountId, AccountStatus newStatus) {
         User currentUser = currentUserService.getCurrentUser();
@@ -299,6 +326,7 @@ public class AccountService {
         account.setUpdatedAt(LocalDateTime.now());
 
         Account saved = accountRepository.save(account);
+        accountRoutingCache.evict(saved.getAccountNumber());
 
         log.info("UPDATE_ACCOUNT_STATUS_SUCCESS userId={} accountId={} status={}",
                 currentUser.getId(), accountId, newStatus
@@ -313,11 +341,17 @@ public class AccountService {
 
         log.info("CLOSE_ACCOUNT_START userId={} accountId={}", currentUser.getId(), accountId);
 
+        // the db balance lags the engine's until projected, and the engine would go on posting to the account
+        if (ledgerEnabled) {
+            throw new InvalidOperationException("Closing accounts is not available while the ledger engine owns balances");
+        }
+
         Account account = getAccountEntityById(accountId);
 
-        if (account.getBalance().compareTo(BigDecimal.ZERO) != 0) {
+        BigDecimal balance = accountBalanceService.totalBalance(account);
+        if (balance.compareTo(BigDecimal.ZERO) != 0) {
             log.error("CANNOT_CLOSE_ACCOUNT_WITH_BALANCE accountId={} balance={}",
-                    accountId, account.getBalance()
+                    accountId, balance
             );
             throw new InvalidOperationException("Cannot close account with non-zero balance");
         }
@@ -331,6 +365,7 @@ public class AccountService {
         account.setUpdatedAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountRoutingCache.evict(account.getAccountNumber());
 
         log.info("CLOSE_ACCOUNT_SUCCESS userId={} accountId={}", currentUser.getId(), accountId);
     }
@@ -359,32 +394,43 @@ public class AccountService {
         return exists;
     }
 
-    private String generateAccountNumber() {
-        String accountNumber;
+    //ADMIN: spread incoming credits of a hot account over N slot rows (0 - off)
+    @Transactional
+    public AccountResponse configureBalanceSlots(Long accountId, int slots) {
+        log.info("CONFIGURE_BALANCE_SLOTS_START accountId={} slots={}", accountId, slots);
 
-        do {
-            String prefix = "40817";
-            long randomPart = ThreadLocalRandom.current()
-                    .nextLong(100000000000000L, 999999999999999L);
-            accountNumber = prefix + randomPart;
-        } while (accountRepository.existsByAccountNumber(accountNumber));
+        Account account = getAnyAccountById(accountId);
+        accountBalanceService.configureSlots(account, slots);
+        Account saved = accountRepository.save(account);
 
-        log.debug("ACCOUNT_NUMBER_GENERATED {}", maskAccountNumber(accountNumber));
+        log.info("CONFIGURE_BALANCE_SLOTS_SUCCESS accountId={} slots={}", accountId, slots);
 
-        return accountNumber;
+        return mapToResponse(saved);
     }
 
     private AccountResponse mapToResponse(Account account) {
+        return mapToResponse(account, accountBalanceService.totalBalance(account));
+    }
+
+    private AccountResponse mapToResponse(Account account, BigDecimal balance) {
         return new AccountResponse(
                 account.getId(),
                 account.getAccountNumber(),
                 account.getAccountType(),
                 account.getCurrency(),
-                account.getBalance(),
+                balance,
                 account.getStatus()
         );
     }
 
+    // slot sums of sharded accounts in one query, not one per account
+    private List<AccountResponse> mapToResponses(List<Account> accounts) {
+        Map<Long, BigDecimal> balances = accountBalanceService.totalBalances(accounts);
+        return accounts.stream()
+                .map(account -> mapToResponse(account, balances.get(account.getId())))
+                .toList();
+    }
+
     private String maskAccountNumber(String number) {
         if (number.length() < 6) return "****";
         return number.substring(0, 4) + "****" + number.substring(number.length() - 2);
@@ -0,0 +1,363 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.BatchTransferItemResult;
+import com.company.bank_system.dto.BatchTransferRequest;
+import com.company.bank_system.dto.BatchTransferResponse;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.exception.Exceptions.SpendingLimitExceededException;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.ledger.LedgerPosting;
+import com.company.bank_system.limits.SpendingLimitService;
+import com.company.bank_system.limits.SpendingLimitService.Reservation;
+import com.company.bank_system.outbox.OutboxWriter;
+import com.company.bank_system.repo.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk transfers (payroll, settlement).
+ * All accounts are resolved with two queries, then the batch is posted in chunks: one transaction per chunk,
+ * accounts locked with one SELECT ... FOR UPDATE, balances and transactions written as JDBC batches.
+ * Debits are checked against the account row only - slots of a sharded account are not consolidated here.
+ * Transfers are not risk scored (a bulk run from one account would trip the velocity rule on every chunk),
+ * so the batch endpoint is for ADMIN users only.
+ */
+@Service
+@Slf4j
+public class BatchTransferService {
+
+    private static final String APPLY_DELTA =
+            "UPDATE accounts SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (id, from_account_id, to_account_id, transaction_type, amount, currency, " +
+                    "description, status, created_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AccountRepository accountRepository;
+    private final CurrentUserService currentUserService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outboxWriter;
+    private final TransactionIdAllocator transactionIdAllocator;
+    private final SpendingLimitService spendingLimitService;
+    private final LedgerEngine ledgerEngine; // null unless bank.ledger.enabled
+    private final int chunkSize;
+
+    public BatchTransferService(AccountRepository accountRepository,
+                                CurrentUserService currentUserService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                OutboxWriter outboxWriter,
+                                TransactionIdAllocator transactionIdAllocator,
+                                SpendingLimitService spendingLimitService,
+                                Optional<LedgerEngine> ledgerEngine,
+                                @Value("${bank.batch.chunk-size:1000}") int chunkSize) {
+        this.accountRepository = accountRepository;
+        this.currentUserService = currentUserService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxWriter = outboxWriter;
+        this.transactionIdAllocator = transactionIdAllocator;
+        this.spendingLimitService = spendingLimitService;
+        this.ledgerEngine = ledgerEngine.orElse(null);
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchTransferResponse transfer(BatchTransferRequest request) {
+        User currentUser = currentUserService.getCurrentUser();
+        List<TransferRequest> transfers = request.transfers();
+
+        log.info("BATCH_TRANSFER_START userId={} count={}", currentUser.getId(), transfers.size());
+        long start = System.nanoTime();
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[transfers.size()];
+        List<Item> items = validate(currentUser, transfers, results);
+
+        if (ledgerEngine != null) {
+            postToLedger(items, results);
+        } else {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                postChunk(items.subList(from, Math.min(from + chunkSize, items.size())), results);
+            }
+        }
+
+        int succeeded = (int) Arrays.stream(results)
+                .filter(r -> r.status() == TransactionStatus.COMPLETED)
+                .count();
+
+        log.info("BATCH_TRANSFER_SUCCESS userId={} count={} succeeded={} failed={} timeMs={}",
+                currentUser.getId(), transfers.size(), succeeded, transfers.size() - succeeded,
+                (System.nanoTime() - start) / 1_000_000
+        );
+
+        return new BatchTransferResponse(transfers.size(), succeeded, transfers.size() - succeeded, Arrays.asList(results));
+    }
+
+    /**
+     * One chunk of a file import, validated like {@link #transfer} and posted in one transaction.
+     * afterPosting runs inside that transaction with the result of every transfer, so the import's progress
+     * commits together with the postings. Not available with the ledger engine: its postings are durable
+     * before that transaction commits, so a lost lease or a crash in between would post the chunk twice.
+     */
+    public BatchTransferItemResult[] transferChunk(User user,
+                                                   List<TransferRequest> transfers,
+                                                   Consumer<BatchTransferItemResult[]> afterPosting) {
+        if (ledgerEngine != null) {
+            throw new InvalidOperationException("File imports are not available while the ledger engine owns balances");
+        }
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[transfers.size()];
+        List<Item> items = transfers.isEmpty() ? List.of() : validate(user, transfers, results);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!items.isEmpty()) {
+                BatchTransferItemResult[] chunkResults = writeChunk(items);
+                for (int i = 0; i < items.size(); i++) {
+                    results[items.get(i).index()] = chunkResults[i];
+                }
+            }
+            afterPosting.accept(results);
+        });
+        return results;
+    }
+
+    // everything that can be checked without locks, with one lookup per distinct account
+    private List<Item> validate(User user, List<TransferRequest> transfers, BatchTransferItemResult[] results) {
+        Set<Long> fromIds = new HashSet<>();
+        Set<String> toNumbers = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            fromIds.add(transfer.fromAccountId());
+            toNumbers.add(transfer.toAccountId());
+        }
+
+        Map<Long, Account> fromById = accountRepository.findAllById(fromIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Map<String, Account> toByNumber = accountRepository.findByAccountNumberIn(toNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<Item> items = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Account from = fromById.get(transfer.fromAccountId());
+            Account to = toByNumber.get(transfer.toAccountId());
+
+            String error = null;
+            if (from == null) {
+                error = "Account with id " + transfer.fromAccountId() + " not found";
+            } else if (!from.getUser().getId().equals(user.getId())) {
+                error = "Access denied to account " + transfer.fromAccountId();
+            } else if (to == null) {
+                error = "Account number " + transfer.toAccountId() + " not found";
+            } else if (from.getId().equals(to.getId())) {
+                error = "Cannot transfer to the same account";
+            } else if (transfer.amount().compareTo(BigDecimal.ZERO) <= 0) {
+                error = "Transfer amount must be greater than 0";
+            } else if (from.getCurrency() != to.getCurrency()) {
+                error = "Currency mismatch: from account has " + from.getCurrency() +
+                        " but to account has " + to.getCurrency();
+            }
+
+            if (error != null) {
+                results[i] = failed(i, error);
+            } else {
+                items.add(new Item(i, from, to.getId(), transfer.amount(), from.getCurrency(), transfer.description()));
+            }
+        }
+        return items;
+    }
+
+    private void postChunk(List<Item> chunk, BatchTransferItemResult[] results) {
+        BatchTransferItemResult[] chunkResults;
+        try {
+            chunkResults = transactionTemplate.execute(status -> writeChunk(chunk));
+        } catch (DataAccessException | TransactionException e) {
+            log.error("BATCH_TRANSFER_CHUNK_FAILED firstIndex={} size={} error={}",
+                    chunk.getFirst().index(), chunk.size(), e.getMessage()
+            );
+            chunk.forEach(item -> results[item.index()] = failed(item.index(), "Chunk rolled back: " + e.getMessage()));
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            results[chunk.get(i).index()] = chunkResults[i];
+        }
+    }
+
+    private BatchTransferItemResult[] writeChunk(List<Item> chunk) {
+        Set<Long> ids = new TreeSet<>();
+        chunk.forEach(item -> {
+            ids.add(item.fromId());
+            ids.add(item.toId());
+        });
+
+        Map<Long, Account> accounts = new HashMap<>();
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Account account : accountRepository.findAllByIdForUpdate(ids)) {
+            accounts.put(account.getId(), account);
+            balances.put(account.getId(), account.getBalance());
+        }
+
+        BatchTransferItemResult[] chunkResults = new BatchTransferItemResult[chunk.size()];
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        List<Item> accepted = new ArrayList<>(chunk.size());
+        List<Integer> acceptedPositions = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Item item = chunk.get(i);
+            BigDecimal available = balances.get(item.fromId());
+            if (available.compareTo(item.amount()) < 0) {
+                chunkResults[i] = failed(item.index(), String.format("low balance on account %d. required: %s, available: %s",
+                        item.fromId(), item.amount(), available));
+                continue;
+            }
+            // given back by the rollback if the chunk fails
+            try {
+                spendingLimitService.reserve(accounts.get(item.fromId()), null, item.amount());
+            } catch (SpendingLimitExceededException e) {
+                chunkResults[i] = failed(item.index(), e.getMessage());
+                continue;
+            }
+
+            balances.put(item.fromId(), available.subtract(item.amount()));
+            balances.merge(item.toId(), item.amount(), BigDecimal::add);
+            deltas.merge(item.fromId(), item.amount().negate(), BigDecimal::add);
+            deltas.merge(item.toId(), item.amount(), BigDecimal::add);
+            accepted.add(item);
+            acceptedPositions.add(i);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, BigDecimal>> deltaList = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(APPLY_DELTA, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setBigDecimal(1, deltaList.get(i).getValue());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, deltaList.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return deltaList.size();
+            }
+        });
+
+        long[] transactionIds = transactionIdAllocator.allocate(accepted.size());
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Item item = accepted.get(i);
+                ps.setLong(1, transactionIds[i]);
+                ps.setLong(2, item.fromId());
+                ps.setLong(3, item.toId());
+                ps.setString(4, TransactionType.TRANSFER.name());
+                ps.setBigDecimal(5, item.amount());
+                ps.setString(6, item.currency().name());
+                if (item.description() != null) {
+                    ps.setString(7, item.description());
+                } else {
+                    ps.setNull(7, Types.VARCHAR);
+                }
+                ps.setString(8, TransactionStatus.COMPLETED.name());
+                ps.setTimestamp(9, now);
+                ps.setTimestamp(10, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return accepted.size();
+            }
+        });
+
+        List<TransactionResponse> created = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Item item = accepted.get(i);
+            chunkResults[acceptedPositions.get(i)] = new BatchTransferItemResult(
+                    item.index(), TransactionStatus.COMPLETED, transactionIds[i], null);
+            created.add(new TransactionResponse(transactionIds[i], item.fromId(), item.toId(), TransactionType.TRANSFER,
+                    item.amount(), item.currency(), item.description(), TransactionStatus.COMPLETED, now.toLocalDateTime()));
+        }
+        outboxWriter.transactionsCreated(created);
+
+        return chunkResults;
+    }
+
+    private void postToLedger(List<Item> items, BatchTransferItemResult[] results) {
+        List<CompletableFuture<LedgerPosting>> futures = new ArrayList<>(items.size());
+        Reservation[] reservations = new Reservation[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            reservations[i] = Reservation.NONE;
+            try {
+                reservations[i] = spendingLimitService.reserve(item.from(), null, item.amount());
+                futures.add(ledgerEngine.post(TransactionType.TRANSFER, item.fromId(), item.toId(),
+                        item.amount(), item.currency(), item.description()));
+            } catch (RuntimeException e) {
+                futures.add(CompletableFuture.failedFuture(new CompletionException(e)));
+            }
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            int index = items.get(i).index();
+            try {
+                futures.get(i).join();
+                // the transactions row does not exist until LedgerProjector runs
+                results[index] = new BatchTransferItemResult(index, TransactionStatus.COMPLETED, null, null);
+            } catch (CompletionException e) {
+                reservations[i].release();
+                results[index] = failed(index, e.getCause().getMessage());
+            }
+        }
+    }
+
+    private BatchTransferItemResult failed(int index, String error) {
+        return new BatchTransferItemResult(index, TransactionStatus.FAILED, null, error);
+    }
+
+    private record Item(
+            int index,
+            Account from,
+            Long toId,
+            BigDecimal amount,
+            Currency currency,
+            String description
+    ) {
+        Long fromId() {
+            return from.getId();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.company.bank_system.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Set membership with false positives but no false negatives: k bits per element out of m, picked by double
+ * hashing (h1 + i * h2) of a 64-bit FNV-1a hash. m and k come from the expected element count and the wanted
+ * false positive rate. Not thread-safe.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long size;
+    private final int hashes;
+
+    BloomFilter(long expected, double falsePositiveRate) {
+        long m = (long) Math.ceil(-Math.max(expected, 1) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE - 8)];
+        this.size = (long) bits.length << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) size / Math.max(expected, 1) * Math.log(2)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, size);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, size);
+            if ((bits[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.US_ASCII)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
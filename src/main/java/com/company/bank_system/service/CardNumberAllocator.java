@@ -0,0 +1,126 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.repo.CardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Card numbers without a query per card: the payment system's BIN, a 9-digit serial and a Luhn check digit.
+ * Serials are leased per BIN from card_number_ranges a block at a time, so nodes never hand out the same one.
+ * The lease commits in its own transaction: a caller that rolls back must not take the block back with it while
+ * this node keeps handing it out, and the range row stays locked only for the lease itself.
+ * Only cards issued before this (random digits) can still clash; they are loaded into a Bloom filter on first
+ * use and a serial is checked against the database only when the filter says it might be taken. Serials of a
+ * block not used before a restart are skipped.
+ */
+@Component
+@Slf4j
+public class CardNumberAllocator {
+
+    private static final long MAX_SERIAL = 999_999_999L;
+
+    private static final String LEASE = "INSERT INTO card_number_ranges (bin, next_serial, updated_at) VALUES (?, ?, now()) " +
+            "ON CONFLICT (bin) DO UPDATE SET next_serial = card_number_ranges.next_serial + EXCLUDED.next_serial, " +
+            "updated_at = EXCLUDED.updated_at RETURNING next_serial";
+    private static final String COUNT_ISSUED = "SELECT COUNT(*) FROM cards";
+    private static final String ISSUED = "SELECT card_number FROM cards";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leaseTransaction;
+    private final CardRepository cardRepository;
+    private final CardNumberProperties properties;
+    private final Map<CardPaymentSystem, Range> ranges = new EnumMap<>(CardPaymentSystem.class);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private BloomFilter issued;
+
+    public CardNumberAllocator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               CardRepository cardRepository,
+                               CardNumberProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cardRepository = cardRepository;
+        this.properties = properties;
+        for (CardPaymentSystem system : CardPaymentSystem.values()) {
+            String bin = properties.bins().get(system);
+            if (bin == null || !bin.matches("\\d{6}")) {
+                throw new IllegalStateException("bank.cards.bins." + system + " must be a 6-digit BIN");
+            }
+            ranges.put(system, new Range(bin));
+        }
+    }
+
+    public String next(CardPaymentSystem paymentSystem) {
+        while (true) {
+            String number;
+            boolean mightBeIssued;
+            lock.lock();
+            try {
+                if (issued == null) {
+                    issued = loadIssued();
+                }
+                number = format(ranges.get(paymentSystem));
+                mightBeIssued = issued.mightContain(number);
+                issued.add(number);
+            } finally {
+                lock.unlock();
+            }
+
+            if (!mightBeIssued || !cardRepository.existsByCardNumber(number)) {
+                return number;
+            }
+            log.warn("CARD_NUMBER_TAKEN paymentSystem={} last4={}", paymentSystem, number.substring(12));
+        }
+    }
+
+    private String format(Range range) {
+        if (range.next == range.limit) {
+            int block = properties.block();
+            long end = leaseTransaction.execute(status -> jdbcTemplate.queryForObject(LEASE, Long.class, range.bin, block));
+            range.next = end - block;
+            range.limit = end;
+            log.debug("CARD_NUMBER_BLOCK_LEASED bin={} from={} to={}", range.bin, range.next, end - 1);
+        }
+        long serial = range.next++;
+        if (serial > MAX_SERIAL) {
+            throw new IllegalStateException("Card number serials exhausted for BIN " + range.bin);
+        }
+
+        StringBuilder number = new StringBuilder(16).append(range.bin);
+        String digits = Long.toString(serial);
+        number.repeat('0', 9 - digits.length()).append(digits);
+        return number.append(Luhn.checkDigit(number)).toString();
+    }
+
+    private BloomFilter loadIssued() {
+        long start = System.nanoTime();
+        long count = jdbcTemplate.queryForObject(COUNT_ISSUED, Long.class);
+        BloomFilter filter = new BloomFilter(Math.max(properties.bloomExpected(), count * 2),
+                properties.bloomFalsePositiveRate());
+        jdbcTemplate.query(ISSUED, (RowCallbackHandler) rs -> filter.add(rs.getString(1)));
+        log.info("CARD_NUMBERS_LOADED count={} timeMs={}", count, (System.nanoTime() - start) / 1_000_000);
+        return filter;
+    }
+
+    private static final class Range {
+        private final String bin;
+        private long next;
+        private long limit;
+
+        private Range(String bin) {
+            this.bin = bin;
+        }
+    }
+}
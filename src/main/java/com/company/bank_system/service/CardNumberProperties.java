@@ -0,0 +1,26 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * bank.cards: the 6-digit BIN each payment system's cards are issued under, the serials leased per round trip,
+ * and the sizing of the Bloom filter of issued numbers.
+ */
+@ConfigurationProperties("bank.cards")
+public record CardNumberProperties(
+        Map<CardPaymentSystem, String> bins,
+        int block,
+        long bloomExpected,
+        double bloomFalsePositiveRate
+) {
+
+    public CardNumberProperties {
+        bins = bins != null ? Map.copyOf(bins) : Map.of();
+        block = block > 0 ? block : 1000;
+        bloomExpected = bloomExpected > 0 ? bloomExpected : 1_000_000;
+        bloomFalsePositiveRate = bloomFalsePositiveRate > 0 && bloomFalsePositiveRate < 1 ? bloomFalsePositiveRate : 0.001;
+    }
+}
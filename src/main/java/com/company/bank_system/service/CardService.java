@@ -32,15 +32,18 @@ public class CardService {
     private final AccountService accountService;
     private final CurrentUserService currentUserService;
     private final PasswordEncoder passwordEncoder;
+    private final CardNumberAllocator cardNumberAllocator;
 
     public CardService(CardRepository cardRepository,
                        AccountService accountService,
                        CurrentUserService currentUserService,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       CardNumberAllocator cardNumberAllocator) {
         this.cardRepository = cardRepository;
         this.accountService = accountService;
         this.currentUserService = currentUserService;
         this.passwordEncoder = passwordEncoder;
+        this.cardNumberAllocator = cardNumberAllocator;
     }
 
     @Transactional
@@ -64,7 +67,7 @@ public class CardService {
         Card card = new Card();
         card.setAccount(account);
         card.setUser(user);
-        card.setCardNumber(generateCardNumber());
+        card.setCardNumber(cardNumberAllocator.next(request.paymentSystem()));
         card.setCardHolderName(user.getFirstName() + " " + user.getLastName());
         card.setCvvHash(generateCvvHash());
         card.setExpiryDate(LocalDate.now().plusYears(5));
@@ -216,30 +219,7 @@ public class CardService {
 
         log.info("GET_CARD_BALANCE_SUCCESS cardId={}", cardId);
 
-        return accountService
-                .getAccountEntityById(card.getAccount().getId())
-                .getBalance();
-    }
-
-    private String generateCardNumber() {
-        String cardNumber;
-        int attempts = 0;
-
-        do {
-            if (attempts++ > 10) {
-                log.error("CARD_NUMBER_GENERATION_FAILED");
-                throw new RuntimeException("Cannot generate unique card number");
-            }
-
-            long part1 = ThreadLocalRandom.current().nextLong(100000000L, 999999999L);
-            long part2 = ThreadLocalRandom.current().nextLong(10000000L, 99999999L);
-            cardNumber = String.format("%09d%07d", part1, part2);
-
-        } while (cardRepository.existsByCardNumber(cardNumber));
-
-        log.debug("CARD_NUMBER_GENERATED {}", maskCardNumber(cardNumber));
-
-        return cardNumber;
+        return accountService.getAccountBalance(card.getAccount().getId());
     }
 
     private String generateCvvHash() {
@@ -0,0 +1,90 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountResponse;
+import com.company.bank_system.dto.CardResponse;
+import com.company.bank_system.dto.DashboardAccount;
+import com.company.bank_system.dto.DashboardResponse;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the app shows after login in one call, with a fixed number of queries whatever the number of
+ * accounts and cards: the user, the accounts with their cards (one fetch join), the slot sums of sharded
+ * accounts and the latest transactions of every account.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private final CurrentUserService currentUserService;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceService accountBalanceService;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final CardService cardService;
+    private final int maxTransactions;
+
+    public DashboardService(CurrentUserService currentUserService,
+                            AccountRepository accountRepository,
+                            AccountBalanceService accountBalanceService,
+                            TransactionHistoryRepository transactionHistoryRepository,
+                            CardService cardService,
+                            @Value("${bank.dashboard.max-transactions:20}") int maxTransactions) {
+        this.currentUserService = currentUserService;
+        this.accountRepository = accountRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.cardService = cardService;
+        this.maxTransactions = maxTransactions;
+    }
+
+    @Transactional(readOnly = true)
+    public DashboardResponse getDashboard(int transactions) {
+        User user = currentUserService.getCurrentUser();
+        int limit = Math.clamp(transactions, 1, maxTransactions);
+
+        List<Account> accounts = accountRepository.findWithCardsByUser(user);
+        List<Long> ids = accounts.stream().map(Account::getId).toList();
+        Map<Long, BigDecimal> balances = accountBalanceService.totalBalances(accounts);
+        Map<Long, List<TransactionResponse>> latest = transactionHistoryRepository.findLatest(ids, limit);
+
+        List<DashboardAccount> items = new ArrayList<>(accounts.size());
+        int cards = 0;
+        for (Account account : accounts) {
+            List<CardResponse> accountCards = account.getCards().stream()
+                    .sorted(Comparator.comparing(Card::getId))
+                    .map(cardService::mapToResponse)
+                    .toList();
+            cards += accountCards.size();
+            items.add(new DashboardAccount(
+                    new AccountResponse(
+                            account.getId(),
+                            account.getAccountNumber(),
+                            account.getAccountType(),
+                            account.getCurrency(),
+                            balances.get(account.getId()),
+                            account.getStatus()
+                    ),
+                    accountCards,
+                    latest.getOrDefault(account.getId(), List.of())
+            ));
+        }
+
+        log.info("GET_DASHBOARD_SUCCESS userId={} accounts={} cards={}", user.getId(), accounts.size(), cards);
+
+        return new DashboardResponse(user.getId(), user.getFirstName(), user.getLastName(), accounts.size(), cards, items);
+    }
+}
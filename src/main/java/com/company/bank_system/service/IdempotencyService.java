@@ -0,0 +1,250 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.IdempotencyRecord;
+import com.company.bank_system.exception.Exceptions.IdempotencyKeyMismatchException;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.repo.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for money-moving requests.
+ * <p>
+ * The key is claimed by a row in idempotency_keys inside the same db transaction that moves the money,
+ * so a request is executed at most once across all nodes. Results are also kept in a bounded in-memory map
+ * for the TTL: a repeat on the same node is answered without touching the db, and a concurrent duplicate
+ * waits on the first attempt's future instead of queuing on the row lock.
+ * Failed attempts are not remembered - the client may retry them with the same key.
+ * <p>
+ * Requests are compared by a hash of their canonical form (fields by name, amounts without trailing zeros),
+ * so 100 and 100.00 are the same request. Not available with the ledger engine: its postings are durable
+ * outside the transaction that claims the key, so a retry after a failed commit would move the money again.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final AccountBalanceService accountBalanceService;
+    private final CurrentUserService currentUserService;
+    private final JsonMapper jsonMapper;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final boolean ledgerEnabled;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder replays = new LongAdder();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              AccountBalanceService accountBalanceService,
+                              CurrentUserService currentUserService,
+                              JsonMapper jsonMapper,
+                              @Value("${bank.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${bank.idempotency.max-entries:100000}") int maxEntries,
+                              Optional<LedgerEngine> ledgerEngine) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.currentUserService = currentUserService;
+        this.jsonMapper = jsonMapper;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.ledgerEnabled = ledgerEngine.isPresent();
+    }
+
+    /**
+     * Runs the action once per (principal, key); repeats get the first result.
+     * Without a key the action just runs.
+     *
+     * @throws IdempotencyKeyMismatchException when the key was used for a different request
+     */
+    public TransactionResponse execute(String key,
+                                       String operation,
+                                       Object request,
+                                       Supplier<TransactionResponse> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (ledgerEnabled) {
+            throw new InvalidOperationException("Idempotency-Key is not available while the ledger engine owns balances");
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scope = currentUserService.getCurrentEmail() + ":" + key;
+        String requestHash = hash(operation, request);
+
+        while (true) {
+            Entry existing = entries.get(scope);
+            if (existing != null && existing.isExpired()) {
+                entries.remove(scope, existing);
+                existing = null;
+            }
+            if (existing != null) {
+                return replay(key, existing, requestHash);
+            }
+
+            Entry mine = new Entry(requestHash, new CompletableFuture<>(), System.nanoTime() + ttl.toNanos());
+            if (entries.putIfAbsent(scope, mine) != null) {
+                continue;
+            }
+            evictIfFull();
+
+            try {
+                TransactionResponse response = executeOnce(key, scope, operation, requestHash, action);
+                mine.result().complete(response);
+                return response;
+            } catch (RuntimeException e) {
+                entries.remove(scope, mine);
+                mine.result().completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${bank.idempotency.cleanup-interval-ms:600000}")
+    @Transactional
+    public void cleanup() {
+        entries.entrySet().removeIf(e -> e.getValue().isExpired());
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("IDEMPOTENCY_KEYS_EXPIRED deleted={} cached={}", deleted, entries.size());
+        }
+    }
+
+    private TransactionResponse executeOnce(String key,
+                                            String scope,
+                                            String operation,
+                                            String requestHash,
+                                            Supplier<TransactionResponse> action) {
+        try {
+            return accountBalanceService.execute(() -> {
+                if (idempotencyRecordRepository.claim(scope, operation, requestHash, LocalDateTime.now()) == 0) {
+                    throw new AlreadyExecuted();
+                }
+                TransactionResponse response = action.get();
+                idempotencyRecordRepository.complete(scope, jsonMapper.writeValueAsString(response));
+                return response;
+            });
+        } catch (AlreadyExecuted e) {
+            // executed before this node's cache knew about it (other node, restart, eviction)
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(scope).orElseThrow();
+            if (!stored.getRequestHash().equals(requestHash)) {
+                throw new IdempotencyKeyMismatchException(key);
+            }
+            replays.increment();
+            log.info("IDEMPOTENT_REPLAY source=db operation={} key={}", operation, key);
+            return jsonMapper.readValue(stored.getResponse(), TransactionResponse.class);
+        }
+    }
+
+    private TransactionResponse replay(String key, Entry entry, String requestHash) {
+        if (!entry.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+        try {
+            TransactionResponse response = entry.result().join();
+            replays.increment();
+            log.info("IDEMPOTENT_REPLAY source=memory key={}", key);
+            return response;
+        } catch (CompletionException e) {
+            // the attempt we waited for failed, report the same error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // the map is only a fast path, anything dropped from it is still answered from the db
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> e.getValue().isExpired());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (entries.size() <= maxEntries) {
+                break;
+            }
+            if (e.getValue().result().isDone()) {
+                entries.remove(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    private static String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String canonical = operation + ":" + canonical(request);
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // request records with their components sorted by name and amounts normalized
+    private static String canonical(Object value) {
+        if (value instanceof BigDecimal amount) {
+            return amount.stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(IdempotencyService::canonical).toList().toString();
+        }
+        if (value instanceof Record record) {
+            Map<String, String> fields = new TreeMap<>();
+            for (RecordComponent component : record.getClass().getRecordComponents()) {
+                try {
+                    fields.put(component.getName(), canonical(component.getAccessor().invoke(record)));
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Cannot read " + component.getName() + " of " + record.getClass(), e);
+                }
+            }
+            return fields.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private record Entry(String requestHash, CompletableFuture<TransactionResponse> result, long expiresAtNanos) {
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+
+    private static final class AlreadyExecuted extends RuntimeException {
+        AlreadyExecuted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.company.bank_system.service;
+
+// mod 10 check digit of account and card numbers
+public final class Luhn {
+
+    private Luhn() {
+    }
+
+    // digit to append to payload
+    public static int checkDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true; // the rightmost payload digit is doubled once the check digit is appended
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(CharSequence number) {
+        if (number.length() < 2) {
+            return false;
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (!Character.isDigit(number.charAt(i))) {
+                return false;
+            }
+        }
+        return checkDigit(number.subSequence(0, number.length() - 1)) == number.charAt(number.length() - 1) - '0';
+    }
+}
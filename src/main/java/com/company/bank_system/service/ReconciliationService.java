@@ -0,0 +1,250 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountDrift;
+import com.company.bank_system.dto.ReconciliationReport;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks that every account balance equals the net of its transactions.
+ * <p>
+ * The account id space is split into ranges of range-size ids on a fork-join pool. Each range runs one
+ * grouped query in a read-only REPEATABLE READ transaction, so balances and transactions come from the same
+ * snapshot and postings running meanwhile never show up as drift. The query returns only the drifted
+ * accounts of the range. Debits count from the moment money is held (PENDING, UNDER_REVIEW),
+ * credits once COMPLETED; FAILED transfers were refunded and count on neither side. Transactions moved to the
+ * archive by {@link TransactionPartitionService} count through their per-account net in archived_account_totals.
+ * <p>
+ * With the ledger engine the db lags the journal, so drift of recently posted accounts is expected there.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private static final String ID_BOUNDS = "SELECT MIN(id), MAX(id) FROM accounts";
+
+    private static final String DRIFTED_ACCOUNTS = """
+            WITH movements AS (
+                SELECT from_account_id AS account_id, -amount AS delta
+                FROM transactions
+                WHERE from_account_id BETWEEN ? AND ? AND status IN ('COMPLETED', 'PENDING', 'UNDER_REVIEW')
+                UNION ALL
+                SELECT to_account_id, COALESCE(credited_amount, amount)
+                FROM transactions
+                WHERE to_account_id BETWEEN ? AND ? AND status = 'COMPLETED'
+                UNION ALL
+                SELECT account_id, net
+                FROM archived_account_totals
+                WHERE account_id BETWEEN ? AND ?
+            ), net AS (
+                SELECT account_id, SUM(delta) AS expected FROM movements GROUP BY account_id
+            ), stored AS (
+                SELECT a.id, a.balance + COALESCE(SUM(s.balance), 0) AS balance
+                FROM accounts a LEFT JOIN account_balance_slots s ON s.account_id = a.id
+                WHERE a.id BETWEEN ? AND ?
+                GROUP BY a.id, a.balance
+            )
+            SELECT stored.id, stored.balance, COALESCE(net.expected, 0) AS expected
+            FROM stored LEFT JOIN net ON net.account_id = stored.id
+            WHERE stored.balance <> COALESCE(net.expected, 0)
+            """;
+
+    private static final String ACCOUNTS_IN_RANGE = "SELECT COUNT(*) FROM accounts WHERE id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int parallelism;
+    private final long rangeSize;
+    private final int maxReported;
+
+    private final AtomicLong runIds = new AtomicLong();
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public ReconciliationService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${bank.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${bank.reconciliation.range-size:10000}") long rangeSize,
+                                 @Value("${bank.reconciliation.max-reported:1000}") int maxReported) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.maxReported = maxReported;
+    }
+
+    @Scheduled(cron = "${bank.reconciliation.cron:-}")
+    public void scheduled() {
+        try {
+            start();
+        } catch (InvalidOperationException e) {
+            log.warn("RECONCILIATION_SKIPPED reason={}", e.getMessage());
+        }
+    }
+
+    // runs in the background, follow it with report()
+    public ReconciliationReport start() {
+        Run run = begin();
+        Thread.ofPlatform().name("reconciliation-" + run.id).start(() -> execute(run));
+        return run.report();
+    }
+
+    // runs in the calling thread
+    public ReconciliationReport run() {
+        Run run = begin();
+        execute(run);
+        return run.report();
+    }
+
+    public ReconciliationReport report() {
+        Run run = current.get();
+        if (run == null) {
+            throw new InvalidOperationException("No reconciliation has run yet");
+        }
+        return run.report();
+    }
+
+    private Run begin() {
+        Run run = new Run(runIds.incrementAndGet());
+        Run previous = current.get();
+        if ((previous != null && previous.isRunning()) || !current.compareAndSet(previous, run)) {
+            throw new InvalidOperationException("Reconciliation already running");
+        }
+        return run;
+    }
+
+    private void execute(Run run) {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(ID_BOUNDS);
+            Number min = (Number) bounds.get("min");
+            Number max = (Number) bounds.get("max");
+            if (min != null) {
+                run.rangesTotal = (max.longValue() - min.longValue()) / rangeSize + 1;
+                log.info("RECONCILIATION_STARTED runId={} minId={} maxId={} ranges={} parallelism={}",
+                        run.id, min, max, run.rangesTotal, parallelism);
+                pool.invoke(new RangeTask(run, min.longValue(), max.longValue()));
+            }
+            run.finish("COMPLETED", null);
+            log.info("RECONCILIATION_COMPLETED runId={} accounts={} drifts={} timeMs={}",
+                    run.id, run.accountsChecked.sum(), run.driftCount.sum(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            run.finish("FAILED", e.getMessage());
+            log.error("RECONCILIATION_FAILED runId={} error={}", run.id, e.getMessage(), e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void reconcileRange(Run run, long fromId, long toId) {
+        snapshotTemplate.executeWithoutResult(status -> {
+            Long accounts = jdbcTemplate.queryForObject(ACCOUNTS_IN_RANGE, Long.class, fromId, toId);
+            jdbcTemplate.query(DRIFTED_ACCOUNTS, rs -> {
+                AccountDrift drift = new AccountDrift(
+                        rs.getLong("id"),
+                        rs.getBigDecimal("balance"),
+                        rs.getBigDecimal("expected"),
+                        rs.getBigDecimal("balance").subtract(rs.getBigDecimal("expected"))
+                );
+                log.warn("RECONCILIATION_DRIFT runId={} accountId={} balance={} expected={} drift={}",
+                        run.id, drift.accountId(), drift.balance(), drift.expected(), drift.drift());
+                run.addDrift(drift);
+            }, fromId, toId, fromId, toId, fromId, toId, fromId, toId);
+            run.accountsChecked.add(accounts != null ? accounts : 0);
+        });
+        run.rangesDone.increment();
+    }
+
+    // halves the id range until it is one range-size slice
+    private final class RangeTask extends RecursiveAction {
+        private final Run run;
+        private final long fromId;
+        private final long toId;
+
+        RangeTask(Run run, long fromId, long toId) {
+            this.run = run;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected void compute() {
+            long slices = (toId - fromId) / rangeSize + 1;
+            if (slices <= 1) {
+                reconcileRange(run, fromId, toId);
+                return;
+            }
+            long middle = fromId + (slices / 2) * rangeSize;
+            invokeAll(new RangeTask(run, fromId, middle - 1), new RangeTask(run, middle, toId));
+        }
+    }
+
+    private final class Run {
+        private final long id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LongAdder rangesDone = new LongAdder();
+        private final LongAdder accountsChecked = new LongAdder();
+        private final LongAdder driftCount = new LongAdder();
+        private final List<AccountDrift> drifts = Collections.synchronizedList(new ArrayList<>());
+        private volatile long rangesTotal;
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        Run(long id) {
+            this.id = id;
+        }
+
+        boolean isRunning() {
+            return "RUNNING".equals(status);
+        }
+
+        void addDrift(AccountDrift drift) {
+            driftCount.increment();
+            synchronized (drifts) {
+                if (drifts.size() < maxReported) {
+                    drifts.add(drift);
+                }
+            }
+        }
+
+        void finish(String status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        ReconciliationReport report() {
+            long total = rangesTotal;
+            long done = rangesDone.sum();
+            double progress = total == 0 ? (isRunning() ? 0 : 100) : Math.round(done * 1000.0 / total) / 10.0;
+            List<AccountDrift> reported;
+            synchronized (drifts) {
+                reported = List.copyOf(drifts);
+            }
+            return new ReconciliationReport(id, status, startedAt, finishedAt, total, done, progress,
+                    accountsChecked.sum(), driftCount.sum(), reported, error);
+        }
+    }
+}
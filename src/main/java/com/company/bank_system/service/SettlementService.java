@@ -0,0 +1,191 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountUpdateEvent;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.events.AccountEventBus;
+import com.company.bank_system.outbox.OutboxWriter;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.TransactionRepository.PendingTransfer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Settles transfers accepted by {@link TransactionService#transferAsync}.
+ * <p>
+ * The source was already debited when the transfer was accepted. Each worker claims up to batch-size
+ * PENDING rows with FOR UPDATE SKIP LOCKED (workers never wait for each other), sums the credits per
+ * destination account, applies them in ascending account id order and flips the statuses with two
+ * bulk updates - one transaction per micro-batch. A transfer to an account that is no longer ACTIVE
+ * is refunded to its source and marked FAILED.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "bank.settlement.enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementService {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceService accountBalanceService;
+    private final OutboxWriter outboxWriter;
+    private final AccountEventBus accountEventBus;
+    private final int workers;
+    private final int batchSize;
+    private final long idleSleepMs;
+
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ExecutorService pool;
+    private volatile boolean running = true;
+
+    public SettlementService(TransactionRepository transactionRepository,
+                             AccountRepository accountRepository,
+                             AccountBalanceService accountBalanceService,
+                             OutboxWriter outboxWriter,
+                             AccountEventBus accountEventBus,
+                             @Value("${bank.settlement.workers:4}") int workers,
+                             @Value("${bank.settlement.batch-size:500}") int batchSize,
+                             @Value("${bank.settlement.idle-sleep-ms:100}") long idleSleepMs) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.outboxWriter = outboxWriter;
+        this.accountEventBus = accountEventBus;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.idleSleepMs = idleSleepMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        pool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("settlement-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            pool.submit(this::work);
+        }
+        log.info("SETTLEMENT_STARTED workers={} batchSize={}", workers, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        log.info("SETTLEMENT_STOPPED settled={} failed={}", settled.sum(), failed.sum());
+    }
+
+    /**
+     * Settles one micro-batch in one transaction.
+     *
+     * @return number of transactions settled (completed or failed), 0 when nothing is pending
+     */
+    public int settleBatch() {
+        int[] outcome = new int[2]; // completed, failed - of the attempt that committed
+        int count = accountBalanceService.execute(() -> {
+            List<PendingTransfer> batch = transactionRepository.claimPending(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            Set<Long> accountIds = new HashSet<>();
+            batch.forEach(t -> {
+                accountIds.add(t.getFromAccountId());
+                accountIds.add(t.getToAccountId());
+            });
+            Map<Long, Account> accounts = accountRepository.findAllById(accountIds).stream()
+                    .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+            Map<Long, BigDecimal> credits = new TreeMap<>(); // ascending id = lock order of transfers
+            List<Long> completed = new ArrayList<>(batch.size());
+            List<Long> rejected = new ArrayList<>();
+            for (PendingTransfer transfer : batch) {
+                Account to = accounts.get(transfer.getToAccountId());
+                if (to != null && to.getStatus() == AccountStatus.ACTIVE) {
+                    credits.merge(to.getId(), transfer.getCreditedAmount(), BigDecimal::add);
+                    completed.add(transfer.getId());
+                } else {
+                    credits.merge(transfer.getFromAccountId(), transfer.getAmount(), BigDecimal::add);
+                    rejected.add(transfer.getId());
+                }
+            }
+
+            for (Map.Entry<Long, BigDecimal> credit : credits.entrySet()) {
+                Account account = accounts.get(credit.getKey());
+                accountBalanceService.lockForUpdate(account);
+                BigDecimal balance = accountBalanceService.credit(account, credit.getValue());
+                accountEventBus.publishAfterCommit(account.getUser().getId(), new AccountUpdateEvent(account.getId(), balance, null));
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            if (!completed.isEmpty()) {
+                transactionRepository.updateStatus(completed, TransactionStatus.COMPLETED, now);
+                outboxWriter.transactionsSettled(completed, TransactionStatus.COMPLETED);
+            }
+            if (!rejected.isEmpty()) {
+                transactionRepository.updateStatus(rejected, TransactionStatus.FAILED, now);
+                outboxWriter.transactionsSettled(rejected, TransactionStatus.FAILED);
+                log.warn("SETTLEMENT_REJECTED count={} transactionIds={}", rejected.size(), rejected);
+            }
+
+            outcome[0] = completed.size();
+            outcome[1] = rejected.size();
+            log.debug("SETTLEMENT_BATCH completed={} failed={} accounts={}", completed.size(), rejected.size(), credits.size());
+            return batch.size();
+        });
+
+        settled.add(outcome[0]);
+        failed.add(outcome[1]);
+        return count;
+    }
+
+    public long getSettledCount() {
+        return settled.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (settleBatch() < batchSize) {
+                    Thread.sleep(idleSleepMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // batch rolled back, its rows are PENDING again and will be picked up by the next poll
+                log.error("SETTLEMENT_BATCH_FAILED error={}", e.getMessage(), e);
+                try {
+                    Thread.sleep(idleSleepMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
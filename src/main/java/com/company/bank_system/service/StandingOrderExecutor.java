@@ -0,0 +1,294 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs due standing orders through {@link TransactionService#transferPreAuthorized}.
+ * <p>
+ * Each worker claims up to chunk-size due orders with FOR UPDATE SKIP LOCKED and stamps them with a lease
+ * (locked_until), so workers on this and other nodes take disjoint chunks and a chunk of a crashed node
+ * is picked up again after the lease. Every order then runs in its own transaction: the transfer and the
+ * move of next_run_at commit together, and the move is conditional on the claimed next_run_at, so a run is
+ * never executed twice even if a lease expires mid-chunk. A failed run is retried with exponential backoff;
+ * after max-attempts it is skipped and the error stays on the order.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "bank.standing-orders.enabled", havingValue = "true", matchIfMissing = true)
+public class StandingOrderExecutor {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String CLAIM = "UPDATE standing_orders SET locked_until = ? WHERE id IN (" +
+            "SELECT id FROM standing_orders WHERE status = 'ACTIVE' AND next_attempt_at <= ? " +
+            "AND (locked_until IS NULL OR locked_until < ?) " +
+            "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, from_account_id, to_account_number, amount, description, frequency, start_at, end_at, " +
+            "run_count, next_run_at, failure_count";
+
+    // run done (or given up): next run, guarded by the claimed due time
+    private static final String ADVANCE = "UPDATE standing_orders SET run_count = run_count + 1, next_run_at = ?, " +
+            "next_attempt_at = ?, status = ?, last_run_at = ?, failure_count = 0, last_error = ?, locked_until = NULL, " +
+            "updated_at = ? WHERE id = ? AND next_run_at = ? AND status = 'ACTIVE'";
+
+    private static final String RETRY_LATER = "UPDATE standing_orders SET failure_count = failure_count + 1, " +
+            "last_error = ?, next_attempt_at = ?, locked_until = NULL, updated_at = ? " +
+            "WHERE id = ? AND next_run_at = ? AND status = 'ACTIVE'";
+
+    private static final RowMapper<DueOrder> ROW_MAPPER = (rs, rowNum) -> new DueOrder(
+            rs.getLong("id"),
+            rs.getLong("from_account_id"),
+            rs.getString("to_account_number"),
+            rs.getBigDecimal("amount"),
+            rs.getString("description"),
+            StandingOrderFrequency.valueOf(rs.getString("frequency")),
+            rs.getTimestamp("start_at").toLocalDateTime(),
+            rs.getTimestamp("end_at") != null ? rs.getTimestamp("end_at").toLocalDateTime() : null,
+            rs.getInt("run_count"),
+            rs.getTimestamp("next_run_at").toLocalDateTime(),
+            rs.getInt("failure_count")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionService transactionService;
+    private final AccountBalanceService accountBalanceService;
+    private final int workers;
+    private final int chunkSize;
+    private final Duration lease;
+    private final long idleSleepMs;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+
+    private ExecutorService pool;
+    private volatile boolean running = true;
+    private long reportedExecutions;
+    private long reportedAtNanos = System.nanoTime();
+
+    public StandingOrderExecutor(JdbcTemplate jdbcTemplate,
+                                 TransactionService transactionService,
+                                 AccountBalanceService accountBalanceService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bank.standing-orders.workers:4}") int workers,
+                                 @Value("${bank.standing-orders.chunk-size:200}") int chunkSize,
+                                 @Value("${bank.standing-orders.lease:5m}") Duration lease,
+                                 @Value("${bank.standing-orders.idle-sleep-ms:1000}") long idleSleepMs,
+                                 @Value("${bank.standing-orders.max-attempts:3}") int maxAttempts,
+                                 @Value("${bank.standing-orders.retry-delay:10m}") Duration retryDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionService = transactionService;
+        this.accountBalanceService = accountBalanceService;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.idleSleepMs = idleSleepMs;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.completedCounter = Counter.builder("bank.standing_orders.executions").tag("outcome", "completed").register(meterRegistry);
+        this.failedCounter = Counter.builder("bank.standing_orders.executions").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        pool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("standing-orders-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            pool.submit(this::work);
+        }
+        log.info("STANDING_ORDERS_STARTED workers={} chunkSize={}", workers, chunkSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        log.info("STANDING_ORDERS_STOPPED completed={} failed={}", completed.sum(), failed.sum());
+    }
+
+    /**
+     * Claims one chunk of due orders and runs it.
+     *
+     * @return number of orders claimed
+     */
+    public int runChunk() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DueOrder> chunk = jdbcTemplate.query(CLAIM, ROW_MAPPER,
+                Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), Timestamp.valueOf(now), chunkSize);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int ok = 0;
+        for (DueOrder order : chunk) {
+            if (execute(order)) {
+                ok++;
+            }
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+
+        log.info("STANDING_ORDERS_CHUNK claimed={} completed={} failed={} perSecond={}",
+                chunk.size(), ok, chunk.size() - ok, chunk.size() * 1_000_000_000L / elapsedNanos);
+        return chunk.size();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${bank.standing-orders.report-interval-ms:60000}")
+    public synchronized void reportThroughput() {
+        long executions = completed.sum() + failed.sum();
+        long now = System.nanoTime();
+        long delta = executions - reportedExecutions;
+        if (delta > 0) {
+            double seconds = (now - reportedAtNanos) / 1e9;
+            log.info("STANDING_ORDERS_THROUGHPUT executions={} perSecond={}", delta, Math.round(delta / seconds));
+        }
+        reportedExecutions = executions;
+        reportedAtNanos = now;
+    }
+
+    private boolean execute(DueOrder order) {
+        Next next = next(order);
+        try {
+            TransactionResponse transaction = accountBalanceService.execute(() -> {
+                LocalDateTime now = LocalDateTime.now();
+                int advanced = jdbcTemplate.update(ADVANCE,
+                        Timestamp.valueOf(next.runAt()), Timestamp.valueOf(next.runAt()), next.status(StandingOrderStatus.COMPLETED).name(),
+                        Timestamp.valueOf(now), null, Timestamp.valueOf(now), order.id(), Timestamp.valueOf(order.nextRunAt()));
+                if (advanced == 0) {
+                    return null; // cancelled, or this run was done by another executor after our lease expired
+                }
+                return transactionService.transferPreAuthorized(new TransferRequest(
+                        order.fromAccountId(), order.toAccountNumber(), order.amount(), order.description()));
+            });
+
+            if (transaction == null) {
+                log.info("STANDING_ORDER_SKIPPED standingOrderId={} dueAt={}", order.id(), order.nextRunAt());
+                return true;
+            }
+            completed.increment();
+            completedCounter.increment();
+            log.debug("STANDING_ORDER_EXECUTED standingOrderId={} transactionId={} dueAt={}",
+                    order.id(), transaction.id(), order.nextRunAt());
+            return true;
+        } catch (RuntimeException e) {
+            failed.increment();
+            failedCounter.increment();
+            recordFailure(order, next, e);
+            return false;
+        }
+    }
+
+    private void recordFailure(DueOrder order, Next next, RuntimeException e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int attempt = order.failureCount() + 1;
+
+        try {
+            if (attempt < maxAttempts) {
+                LocalDateTime retryAt = now.plus(retryDelay.multipliedBy(1L << (attempt - 1)));
+                jdbcTemplate.update(RETRY_LATER, error, Timestamp.valueOf(retryAt), Timestamp.valueOf(now),
+                        order.id(), Timestamp.valueOf(order.nextRunAt()));
+                log.warn("STANDING_ORDER_FAILED standingOrderId={} dueAt={} attempt={} retryAt={} error={}",
+                        order.id(), order.nextRunAt(), attempt, retryAt, error);
+            } else {
+                jdbcTemplate.update(ADVANCE,
+                        Timestamp.valueOf(next.runAt()), Timestamp.valueOf(next.runAt()), next.status(StandingOrderStatus.FAILED).name(),
+                        Timestamp.valueOf(now), error, Timestamp.valueOf(now), order.id(), Timestamp.valueOf(order.nextRunAt()));
+                log.error("STANDING_ORDER_RUN_ABANDONED standingOrderId={} dueAt={} attempts={} nextRunAt={} error={}",
+                        order.id(), order.nextRunAt(), attempt, next.last() ? null : next.runAt(), error);
+            }
+        } catch (RuntimeException recordError) {
+            // the lease runs out and the run is attempted again
+            log.error("STANDING_ORDER_FAILURE_NOT_RECORDED standingOrderId={} error={}", order.id(), recordError.getMessage());
+        }
+    }
+
+    private Next next(DueOrder order) {
+        LocalDateTime runAt = order.frequency().occurrence(order.startAt(), order.runCount() + 1);
+        if (runAt == null || (order.endAt() != null && runAt.isAfter(order.endAt()))) {
+            return new Next(order.nextRunAt(), true);
+        }
+        return new Next(runAt, false);
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (runChunk() < chunkSize) {
+                    Thread.sleep(idleSleepMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("STANDING_ORDERS_CLAIM_FAILED error={}", e.getMessage(), e);
+                try {
+                    Thread.sleep(idleSleepMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private record DueOrder(
+            long id,
+            long fromAccountId,
+            String toAccountNumber,
+            BigDecimal amount,
+            String description,
+            StandingOrderFrequency frequency,
+            LocalDateTime startAt,
+            LocalDateTime endAt,
+            int runCount,
+            LocalDateTime nextRunAt,
+            int failureCount
+    ) {
+    }
+
+    // last: the current run is the final one, the order leaves ACTIVE once it is done
+    private record Next(LocalDateTime runAt, boolean last) {
+        StandingOrderStatus status(StandingOrderStatus whenLast) {
+            return last ? whenLast : StandingOrderStatus.ACTIVE;
+        }
+    }
+}
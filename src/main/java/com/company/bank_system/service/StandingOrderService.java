@@ -0,0 +1,134 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountRoute;
+import com.company.bank_system.dto.CreateStandingOrderRequest;
+import com.company.bank_system.dto.StandingOrderResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.StandingOrder;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+import com.company.bank_system.exception.Exceptions.AccessDeniedException;
+import com.company.bank_system.exception.Exceptions.InvalidAmountException;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.exception.Exceptions.StandingOrderNotFoundException;
+import com.company.bank_system.repo.StandingOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class StandingOrderService {
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountService accountService;
+    private final CurrentUserService currentUserService;
+
+    public StandingOrderService(StandingOrderRepository standingOrderRepository,
+                                AccountService accountService,
+                                CurrentUserService currentUserService) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountService = accountService;
+        this.currentUserService = currentUserService;
+    }
+
+    public StandingOrderResponse create(CreateStandingOrderRequest request) {
+        Account fromAccount = accountService.getAccountEntityById(request.fromAccountId());
+        AccountRoute toAccount = accountService.getAccountRoute(request.toAccountNumber());
+
+        if (fromAccount.getId().equals(toAccount.id())) {
+            log.error("STANDING_ORDER_SAME_ACCOUNT accountId={}", fromAccount.getId());
+            throw new InvalidAmountException("Cannot transfer to the same account");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startAt = request.startAt() != null ? request.startAt() : now;
+        if (request.endAt() != null && request.endAt().isBefore(startAt)) {
+            throw new InvalidOperationException("endAt must not be before startAt");
+        }
+
+        StandingOrder order = new StandingOrder();
+        order.setFromAccount(fromAccount);
+        order.setToAccountNumber(toAccount.accountNumber());
+        order.setAmount(request.amount());
+        order.setDescription(request.description());
+        order.setFrequency(request.frequency());
+        order.setStartAt(startAt);
+        order.setEndAt(request.endAt());
+        order.setNextRunAt(startAt);
+        order.setNextAttemptAt(startAt);
+        order.setStatus(StandingOrderStatus.ACTIVE);
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+
+        StandingOrder saved = standingOrderRepository.save(order);
+
+        log.info("STANDING_ORDER_CREATED standingOrderId={} fromAccountId={} frequency={} startAt={} amount={}",
+                saved.getId(),
+                fromAccount.getId(),
+                saved.getFrequency(),
+                startAt,
+                saved.getAmount()
+        );
+
+        return mapToResponse(saved);
+    }
+
+    public List<StandingOrderResponse> getMyStandingOrders() {
+        User currentUser = currentUserService.getCurrentUser();
+        return standingOrderRepository.findByFromAccountUserIdOrderById(currentUser.getId()).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    public StandingOrderResponse getStandingOrder(Long standingOrderId) {
+        return mapToResponse(getOwnStandingOrder(standingOrderId));
+    }
+
+    // an execution already running finishes, nothing is claimed after the commit
+    @Transactional
+    public StandingOrderResponse cancel(Long standingOrderId) {
+        getOwnStandingOrder(standingOrderId);
+        if (standingOrderRepository.cancel(standingOrderId, LocalDateTime.now()) > 0) {
+            log.info("STANDING_ORDER_CANCELLED standingOrderId={}", standingOrderId);
+        }
+        return mapToResponse(standingOrderRepository.findById(standingOrderId).orElseThrow());
+    }
+
+    private StandingOrder getOwnStandingOrder(Long standingOrderId) {
+        StandingOrder order = standingOrderRepository.findWithFromAccountById(standingOrderId)
+                .orElseThrow(() -> {
+                    log.warn("STANDING_ORDER_NOT_FOUND standingOrderId={}", standingOrderId);
+                    return new StandingOrderNotFoundException(standingOrderId);
+                });
+
+        Long userId = currentUserService.getCurrentUser().getId();
+        if (!order.getFromAccount().getUser().getId().equals(userId)) {
+            log.error("ACCESS_DENIED userId={} standingOrderId={}", userId, standingOrderId);
+            throw new AccessDeniedException("Access denied to standing order " + standingOrderId);
+        }
+        return order;
+    }
+
+    private StandingOrderResponse mapToResponse(StandingOrder order) {
+        return new StandingOrderResponse(
+                order.getId(),
+                order.getFromAccount().getId(),
+                order.getToAccountNumber(),
+                order.getAmount(),
+                order.getDescription(),
+                order.getFrequency(),
+                order.getStartAt(),
+                order.getEndAt(),
+                order.getStatus(),
+                order.getRunCount(),
+                order.getNextRunAt(),
+                order.getLastRunAt(),
+                order.getFailureCount(),
+                order.getLastError()
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.repo.TransactionHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Account statements of any size: rows go from the db cursor straight to the response,
+ * memory use does not depend on the number of rows.
+ */
+@Service
+@Slf4j
+public class StatementExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER =
+            "id,created_at,transaction_type,status,from_account_id,to_account_id,amount,currency," +
+                    "fx_rate,credited_amount,credited_currency,description\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final AccountService accountService;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonMapper jsonMapper;
+
+    public StatementExportService(AccountService accountService,
+                                  TransactionHistoryRepository transactionHistoryRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  JsonMapper jsonMapper) {
+        this.accountService = accountService;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Checks access on the calling thread, the body itself is written later on an async request thread.
+     */
+    public StreamingResponseBody export(Long accountId,
+                                        LocalDateTime from,
+                                        LocalDateTime to,
+                                        Format format,
+                                        boolean gzip) {
+        accountService.getAccountEntityById(accountId);
+
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            write(accountId, from, to, format, target);
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+    }
+
+    /**
+     * Writes the statement and returns the number of rows. Does not close the stream.
+     */
+    public long write(Long accountId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        log.info("STATEMENT_EXPORT_START accountId={} format={}", accountId, format);
+        long start = System.nanoTime();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> transactionHistoryRepository.streamStatement(
+                    accountId,
+                    from != null ? from : MIN_TIME,
+                    to != null ? to : MAX_TIME,
+                    row -> {
+                        try {
+                            if (format == Format.CSV) {
+                                writeCsv(writer, row);
+                            } else {
+                                writer.write(jsonMapper.writeValueAsString(row));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    }
+            ));
+        } catch (UncheckedIOException e) {
+            // client went away, the cursor is already closed by the rollback
+            log.warn("STATEMENT_EXPORT_ABORTED accountId={} rows={} error={}", accountId, rows[0], e.getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("STATEMENT_EXPORT_SUCCESS accountId={} format={} rows={} timeMs={}",
+                accountId, format, rows[0], (System.nanoTime() - start) / 1_000_000
+        );
+        return rows[0];
+    }
+
+    private void writeCsv(Writer writer, TransactionResponse row) throws IOException {
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(row.createdAt().toString());
+        writer.write(',');
+        writer.write(row.transactionType().name());
+        writer.write(',');
+        writer.write(row.status().name());
+        writer.write(',');
+        writer.write(row.fromAccountId() != null ? row.fromAccountId().toString() : "");
+        writer.write(',');
+        writer.write(row.toAccountId() != null ? row.toAccountId().toString() : "");
+        writer.write(',');
+        writer.write(row.amount().toPlainString());
+        writer.write(',');
+        writer.write(row.currency().name());
+        writer.write(',');
+        writer.write(row.fxRate() != null ? row.fxRate().toPlainString() : "");
+        writer.write(',');
+        writer.write(row.creditedAmount() != null ? row.creditedAmount().toPlainString() : "");
+        writer.write(',');
+        writer.write(row.creditedCurrency() != null ? row.creditedCurrency().name() : "");
+        writer.write(',');
+        writer.write(csvEscape(row.description()));
+        writer.write('\n');
+    }
+
+    private static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,96 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionHistoryResponse;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.repo.TransactionHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class TransactionHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final AccountService accountService;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+
+    public TransactionHistoryService(AccountService accountService,
+                                     TransactionHistoryRepository transactionHistoryRepository) {
+        this.accountService = accountService;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+    }
+
+    /**
+     * One page of the account history, newest first.
+     * Pass the returned nextCursor back to get the next page; filters must stay the same.
+     */
+    public TransactionHistoryResponse getHistory(Long accountId,
+                                                 LocalDateTime from,
+                                                 LocalDateTime to,
+                                                 TransactionType type,
+                                                 TransactionStatus status,
+                                                 String cursor,
+                                                 int limit) {
+        accountService.getAccountEntityById(accountId); // ownership check
+
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        Cursor position = cursor != null ? Cursor.decode(cursor) : new Cursor(MAX_TIME, Long.MAX_VALUE);
+        Set<TransactionType> types = type != null ? EnumSet.of(type) : EnumSet.allOf(TransactionType.class);
+        Set<TransactionStatus> statuses = status != null ? EnumSet.of(status) : EnumSet.allOf(TransactionStatus.class);
+
+        // one extra row tells whether there is a next page
+        List<TransactionResponse> rows = transactionHistoryRepository.findPage(accountId,
+                from != null ? from : MIN_TIME,
+                to != null ? to : MAX_TIME,
+                types,
+                statuses,
+                position.createdAt(),
+                position.id(),
+                pageSize + 1
+        );
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            TransactionResponse last = rows.getLast();
+            nextCursor = new Cursor(last.createdAt(), last.id()).encode();
+        }
+
+        log.debug("GET_TRANSACTION_HISTORY accountId={} count={} hasNext={}", accountId, rows.size(), nextCursor != null);
+
+        return new TransactionHistoryResponse(rows, nextCursor);
+    }
+
+    // opaque for clients: base64url("createdAt|id")
+    private record Cursor(LocalDateTime createdAt, long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.company.bank_system.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Transaction ids for rows inserted with plain JDBC, taken from transactions_seq the way hibernate's
+ * pooled-lo optimizer does it: every nextval reserves ID_BLOCK ids, so entity and JDBC inserts never collide.
+ */
+@Component
+public class TransactionIdAllocator {
+
+    private static final String NEXT_TRANSACTION_ID_BLOCKS = "SELECT nextval('transactions_seq') FROM generate_series(1, ?)";
+    private static final int ID_BLOCK = 50; // increment of transactions_seq
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long[] allocate(int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+        List<Long> blocks = jdbcTemplate.queryForList(NEXT_TRANSACTION_ID_BLOCKS, Long.class, (count + ID_BLOCK - 1) / ID_BLOCK);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blocks.get(i / ID_BLOCK) + i % ID_BLOCK;
+        }
+        return ids;
+    }
+}
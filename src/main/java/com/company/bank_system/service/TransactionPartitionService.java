@@ -0,0 +1,211 @@
+package com.company.bank_system.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the transactions table (see V8 migration).
+ * <p>
+ * Partitions are created months-ahead in advance, so new rows never fall into transactions_default.
+ * Rows that landed there anyway (backdated postings, or the app was down past the last created month) would
+ * make postgres refuse the new partition, so they are moved into it in the same transaction.
+ * <p>
+ * Metrics: bank.partitions.missing (months from now to months-ahead without a partition, should be 0),
+ * bank.partitions.create.failed (failed attempts), bank.partitions.default.rows (rows in transactions_default).
+ * Partitions older than retention-months are detached and moved to the transactions_archive schema:
+ * they leave every query, vacuum and index of the live table, but stay readable (and can be dumped or
+ * dropped) without copying a row. The net of every account in an archived partition is added to
+ * archived_account_totals in the same transaction, which is what reconciliation counts them by.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "bank.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionPartitionService {
+
+    private static final String PARENT = "transactions";
+    private static final String DEFAULT_PARTITION = "transactions_default";
+    private static final Pattern MONTHLY = Pattern.compile("transactions_(\\d{4})_(\\d{2})");
+
+    // same rules as ReconciliationService: debits once money is held, credits once completed
+    private static final String CARRY_FORWARD = """
+            INSERT INTO archived_account_totals (account_id, net, updated_at)
+            SELECT account_id, SUM(delta), now() FROM (
+                SELECT from_account_id AS account_id, -amount AS delta
+                FROM %1$s
+                WHERE from_account_id IS NOT NULL AND status IN ('COMPLETED', 'PENDING', 'UNDER_REVIEW')
+                UNION ALL
+                SELECT to_account_id, COALESCE(credited_amount, amount)
+                FROM %1$s
+                WHERE to_account_id IS NOT NULL AND status = 'COMPLETED'
+            ) movements
+            GROUP BY account_id
+            ON CONFLICT (account_id) DO UPDATE SET net = archived_account_totals.net + EXCLUDED.net,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String STRAYS_IN_RANGE = "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION +
+            " WHERE created_at >= ? AND created_at < ?)";
+
+    private static final String PARTITIONS = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'transactions'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String archiveSchema;
+
+    private final AtomicInteger missingMonths = new AtomicInteger();
+    private final AtomicInteger defaultRows = new AtomicInteger();
+    private final Counter createFailures;
+
+    public TransactionPartitionService(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${bank.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${bank.partitions.retention-months:24}") int retentionMonths,
+                                       @Value("${bank.partitions.archive-schema:transactions_archive}") String archiveSchema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+
+        this.createFailures = Counter.builder("bank.partitions.create.failed").register(meterRegistry);
+        Gauge.builder("bank.partitions.missing", missingMonths, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("bank.partitions.default.rows", defaultRows, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // before the first request, the app may have been down past the last pre-created month
+    @PostConstruct
+    public void init() {
+        createPartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead));
+        checkCoverage();
+    }
+
+    @Scheduled(cron = "${bank.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        createPartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead));
+        archiveBefore(YearMonth.now().minusMonths(retentionMonths));
+        checkCoverage();
+    }
+
+    /**
+     * Creates the missing monthly partitions in [from, to], both inclusive, taking over the rows of each month
+     * from the default partition.
+     *
+     * @return names of the created partitions
+     */
+    public List<String> createPartitions(YearMonth from, YearMonth to) {
+        TreeMap<YearMonth, String> existing = monthlyPartitions();
+        List<String> created = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (existing.containsKey(month)) {
+                continue;
+            }
+            String name = partitionName(month);
+            try {
+                int moved = transactionTemplate.execute(status -> createPartition(month, name));
+                created.add(name);
+                log.info("PARTITION_CREATED table={} movedFromDefault={}", name, moved);
+            } catch (DataAccessException e) {
+                createFailures.increment();
+                log.error("PARTITION_CREATE_FAILED table={} error={}", name, e.getMessage(), e);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Detaches every monthly partition older than the given month and moves it to the archive schema.
+     *
+     * @return names of the archived partitions
+     */
+    public List<String> archiveBefore(YearMonth cutoff) {
+        List<String> archived = new ArrayList<>();
+        for (String name : monthlyPartitions().headMap(cutoff).values()) {
+            // not CONCURRENTLY - postgres refuses it while a default partition exists
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(CARRY_FORWARD.formatted(name));
+                jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + name);
+                jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA " + archiveSchema);
+            });
+            archived.add(name);
+            log.info("PARTITION_ARCHIVED table={} schema={}", name, archiveSchema);
+        }
+        return archived;
+    }
+
+    // postgres refuses a partition whose range already has rows in the default one: park them, create, put back
+    private int createPartition(YearMonth month, String name) {
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        int moved = 0;
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(STRAYS_IN_RANGE, Boolean.class, from, to))) {
+            jdbcTemplate.execute("CREATE TEMP TABLE partition_strays (LIKE " + DEFAULT_PARTITION + ") ON COMMIT DROP");
+            moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO partition_strays SELECT * FROM moved", from, to);
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + PARENT +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        if (moved > 0) {
+            jdbcTemplate.update("INSERT INTO " + PARENT + " SELECT * FROM partition_strays");
+        }
+        return moved;
+    }
+
+    private void checkCoverage() {
+        TreeMap<YearMonth, String> existing = monthlyPartitions();
+        int missing = 0;
+        for (YearMonth month = YearMonth.now(); !month.isAfter(YearMonth.now().plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!existing.containsKey(month)) {
+                missing++;
+            }
+        }
+        missingMonths.set(missing);
+        if (missing > 0) {
+            log.error("PARTITIONS_MISSING months={} ahead={}", missing, monthsAhead);
+        }
+
+        Integer strays = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + DEFAULT_PARTITION, Integer.class);
+        defaultRows.set(strays != null ? strays : 0);
+        if (defaultRows.get() > 0) {
+            log.warn("PARTITION_DEFAULT_NOT_EMPTY table={} rows={}", DEFAULT_PARTITION, defaultRows.get());
+        }
+    }
+
+    public static String partitionName(YearMonth month) {
+        return "transactions_%04d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private TreeMap<YearMonth, String> monthlyPartitions() {
+        TreeMap<YearMonth, String> partitions = new TreeMap<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS, String.class)) {
+            Matcher matcher = MONTHLY.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))), name);
+            }
+        }
+        return partitions;
+    }
+}
@@ -2,21 +2,40 @@ package com.company.bank_system.service;
 
 import com.company.bank_system.dto.*;
 import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
 import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
 import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
 import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.events.AccountEventBus;
+import com.company.bank_system.exception.Exceptions.AccessDeniedException;
 import com.company.bank_system.exception.Exceptions.CurrencyMismatchException;
-import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
 import com.company.bank_system.exception.Exceptions.InvalidAmountException;
-import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.exception.Exceptions.InvalidOperationException;
+import com.company.bank_system.exception.Exceptions.TransactionBlockedException;
+import com.company.bank_system.exception.Exceptions.TransactionNotFoundException;
+import com.company.bank_system.fx.FxConversion;
+import com.company.bank_system.fx.FxRateService;
+import com.company.bank_system.ledger.LedgerEngine;
+import com.company.bank_system.ledger.LedgerPosting;
+import com.company.bank_system.limits.SpendingLimitService;
+import com.company.bank_system.limits.SpendingLimitService.Reservation;
+import com.company.bank_system.outbox.OutboxWriter;
+import com.company.bank_system.risk.RiskContext;
+import com.company.bank_system.risk.RiskDecision;
+import com.company.bank_system.risk.RiskScoringService;
 import com.company.bank_system.repo.TransactionRepository;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 
 @Service
@@ -24,17 +43,72 @@ import java.util.List;
 public class TransactionService {
 
     private final AccountService accountService;
-    private final AccountRepository accountRepository;
+    private final CurrentUserService currentUserService;
     private final TransactionRepository transactionRepository;
-
-    public TransactionService(AccountService accountService, AccountRepository accountRepository, TransactionRepository transactionRepository) {
+    private final AccountBalanceService accountBalanceService;
+    private final OutboxWriter outboxWriter;
+    private final FxRateService fxRateService;
+    private final SpendingLimitService spendingLimitService;
+    private final CardService cardService;
+    private final RiskScoringService riskScoringService;
+    private final AccountEventBus accountEventBus;
+    private final LedgerEngine ledgerEngine; // null unless bank.ledger.enabled
+
+    public TransactionService(AccountService accountService,
+                              CurrentUserService currentUserService,
+                              TransactionRepository transactionRepository,
+                              AccountBalanceService accountBalanceService,
+                              OutboxWriter outboxWriter,
+                              FxRateService fxRateService,
+                              SpendingLimitService spendingLimitService,
+                              CardService cardService,
+                              RiskScoringService riskScoringService,
+                              AccountEventBus accountEventBus,
+                              Optional<LedgerEngine> ledgerEngine) {
         this.accountService = accountService;
-        this.accountRepository = accountRepository;
+        this.currentUserService = currentUserService;
         this.transactionRepository = transactionRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.outboxWriter = outboxWriter;
+        this.fxRateService = fxRateService;
+        this.spendingLimitService = spendingLimitService;
+        this.cardService = cardService;
+        this.riskScoringService = riskScoringService;
+        this.accountEventBus = accountEventBus;
+        this.ledgerEngine = ledgerEngine.orElse(null);
     }
 
-    @Transactional
+    // with the ledger engine no db transaction is needed: reads only, the posting goes to the journal
     public TransactionResponse deposit(DepositRequest depositRequest) {
+        if (ledgerEngine != null) {
+            return doDeposit(depositRequest);
+        }
+        return accountBalanceService.execute(() -> doDeposit(depositRequest));
+    }
+
+    public TransactionResponse withdraw(WithdrawRequest withdrawRequest) {
+        if (ledgerEngine != null) {
+            return doWithdraw(withdrawRequest);
+        }
+        return accountBalanceService.execute(() -> doWithdraw(withdrawRequest));
+    }
+
+    public TransactionResponse transfer(TransferRequest transferRequest) throws CurrencyMismatchException {
+        if (ledgerEngine != null) {
+            return doTransfer(transferRequest, true);
+        }
+        return accountBalanceService.execute(() -> doTransfer(transferRequest, true));
+    }
+
+    // transfers the owner authorized in advance (standing orders) skip the risk checks
+    TransactionResponse transferPreAuthorized(TransferRequest transferRequest) {
+        if (ledgerEngine != null) {
+            return doTransfer(transferRequest, false);
+        }
+        return accountBalanceService.execute(() -> doTransfer(transferRequest, false));
+    }
+
+    private TransactionResponse doDeposit(DepositRequest depositRequest) {
         log.info("DEPOSIT_START accountId={} amount={}",
                 depositRequest.accountId(),
                 depositRequest.amount()
@@ -50,10 +124,13 @@ public class TransactionService {
             throw new InvalidAmountException("Deposit amount must be greater than 0");
         }
 
-        BigDecimal newBalance = account.getBalance().add(depositRequest.amount());
-        account.setBalance(newBalance);
-        account.setUpdatedAt(LocalDateTime.now());
-        accountRepository.save(account);
+        if (ledgerEngine != null) {
+            return postToLedger(Reservation.NONE, null, TransactionType.DEPOSIT, null, AccountRoute.of(account),
+                    depositRequest.amount(), account.getCurrency(), depositRequest.description());
+        }
+
+        accountBalanceService.lockForUpdate(account);
+        BigDecimal newBalance = accountBalanceService.credit(account, depositRequest.amount());
 
         Transaction transaction = new Transaction();
         transaction.setToAccount(account);
@@ -67,6 +144,9 @@ public class TransactionService {
         transaction.setCompletedAt(LocalDateTime.now());
 
         Transaction saved = transactionRepository.save(transaction);
+        TransactionResponse response = mapToResponse(saved);
+        outboxWriter.transactionCreated(response);
+        publishUpdate(account, newBalance, response);
 
         log.info("DEPOSIT_SUCCESS transactionId={} accountId={} amount={} newBalance={}",
                 saved.getId(),
@@ -75,11 +155,10 @@ public class TransactionService {
                 newBalance
         );
 
-        return mapToResponse(saved);
+        return response;
     }
 
-    @Transactional
-    public TransactionResponse withdraw(WithdrawRequest withdrawRequest) {
+    private TransactionResponse doWithdraw(WithdrawRequest withdrawRequest) {
         log.info("WITHDRAW_START accountId={} amount={}",
                 withdrawRequest.accountId(),
                 withdrawRequest.amount()
@@ -95,27 +174,29 @@ public class TransactionService {
             throw new InvalidAmountException("Withdrawal amount must be greater than 0");
         }
 
-        if (account.getBalance().compareTo(withdrawRequest.amount()) < 0) {
-            log.warn("WITHDRAW_INSUFFICIENT_FUNDS accountId={} requested={} available={}",
-                    account.getId(),
-                    withdrawRequest.amount(),
-                    account.getBalance()
-            );
-            throw new InsufficientFundsException(
-                    account.getId(),
-                    withdrawRequest.amount(),
-                    account.getBalance()
-            );
+        Card card = resolveCard(withdrawRequest.cardId(), account);
+        RiskContext riskContext = RiskContext.withdraw(account, withdrawRequest.amount());
+        RiskDecision risk = checkRisk(riskContext);
+        Reservation reservation = spendingLimitService.reserve(account, card, withdrawRequest.amount());
+
+        if (ledgerEngine != null) {
+            return postToLedger(reservation, riskContext, TransactionType.WITHDRAW, AccountRoute.of(account), null,
+                    withdrawRequest.amount(), account.getCurrency(), withdrawRequest.description());
         }
 
-        BigDecimal newBalance = account.getBalance().subtract(withdrawRequest.amount());
-        account.setBalance(newBalance);
-        account.setUpdatedAt(LocalDateTime.now());
-        accountRepository.save(account);
+        riskScoringService.recordAfterCommit(riskContext);
+        if (risk == RiskDecision.REVIEW) {
+            return holdForReview(TransactionType.WITHDRAW, account, null,
+                    withdrawRequest.amount(), withdrawRequest.description(), null, card);
+        }
+
+        accountBalanceService.lockForUpdate(account);
+        BigDecimal newBalance = accountBalanceService.debit(account, withdrawRequest.amount());
 
         Transaction transaction = new Transaction();
         transaction.setToAccount(null);
         transaction.setFromAccount(account);
+        transaction.setCard(card);
         transaction.setTransactionType(TransactionType.WITHDRAW);
         transaction.setAmount(withdrawRequest.amount());
         transaction.setCurrency(account.getCurrency());
@@ -125,6 +206,9 @@ public class TransactionService {
         transaction.setCompletedAt(LocalDateTime.now());
 
         Transaction saved = transactionRepository.save(transaction);
+        TransactionResponse response = mapToResponse(saved);
+        outboxWriter.transactionCreated(response);
+        publishUpdate(account, newBalance, response);
 
         log.info("WITHDRAW_SUCCESS transactionId={} accountId={} amount={} newBalance={}",
                 saved.getId(),
@@ -133,21 +217,199 @@ public class TransactionService {
                 newBalance
         );
 
-        return mapToResponse(saved);
+        return response;
     }
 
-    @Transactional
-    public TransactionResponse transfer(TransferRequest transferRequest) throws CurrencyMismatchException {
+    /**
+     * Reserves the amount on the source account and leaves a PENDING transaction for {@link SettlementService},
+     * which credits the destination later. Settled synchronously when the ledger engine is on.
+     */
+    public TransactionResponse transferAsync(TransferRequest transferRequest) {
+        if (ledgerEngine != null) {
+            return doTransfer(transferRequest, true);
+        }
+        return accountBalanceService.execute(() -> doTransferAsync(transferRequest));
+    }
+
+    public List<TransactionResponse> getTransactionsUnderReview() {
+        return transactionRepository.findByStatusOrderById(TransactionStatus.UNDER_REVIEW).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    // a transfer goes on to SettlementService, a withdrawal is done
+    public TransactionResponse approveReview(Long transactionId) {
+        return accountBalanceService.execute(() -> {
+            Transaction transaction = lockUnderReview(transactionId);
+            if (transaction.getTransactionType() == TransactionType.TRANSFER) {
+                transaction.setStatus(TransactionStatus.PENDING);
+            } else {
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                transaction.setCompletedAt(LocalDateTime.now());
+                outboxWriter.transactionsSettled(List.of(transactionId), TransactionStatus.COMPLETED);
+            }
+
+            log.info("REVIEW_APPROVED transactionId={} status={}", transactionId, transaction.getStatus());
+            return mapToResponse(transaction);
+        });
+    }
+
+    // the held amount goes back to the source account
+    public TransactionResponse rejectReview(Long transactionId) {
+        return accountBalanceService.execute(() -> {
+            Transaction transaction = lockUnderReview(transactionId);
+            Account fromAccount = transaction.getFromAccount();
+            accountBalanceService.lockForUpdate(fromAccount);
+            BigDecimal balance = accountBalanceService.credit(fromAccount, transaction.getAmount());
+
+            transaction.setStatus(TransactionStatus.FAILED);
+            transaction.setCompletedAt(LocalDateTime.now());
+            outboxWriter.transactionsSettled(List.of(transactionId), TransactionStatus.FAILED);
+            TransactionResponse response = mapToResponse(transaction);
+            publishUpdate(fromAccount, balance, response);
+
+            log.info("REVIEW_REJECTED transactionId={} fromAccountId={} amount={}",
+                    transactionId, fromAccount.getId(), transaction.getAmount());
+            return response;
+        });
+    }
+
+    private Transaction lockUnderReview(Long transactionId) {
+        Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                .orElseThrow(() -> {
+                    log.warn("TRANSACTION_NOT_FOUND transactionId={}", transactionId);
+                    return new TransactionNotFoundException(transactionId);
+                });
+        if (transaction.getStatus() != TransactionStatus.UNDER_REVIEW) {
+            log.warn("REVIEW_ALREADY_RESOLVED transactionId={} status={}", transactionId, transaction.getStatus());
+            throw new InvalidOperationException("Transaction " + transactionId + " is not under review");
+        }
+        return transaction;
+    }
+
+    public TransactionResponse getTransaction(Long transactionId) {
+        Transaction transaction = transactionRepository.findWithAccountsById(transactionId)
+                .orElseThrow(() -> {
+                    log.warn("TRANSACTION_NOT_FOUND transactionId={}", transactionId);
+                    return new TransactionNotFoundException(transactionId);
+                });
+
+        Long userId = currentUserService.getCurrentUser().getId();
+        boolean participant = (transaction.getFromAccount() != null && transaction.getFromAccount().getUser().getId().equals(userId))
+                || (transaction.getToAccount() != null && transaction.getToAccount().getUser().getId().equals(userId));
+        if (!participant) {
+            log.error("ACCESS_DENIED userId={} transactionId={}", userId, transactionId);
+            throw new AccessDeniedException("Access denied to transaction " + transactionId);
+        }
+
+        return mapToResponse(transaction);
+    }
+
+    private TransactionResponse doTransferAsync(TransferRequest transferRequest) {
+        log.info("TRANSFER_ASYNC_START fromAccountId={} toAccountNumber={} amount={}",
+                transferRequest.fromAccountId(),
+                maskAccountNumber(transferRequest.toAccountId()),
+                transferRequest.amount()
+        );
+
+        TransferAccounts accounts = resolveTransfer(transferRequest);
+        Account fromAccount = accounts.from();
+        Account toAccount = accounts.to();
+
+        RiskContext riskContext = RiskContext.transfer(fromAccount, toAccount, transferRequest.amount());
+        RiskDecision risk = checkRisk(riskContext);
+        spendingLimitService.reserve(fromAccount, null, transferRequest.amount());
+
+        riskScoringService.recordAfterCommit(riskContext);
+        if (risk == RiskDecision.REVIEW) {
+            return holdForReview(TransactionType.TRANSFER, fromAccount, toAccount,
+                    transferRequest.amount(), transferRequest.description(), accounts.conversion(), null);
+        }
+
+        Transaction saved = hold(TransactionType.TRANSFER, fromAccount, toAccount,
+                transferRequest.amount(), transferRequest.description(), accounts.conversion(), null, TransactionStatus.PENDING);
+        TransactionResponse response = mapToResponse(saved);
+        outboxWriter.transactionCreated(response);
+
+        log.info("TRANSFER_ASYNC_ACCEPTED transactionId={} fromAccountId={} toAccountId={} amount={}",
+                saved.getId(),
+                fromAccount.getId(),
+                toAccount.getId(),
+                transferRequest.amount()
+        );
+
+        return response;
+    }
+
+    private TransactionResponse doTransfer(TransferRequest transferRequest, boolean checkRisk) {
         log.info("TRANSFER_START fromAccountId={} toAccountNumber={} amount={}",
                 transferRequest.fromAccountId(),
                 maskAccountNumber(transferRequest.toAccountId()),
                 transferRequest.amount()
         );
 
+        TransferAccounts accounts = resolveTransfer(transferRequest);
+        Account fromAccount = accounts.from();
+        Account toAccount = accounts.to();
+
+        RiskContext riskContext = checkRisk ? RiskContext.transfer(fromAccount, toAccount, transferRequest.amount()) : null;
+        RiskDecision risk = checkRisk ? checkRisk(riskContext) : RiskDecision.ALLOW;
+        Reservation reservation = spendingLimitService.reserve(fromAccount, null, transferRequest.amount());
+
+        if (ledgerEngine != null) {
+            return postToLedger(reservation, riskContext, TransactionType.TRANSFER, AccountRoute.of(fromAccount), accounts.toRoute(),
+                    transferRequest.amount(), fromAccount.getCurrency(), transferRequest.description());
+        }
+
+        if (riskContext != null) {
+            riskScoringService.recordAfterCommit(riskContext);
+        }
+        if (risk == RiskDecision.REVIEW) {
+            return holdForReview(TransactionType.TRANSFER, fromAccount, toAccount,
+                    transferRequest.amount(), transferRequest.description(), accounts.conversion(), null);
+        }
+
+        BigDecimal creditedAmount = accounts.conversion() != null ? accounts.conversion().amount() : transferRequest.amount();
+
+        accountBalanceService.lockForTransfer(fromAccount, toAccount);
+        BigDecimal fromBalance = accountBalanceService.debit(fromAccount, transferRequest.amount());
+        BigDecimal toBalance = accountBalanceService.credit(toAccount, creditedAmount);
+
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(fromAccount);
+        transaction.setToAccount(toAccount);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setAmount(transferRequest.amount());
+        transaction.setCurrency(fromAccount.getCurrency());
+        transaction.setDescription(transferRequest.description());
+        applyConversion(transaction, accounts.conversion());
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setCompletedAt(LocalDateTime.now());
+
+        Transaction saved = transactionRepository.save(transaction);
+        TransactionResponse response = mapToResponse(saved);
+        outboxWriter.transactionCreated(response);
+        publishUpdate(fromAccount, fromBalance, response);
+        publishUpdate(toAccount, toBalance, response);
+
+        log.info("TRANSFER_SUCCESS transactionId={} fromAccountId={} toAccountId={} amount={}",
+                saved.getId(),
+                fromAccount.getId(),
+                toAccount.getId(),
+                transferRequest.amount()
+        );
+
+        return response;
+    }
+
+    // checks shared by the sync and async transfer
+    private TransferAccounts resolveTransfer(TransferRequest transferRequest) {
         Account fromAccount = accountService.getAnyAccountById(transferRequest.fromAccountId());
-        Account toAccount = accountService.getAccountByNumber(transferRequest.toAccountId());
+        AccountRoute toRoute = accountService.getAccountRoute(transferRequest.toAccountId());
+        Account toAccount = accountService.getAccountReference(toRoute);
 
-        if (fromAccount.getId().equals(toAccount.getId())) {
+        if (fromAccount.getId().equals(toRoute.id())) {
             log.error("TRANSFER_SAME_ACCOUNT accountId={}", fromAccount.getId());
             throw new InvalidAmountException("Cannot transfer to the same account");
         }
@@ -157,60 +419,124 @@ public class TransactionService {
             throw new InvalidAmountException("Transfer amount must be greater than 0");
         }
 
-        if (fromAccount.getBalance().compareTo(transferRequest.amount()) < 0) {
-            log.warn("TRANSFER_INSUFFICIENT_FUNDS accountId={} requested={} available={}",
-                    fromAccount.getId(),
-                    transferRequest.amount(),
-                    fromAccount.getBalance()
-            );
-            throw new InsufficientFundsException(
-                    fromAccount.getId(),
-                    transferRequest.amount(),
-                    fromAccount.getBalance()
-            );
+        if (fromAccount.getCurrency() == toRoute.currency()) {
+            return new TransferAccounts(fromAccount, toAccount, toRoute, null);
         }
 
-        if (!fromAccount.getCurrency().equals(toAccount.getCurrency())) {
+        // the ledger journal records one amount per posting
+        if (ledgerEngine != null) {
             log.error("TRANSFER_CURRENCY_MISMATCH fromCurrency={} toCurrency={}",
                     fromAccount.getCurrency(),
-                    toAccount.getCurrency()
+                    toRoute.currency()
             );
             throw new CurrencyMismatchException(
                     "Currency mismatch: from account has " + fromAccount.getCurrency() +
-                            " but to account has " + toAccount.getCurrency()
+                            " but to account has " + toRoute.currency()
             );
         }
 
-        fromAccount.setBalance(fromAccount.getBalance().subtract(transferRequest.amount()));
-        fromAccount.setUpdatedAt(LocalDateTime.now());
+        FxConversion conversion = fxRateService.convert(transferRequest.amount(), fromAccount.getCurrency(), toRoute.currency());
+        if (conversion.amount().signum() <= 0) {
+            log.error("TRANSFER_FX_AMOUNT_TOO_SMALL amount={} fromCurrency={} toCurrency={}",
+                    transferRequest.amount(),
+                    fromAccount.getCurrency(),
+                    toRoute.currency()
+            );
+            throw new InvalidAmountException("Transfer amount is too small to convert to " + toRoute.currency());
+        }
+
+        log.info("TRANSFER_FX fromCurrency={} toCurrency={} rate={} rateVersion={} creditedAmount={}",
+                fromAccount.getCurrency(),
+                toRoute.currency(),
+                conversion.rate(),
+                conversion.rateVersion(),
+                conversion.amount()
+        );
+
+        return new TransferAccounts(fromAccount, toAccount, toRoute, conversion);
+    }
 
-        toAccount.setBalance(toAccount.getBalance().add(transferRequest.amount()));
-        toAccount.setUpdatedAt(LocalDateTime.now());
+    // a held posting needs a db transaction, so with the ledger engine what would go to review is blocked.
+    // Only scores: the caller records the posting once it went through
+    private RiskDecision checkRisk(RiskContext context) {
+        RiskDecision decision = riskScoringService.check(context).decision();
+        if (decision == RiskDecision.REVIEW && ledgerEngine != null) {
+            throw new TransactionBlockedException("Transaction needs a manual review, not available with the ledger engine");
+        }
+        return decision;
+    }
 
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+    /**
+     * Debits the source and leaves the transaction in the given status: PENDING is credited by
+     * {@link SettlementService}, UNDER_REVIEW waits for {@link #approveReview} / {@link #rejectReview}.
+     */
+    private Transaction hold(TransactionType type,
+                             Account fromAccount,
+                             Account toAccount,
+                             BigDecimal amount,
+                             String description,
+                             FxConversion conversion,
+                             Card card,
+                             TransactionStatus status) {
+        accountBalanceService.lockForUpdate(fromAccount);
+        BigDecimal balance = accountBalanceService.debit(fromAccount, amount);
 
         Transaction transaction = new Transaction();
         transaction.setFromAccount(fromAccount);
         transaction.setToAccount(toAccount);
-        transaction.setTransactionType(TransactionType.TRANSFER);
-        transaction.setAmount(transferRequest.amount());
+        transaction.setCard(card);
+        transaction.setTransactionType(type);
+        transaction.setAmount(amount);
         transaction.setCurrency(fromAccount.getCurrency());
-        transaction.setDescription(transferRequest.description());
-        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(description);
+        applyConversion(transaction, conversion);
+        transaction.setStatus(status);
         transaction.setCreatedAt(LocalDateTime.now());
-        transaction.setCompletedAt(LocalDateTime.now());
 
         Transaction saved = transactionRepository.save(transaction);
+        publishUpdate(fromAccount, balance, mapToResponse(saved));
+        return saved;
+    }
 
-        log.info("TRANSFER_SUCCESS transactionId={} fromAccountId={} toAccountId={} amount={}",
+    private TransactionResponse holdForReview(TransactionType type,
+                                              Account fromAccount,
+                                              Account toAccount,
+                                              BigDecimal amount,
+                                              String description,
+                                              FxConversion conversion,
+                                              Card card) {
+        Transaction saved = hold(type, fromAccount, toAccount, amount, description, conversion, card, TransactionStatus.UNDER_REVIEW);
+        TransactionResponse response = mapToResponse(saved);
+        outboxWriter.transactionCreated(response);
+
+        log.warn("TRANSACTION_HELD_FOR_REVIEW transactionId={} type={} fromAccountId={} amount={}",
                 saved.getId(),
+                type,
                 fromAccount.getId(),
-                toAccount.getId(),
-                transferRequest.amount()
+                amount
         );
 
-        return mapToResponse(saved);
+        return response;
+    }
+
+    private Card resolveCard(Long cardId, Account account) {
+        if (cardId == null) {
+            return null;
+        }
+        Card card = cardService.getCardEntityById(cardId);
+        if (!card.getAccount().getId().equals(account.getId()) || card.getStatus() != CardStatus.ACTIVE) {
+            log.error("WITHDRAW_CARD_INVALID cardId={} accountId={} status={}", cardId, account.getId(), card.getStatus());
+            throw new InvalidOperationException("Card " + cardId + " cannot be used for account " + account.getId());
+        }
+        return card;
+    }
+
+    private void applyConversion(Transaction transaction, FxConversion conversion) {
+        if (conversion != null) {
+            transaction.setFxRate(conversion.rate());
+            transaction.setCreditedAmount(conversion.amount());
+            transaction.setCreditedCurrency(conversion.currency());
+        }
     }
 
     public List<Transaction> getAccountTransactions(Long accountId) {
@@ -227,6 +553,69 @@ public class TransactionService {
         return transactions;
     }
 
+    // the transactions row is written later by LedgerProjector, so there is no id yet.
+    // No db transaction gives the reservation back on failure, so it is released here.
+    // riskContext is null for postings that were not scored
+    private TransactionResponse postToLedger(Reservation reservation,
+                                             RiskContext riskContext,
+                                             TransactionType type,
+                                             AccountRoute from,
+                                             AccountRoute to,
+                                             BigDecimal amount,
+                                             Currency currency,
+                                             String description) {
+        Long fromId = from != null ? from.id() : null;
+        Long toId = to != null ? to.id() : null;
+
+        LedgerPosting posting;
+        try {
+            posting = ledgerEngine.post(type, fromId, toId, amount, currency, description).join();
+        } catch (CompletionException e) {
+            reservation.release();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (riskContext != null) {
+            riskScoringService.record(riskContext);
+        }
+
+        log.info("LEDGER_POSTED seq={} type={} fromAccountId={} toAccountId={} amount={}",
+                posting.seq(), type, fromId, toId, amount
+        );
+
+        TransactionResponse response = new TransactionResponse(
+                null,
+                fromId,
+                toId,
+                type,
+                amount,
+                currency,
+                description,
+                TransactionStatus.COMPLETED,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(posting.timestamp()), ZoneId.systemDefault())
+        );
+        // balances live in the engine until projected
+        if (from != null) {
+            publishUpdate(from.userId(), from.id(), null, response);
+        }
+        if (to != null) {
+            publishUpdate(to.userId(), to.id(), null, response);
+        }
+        return response;
+    }
+
+    private void publishUpdate(Account account, BigDecimal balance, TransactionResponse transaction) {
+        publishUpdate(account.getUser().getId(), account.getId(), balance, transaction);
+    }
+
+    private void publishUpdate(Long userId, Long accountId, BigDecimal balance, TransactionResponse transaction) {
+        if (accountEventBus.hasSubscribers(userId)) {
+            accountEventBus.publishAfterCommit(userId, new AccountUpdateEvent(accountId, balance, transaction));
+        }
+    }
+
     private TransactionResponse mapToResponse(Transaction transaction) {
         return new TransactionResponse(
                 transaction.getId(),
@@ -237,7 +626,10 @@ public class TransactionService {
                 transaction.getCurrency(),
                 transaction.getDescription(),
                 transaction.getStatus(),
-                transaction.getCreatedAt()
+                transaction.getCreatedAt(),
+                transaction.getFxRate(),
+                transaction.getCreditedAmount(),
+                transaction.getCreditedCurrency()
         );
     }
 
@@ -245,4 +637,8 @@ public class TransactionService {
         if (number == null || number.length() < 6) return "****";
         return number.substring(0, 4) + "****" + number.substring(number.length() - 2);
     }
-}
\ No newline at end of file
+
+    // conversion is null for same-currency transfers
+    private record TransferAccounts(Account from, Account to, AccountRoute toRoute, FxConversion conversion) {
+    }
+}
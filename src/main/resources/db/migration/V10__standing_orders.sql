@@ -0,0 +1,30 @@
+-- recurring / future-dated transfers. Executors claim due rows with SKIP LOCKED and a lease (locked_until),
+-- then run each order in its own transaction together with the move of next_run_at.
+
+CREATE SEQUENCE standing_orders_seq INCREMENT BY 50;
+
+CREATE TABLE standing_orders (
+    id                BIGINT         NOT NULL DEFAULT nextval('standing_orders_seq') PRIMARY KEY,
+    from_account_id   BIGINT         NOT NULL REFERENCES accounts (id),
+    to_account_number VARCHAR(255)   NOT NULL,
+    amount            NUMERIC(38, 2) NOT NULL,
+    description       VARCHAR(255),
+    frequency         VARCHAR(32)    NOT NULL,
+    start_at          TIMESTAMP(6)   NOT NULL,
+    end_at            TIMESTAMP(6),
+    run_count         INTEGER        NOT NULL DEFAULT 0,
+    next_run_at       TIMESTAMP(6)   NOT NULL,
+    next_attempt_at   TIMESTAMP(6)   NOT NULL,
+    status            VARCHAR(32)    NOT NULL,
+    failure_count     INTEGER        NOT NULL DEFAULT 0,
+    last_error        VARCHAR(1000),
+    last_run_at       TIMESTAMP(6),
+    locked_until      TIMESTAMP(6),
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6)
+);
+
+ALTER SEQUENCE standing_orders_seq OWNED BY standing_orders.id;
+
+CREATE INDEX idx_standing_orders_due ON standing_orders (next_attempt_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_standing_orders_from_account ON standing_orders (from_account_id);
@@ -0,0 +1,10 @@
+-- per-account overrides of the spending limits configured per account type (bank.limits)
+CREATE TABLE account_limit_overrides (
+    account_id      BIGINT PRIMARY KEY REFERENCES accounts (id),
+    per_transaction NUMERIC(38, 2),
+    daily           NUMERIC(38, 2),
+    updated_at      TIMESTAMP(6) NOT NULL
+);
+
+-- card used for a withdrawal, counted against the card type limits
+ALTER TABLE transactions ADD COLUMN card_id BIGINT REFERENCES cards (id);
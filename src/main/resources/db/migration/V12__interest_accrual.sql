@@ -0,0 +1,15 @@
+-- business date up to which interest has been credited; moved in the same transaction as the credit
+ALTER TABLE accounts ADD COLUMN interest_accrued_on DATE;
+
+-- one row per accrual run; checkpoint_id: every account below it has been processed
+CREATE TABLE interest_runs (
+    business_date  DATE PRIMARY KEY,
+    status         VARCHAR(32)    NOT NULL,
+    checkpoint_id  BIGINT         NOT NULL DEFAULT 0,
+    accounts       BIGINT         NOT NULL DEFAULT 0,
+    interest       NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    error          VARCHAR(1000),
+    started_at     TIMESTAMP(6)   NOT NULL,
+    updated_at     TIMESTAMP(6)   NOT NULL,
+    finished_at    TIMESTAMP(6)
+);
@@ -0,0 +1,38 @@
+-- uploaded payroll files, posted in chunks by PayrollImportProcessor. next_offset / lines move in the same
+-- transaction as the postings of a chunk, so a claimed import resumes after the last committed chunk.
+
+CREATE SEQUENCE payroll_imports_seq INCREMENT BY 50;
+
+CREATE TABLE payroll_imports (
+    id              BIGINT         NOT NULL DEFAULT nextval('payroll_imports_seq') PRIMARY KEY,
+    user_id         BIGINT         NOT NULL REFERENCES users (id),
+    from_account_id BIGINT         NOT NULL REFERENCES accounts (id),
+    file_name       VARCHAR(255)   NOT NULL,
+    file_path       VARCHAR(1000)  NOT NULL,
+    status          VARCHAR(32)    NOT NULL,
+    next_offset     BIGINT         NOT NULL DEFAULT 0,
+    lines           BIGINT         NOT NULL DEFAULT 0,
+    succeeded       BIGINT         NOT NULL DEFAULT 0,
+    failed          BIGINT         NOT NULL DEFAULT 0,
+    total_amount    NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    error           VARCHAR(1000),
+    locked_until    TIMESTAMP(6),
+    created_at      TIMESTAMP(6)   NOT NULL,
+    updated_at      TIMESTAMP(6)   NOT NULL,
+    finished_at     TIMESTAMP(6)
+);
+
+ALTER SEQUENCE payroll_imports_seq OWNED BY payroll_imports.id;
+
+CREATE INDEX idx_payroll_imports_open ON payroll_imports (created_at) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX idx_payroll_imports_user ON payroll_imports (user_id);
+
+-- one row per rejected line: unparseable, unknown account, insufficient funds, ...
+CREATE TABLE payroll_import_errors (
+    import_id      BIGINT       NOT NULL REFERENCES payroll_imports (id) ON DELETE CASCADE,
+    line_number    BIGINT       NOT NULL,
+    account_number VARCHAR(64),
+    amount         VARCHAR(64),
+    error          VARCHAR(500) NOT NULL,
+    PRIMARY KEY (import_id, line_number)
+);
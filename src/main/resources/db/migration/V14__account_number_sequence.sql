@@ -0,0 +1,4 @@
+-- account numbers are 40817 0 <13-digit serial> <luhn digit>. Every nextval leases a block of 1000 serials
+-- to one node (AccountNumberAllocator). Random numbers issued before this never have a 0 after 40817,
+-- and serials start high enough to stay clear of the fixed test numbers.
+CREATE SEQUENCE account_number_seq START WITH 1000000000 INCREMENT BY 1000;
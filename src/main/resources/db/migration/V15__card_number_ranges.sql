@@ -0,0 +1,7 @@
+-- next free serial per BIN; card numbers are <6-digit bin> <9-digit serial> <luhn digit>. CardNumberAllocator
+-- leases serials a block at a time with an upsert, so the first lease of a new BIN creates its row.
+CREATE TABLE card_number_ranges (
+    bin         VARCHAR(6) PRIMARY KEY,
+    next_serial BIGINT      NOT NULL,
+    updated_at  TIMESTAMP   NOT NULL
+);
@@ -0,0 +1,5 @@
+-- a user's accounts and cards, read together by the portfolio summary
+
+CREATE INDEX IF NOT EXISTS idx_accounts_user ON accounts (user_id);
+
+CREATE INDEX IF NOT EXISTS idx_cards_user ON cards (user_id);
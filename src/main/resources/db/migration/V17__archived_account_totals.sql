@@ -0,0 +1,8 @@
+-- net per account of the transactions in partitions moved to transactions_archive,
+-- written by TransactionPartitionService together with the detach so reconciliation still balances
+
+CREATE TABLE archived_account_totals (
+    account_id BIGINT PRIMARY KEY REFERENCES accounts (id),
+    net        NUMERIC(38, 2) NOT NULL,
+    updated_at TIMESTAMP(6)   NOT NULL
+);
@@ -0,0 +1,15 @@
+-- history pages filtered by type or by a status other than COMPLETED, see TransactionHistoryRepository:
+-- without these the (account, created_at, id) scan skips every row that does not match the filter
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_type_created
+    ON transactions (from_account_id, transaction_type, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_type_created
+    ON transactions (to_account_id, transaction_type, created_at DESC, id DESC);
+
+-- PENDING, UNDER_REVIEW and FAILED are a small share of the table, so a partial index stays small
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_created_not_completed
+    ON transactions (from_account_id, created_at DESC, id DESC) WHERE status <> 'COMPLETED';
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_created_not_completed
+    ON transactions (to_account_id, created_at DESC, id DESC) WHERE status <> 'COMPLETED';
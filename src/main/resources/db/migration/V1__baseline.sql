@@ -0,0 +1,60 @@
+-- schema as it was created by hibernate ddl-auto before migrations were introduced
+-- (existing databases are baselined at this version and skip it)
+
+CREATE TABLE users (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email           VARCHAR(255) NOT NULL UNIQUE,
+    phone           VARCHAR(255) NOT NULL UNIQUE,
+    password_hash   VARCHAR(255) NOT NULL,
+    first_name      VARCHAR(255),
+    last_name       VARCHAR(255),
+    middle_name     VARCHAR(255),
+    birth_date      DATE,
+    passport_number VARCHAR(255) UNIQUE,
+    status          VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP(6),
+    updated_at      TIMESTAMP(6),
+    role            VARCHAR(255) NOT NULL,
+    mail_key        VARCHAR(255),
+    is_confirmed    BOOLEAN NOT NULL
+);
+
+CREATE TABLE accounts (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT NOT NULL REFERENCES users (id),
+    account_number VARCHAR(255) NOT NULL UNIQUE,
+    account_type   VARCHAR(255),
+    currency       VARCHAR(255),
+    balance        NUMERIC(38, 2) NOT NULL,
+    status         VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6)
+);
+
+CREATE TABLE cards (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id       BIGINT NOT NULL REFERENCES accounts (id),
+    user_id          BIGINT NOT NULL REFERENCES users (id),
+    card_number      VARCHAR(255) NOT NULL UNIQUE,
+    card_holder_name VARCHAR(255),
+    cvv_hash         VARCHAR(255) NOT NULL,
+    expiry_date      DATE NOT NULL,
+    card_type        VARCHAR(255),
+    payment_system   VARCHAR(255),
+    status           VARCHAR(255) NOT NULL,
+    created_at       TIMESTAMP(6),
+    updated_at       TIMESTAMP(6)
+);
+
+CREATE TABLE transactions (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    from_account_id  BIGINT REFERENCES accounts (id),
+    to_account_id    BIGINT REFERENCES accounts (id),
+    transaction_type VARCHAR(255),
+    amount           NUMERIC(38, 2) NOT NULL,
+    currency         VARCHAR(255),
+    description      VARCHAR(255),
+    status           VARCHAR(255) NOT NULL,
+    created_at       TIMESTAMP(6),
+    completed_at     TIMESTAMP(6)
+);
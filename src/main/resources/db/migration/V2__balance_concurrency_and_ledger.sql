@@ -0,0 +1,15 @@
+-- columns added for balance concurrency control, sub-balance slots and the ledger journal.
+-- IF NOT EXISTS: databases that ran with ddl-auto=update may already have them
+
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS balance_slots INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS account_balance_slots (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    slot       INTEGER NOT NULL,
+    balance    NUMERIC(38, 2) NOT NULL,
+    UNIQUE (account_id, slot)
+);
+
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS journal_seq BIGINT UNIQUE;
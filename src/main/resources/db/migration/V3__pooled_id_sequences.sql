@@ -0,0 +1,17 @@
+-- identity columns -> sequences with increment 50, so hibernate can allocate ids in memory (pooled-lo)
+-- and batch inserts. The column default keeps ad-hoc inserts without an id working.
+
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY ['users', 'accounts', 'cards', 'transactions', 'account_balance_slots']
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', t || '_seq');
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 1, false)', t || '_seq', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, t || '_seq');
+        EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', t || '_seq', t);
+    END LOOP;
+END
+$$;
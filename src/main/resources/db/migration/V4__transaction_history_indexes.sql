@@ -0,0 +1,7 @@
+-- keyset pagination of account history: one index per side of the transfer, newest first
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_created
+    ON transactions (from_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_created
+    ON transactions (to_account_id, created_at DESC, id DESC);
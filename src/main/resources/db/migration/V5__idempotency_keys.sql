@@ -0,0 +1,11 @@
+-- Idempotency-Key results of money-moving requests, scope = principal + ':' + key
+
+CREATE TABLE idempotency_keys (
+    scope        VARCHAR(512) PRIMARY KEY,
+    operation    VARCHAR(32)  NOT NULL,
+    request_hash VARCHAR(64)  NOT NULL,
+    response     TEXT,
+    created_at   TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys (created_at);
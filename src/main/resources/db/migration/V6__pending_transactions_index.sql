@@ -0,0 +1,3 @@
+-- settlement workers poll for PENDING transfers; the partial index stays as small as the backlog
+
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (id) WHERE status = 'PENDING';
@@ -0,0 +1,9 @@
+-- transactional outbox: written in the same transaction as the posting, drained and deleted by OutboxRelay
+
+CREATE TABLE outbox_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type     VARCHAR(64)  NOT NULL,
+    transaction_id BIGINT,
+    payload        TEXT         NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL
+);
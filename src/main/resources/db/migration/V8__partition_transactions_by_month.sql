@@ -0,0 +1,65 @@
+-- transactions -> range partitioned by created_at, one partition per month (transactions_yyyy_mm).
+-- TransactionPartitionService keeps creating partitions ahead and moves expired ones to transactions_archive.
+-- Rows outside every monthly partition (backdated postings) land in transactions_default.
+--
+-- Every unique constraint of a partitioned table must contain the partition key, so the primary key
+-- becomes (id, created_at) and journal_seq loses its unique constraint (the ledger is its single writer).
+--
+-- Downtime: the whole table is copied and its indexes rebuilt in this one migration, holding an exclusive lock
+-- on transactions until it commits - every read and write of transactions waits, and the app does not start
+-- before it is done. The time grows with the table size; rehearse on a restored copy of production to size
+-- the maintenance window, and expect roughly twice the table's disk space until the old table is dropped.
+
+UPDATE transactions SET created_at = COALESCE(completed_at, now()) WHERE created_at IS NULL;
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER SEQUENCE transactions_seq OWNED BY NONE;
+
+CREATE TABLE transactions (
+    id               BIGINT       NOT NULL DEFAULT nextval('transactions_seq'),
+    from_account_id  BIGINT REFERENCES accounts (id),
+    to_account_id    BIGINT REFERENCES accounts (id),
+    transaction_type VARCHAR(255),
+    amount           NUMERIC(38, 2) NOT NULL,
+    currency         VARCHAR(255),
+    description      VARCHAR(255),
+    status           VARCHAR(255) NOT NULL,
+    created_at       TIMESTAMP(6) NOT NULL,
+    completed_at     TIMESTAMP(6),
+    journal_seq      BIGINT
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+DO $$
+DECLARE
+    m      DATE;
+    last_m DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    m := COALESCE((SELECT date_trunc('month', MIN(created_at)) FROM transactions_legacy), date_trunc('month', now()));
+    WHILE m <= last_m
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_' || to_char(m, 'YYYY_MM'), m, m + INTERVAL '1 month');
+        m := m + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+INSERT INTO transactions (id, from_account_id, to_account_id, transaction_type, amount, currency, description,
+                          status, created_at, completed_at, journal_seq)
+SELECT id, from_account_id, to_account_id, transaction_type, amount, currency, description,
+       status, created_at, completed_at, journal_seq
+FROM transactions_legacy;
+
+DROP TABLE transactions_legacy;
+ALTER SEQUENCE transactions_seq OWNED BY transactions.id;
+
+-- indexes are built after the copy; declared on the parent, they are created on every partition
+ALTER TABLE transactions ADD PRIMARY KEY (id, created_at);
+CREATE INDEX idx_transactions_from_account_created ON transactions (from_account_id, created_at DESC, id DESC);
+CREATE INDEX idx_transactions_to_account_created ON transactions (to_account_id, created_at DESC, id DESC);
+CREATE INDEX idx_transactions_pending ON transactions (id) WHERE status = 'PENDING';
+CREATE INDEX idx_transactions_journal_seq ON transactions (journal_seq);
+
+CREATE SCHEMA IF NOT EXISTS transactions_archive;
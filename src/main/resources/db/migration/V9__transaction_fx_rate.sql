@@ -0,0 +1,6 @@
+-- cross-currency transfers: amount/currency stay on the source side, the destination side is
+-- credited_amount in credited_currency, converted with fx_rate (units of credited per unit of source)
+
+ALTER TABLE transactions ADD COLUMN fx_rate NUMERIC(19, 8);
+ALTER TABLE transactions ADD COLUMN credited_amount NUMERIC(38, 2);
+ALTER TABLE transactions ADD COLUMN credited_currency VARCHAR(255);
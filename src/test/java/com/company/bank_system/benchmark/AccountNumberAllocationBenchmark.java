@@ -0,0 +1,97 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.AccountNumberAllocator;
+import com.company.bank_system.service.Luhn;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Account creation throughput: the old random number with an existsByAccountNumber check per attempt
+ * against numbers from AccountNumberAllocator.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class AccountNumberAllocationBenchmark extends PostgresContainerTest {
+
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void createsAccounts() throws Exception {
+        User user = userRepository.save(TestData.user());
+
+        Set<String> random = ConcurrentHashMap.newKeySet();
+        double before = run(user, random, this::randomAccountNumber);
+        Set<String> allocated = ConcurrentHashMap.newKeySet();
+        double after = run(user, allocated, accountNumberAllocator::next);
+
+        System.out.printf("accounts=%d random=%.0f/s allocated=%.0f/s speedup=%.2fx%n",
+                THREADS * ACCOUNTS_PER_THREAD, before, after, after / before);
+
+        assertThat(allocated).hasSize(THREADS * ACCOUNTS_PER_THREAD);
+        assertThat(allocated).allSatisfy(number -> {
+            assertThat(number).hasSize(20).startsWith("40817");
+            assertThat(Luhn.isValid(number)).isTrue();
+        });
+    }
+
+    private double run(User user, Set<String> numbers, Supplier<String> generator) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < ACCOUNTS_PER_THREAD; i++) {
+                    Account account = TestData.account(user, Currency.RUB, BigDecimal.ZERO);
+                    account.setAccountNumber(generator.get());
+                    numbers.add(accountRepository.save(account).getAccountNumber());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+        return THREADS * ACCOUNTS_PER_THREAD / seconds;
+    }
+
+    // what AccountService did before the allocator
+    private String randomAccountNumber() {
+        String number;
+        do {
+            number = "40817" + ThreadLocalRandom.current().nextLong(100000000000000L, 999999999999999L);
+        } while (accountRepository.existsByAccountNumber(number));
+        return number;
+    }
+}
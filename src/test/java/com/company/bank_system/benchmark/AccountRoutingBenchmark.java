@@ -0,0 +1,107 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.AccountRoutingCache;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many payers paying a few popular payees: statements per transfer with the payee's route looked up every
+ * time (evicted before each transfer, as without the cache) against served from AccountRoutingCache.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountRoutingBenchmark extends PostgresContainerTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final int PAYEES = 5;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRoutingCache accountRoutingCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void transfersToPopularPayees(boolean cached) throws Exception {
+        User user = userRepository.save(TestData.user());
+        List<Account> payees = new ArrayList<>();
+        for (int i = 0; i < PAYEES; i++) {
+            payees.add(accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO)));
+        }
+        List<Account> payers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payers.add(accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000000"))));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (Account payer : payers) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    String payee = payees.get(i % PAYEES).getAccountNumber();
+                    if (!cached) {
+                        accountRoutingCache.evict(payee);
+                    }
+                    transactionService.transfer(new TransferRequest(payer.getId(), payee, BigDecimal.ONE, "bench"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        System.out.printf("cached=%s transfers=%d rate=%.0f/s statements/transfer=%.2f queries/transfer=%.2f " +
+                        "entityLoads/transfer=%.2f hitRatio=%.3f%n",
+                cached, transfers, transfers / seconds,
+                (double) statistics.getPrepareStatementCount() / transfers,
+                (double) statistics.getQueryExecutionCount() / transfers,
+                (double) statistics.getEntityLoadCount() / transfers,
+                meterRegistry.get("bank.accounts.routing_cache.hit_ratio").gauge().value());
+
+        BigDecimal received = payees.stream()
+                .map(p -> accountRepository.findById(p.getId()).orElseThrow().getBalance())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(received).isEqualByComparingTo(BigDecimal.valueOf(transfers));
+    }
+}
@@ -0,0 +1,93 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.dto.BatchTransferRequest;
+import com.company.bank_system.dto.BatchTransferResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.BatchTransferService;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payroll-like load: one payer, many payees. Same work through the single and the batch path.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BatchTransferBenchmark extends PostgresContainerTest {
+
+    private static final int PAYEES = 500;
+    private static final int TRANSFERS = 20_000;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void singleVsBatch() {
+        User user = userRepository.save(TestData.user());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100000000")));
+        List<Account> payees = new ArrayList<>();
+        for (int i = 0; i < PAYEES; i++) {
+            payees.add(accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO)));
+        }
+
+        List<TransferRequest> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(new TransferRequest(payer.getId(), payees.get(i % PAYEES).getAccountNumber(),
+                    new BigDecimal("10.00"), "salary"));
+        }
+
+        int singleCount = TRANSFERS / 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < singleCount; i++) {
+            transactionService.transfer(transfers.get(i));
+        }
+        double singleRate = singleCount / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        start = System.nanoTime();
+        BatchTransferResponse response = batchTransferService.transfer(new BatchTransferRequest(transfers));
+        double batchRate = TRANSFERS / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        System.out.printf("single=%.0f transfers/s batch=%.0f transfers/s speedup=%.1fx%n",
+                singleRate, batchRate, batchRate / singleRate
+        );
+
+        assertThat(response.succeeded()).isEqualTo(TRANSFERS);
+        Account reloaded = accountRepository.findById(payer.getId()).orElseThrow();
+        assertThat(reloaded.getBalance()).isEqualByComparingTo(
+                new BigDecimal("100000000").subtract(new BigDecimal("10.00").multiply(BigDecimal.valueOf(TRANSFERS + singleCount)))
+        );
+    }
+}
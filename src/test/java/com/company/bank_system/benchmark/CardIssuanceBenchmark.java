@@ -0,0 +1,118 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Cards.CardType;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.CardRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.CardNumberAllocator;
+import com.company.bank_system.service.Luhn;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Card issuance throughput: the old random number with an existsByCardNumber check per attempt against
+ * numbers from CardNumberAllocator.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class CardIssuanceBenchmark extends PostgresContainerTest {
+
+    private static final int THREADS = 16;
+    private static final int CARDS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Test
+    void issuesCards() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        Set<String> random = ConcurrentHashMap.newKeySet();
+        double before = run(user, account, random, this::randomCardNumber);
+        Set<String> allocated = ConcurrentHashMap.newKeySet();
+        double after = run(user, account, allocated, () -> cardNumberAllocator.next(CardPaymentSystem.VISA));
+
+        System.out.printf("cards=%d random=%.0f/s allocated=%.0f/s speedup=%.2fx%n",
+                THREADS * CARDS_PER_THREAD, before, after, after / before);
+
+        assertThat(allocated).hasSize(THREADS * CARDS_PER_THREAD);
+        assertThat(allocated).allSatisfy(number -> assertThat(Luhn.isValid(number)).isTrue());
+    }
+
+    private double run(User user, Account account, Set<String> numbers, Supplier<String> generator) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < CARDS_PER_THREAD; i++) {
+                    numbers.add(cardRepository.save(card(user, account, generator.get())).getCardNumber());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+        return THREADS * CARDS_PER_THREAD / seconds;
+    }
+
+    private static Card card(User user, Account account, String number) {
+        Card card = new Card();
+        card.setAccount(account);
+        card.setUser(user);
+        card.setCardNumber(number);
+        card.setCvvHash("hash");
+        card.setExpiryDate(LocalDate.now().plusYears(5));
+        card.setCardType(CardType.DEBIT);
+        card.setPaymentSystem(CardPaymentSystem.VISA);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCreatedAt(LocalDateTime.now());
+        return card;
+    }
+
+    // what CardService did before the allocator
+    private String randomCardNumber() {
+        String number;
+        do {
+            long part1 = ThreadLocalRandom.current().nextLong(100000000L, 999999999L);
+            long part2 = ThreadLocalRandom.current().nextLong(10000000L, 99999999L);
+            number = String.format("%09d%07d", part1, part2);
+        } while (cardRepository.existsByCardNumber(number));
+        return number;
+    }
+}
@@ -0,0 +1,90 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.AccountBalanceService;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every thread pays into the same merchant account. With slots the credits land on
+ * different rows, so throughput should grow with the slot count.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class HotAccountCreditBenchmark extends PostgresContainerTest {
+
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 300;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+    @Autowired
+    private TransactionService transactionService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 4, 16})
+    void creditsIntoOneAccount(int slots) throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account merchant = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        accountService.configureBalanceSlots(merchant.getId(), slots);
+
+        List<Account> payers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payers.add(accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000000"))));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (Account payer : payers) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    transactionService.transfer(new TransferRequest(
+                            payer.getId(), merchant.getAccountNumber(), BigDecimal.ONE, "bench"
+                    ));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pool.shutdown();
+
+        int ops = THREADS * TRANSFERS_PER_THREAD;
+        System.out.printf("slots=%-3d ops=%d time=%.2fs throughput=%.0f credits/s%n",
+                slots, ops, seconds, ops / seconds
+        );
+
+        Account reloaded = accountRepository.findById(merchant.getId()).orElseThrow();
+        assertThat(accountBalanceService.totalBalance(reloaded)).isEqualByComparingTo(BigDecimal.valueOf(ops));
+    }
+}
@@ -0,0 +1,118 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A generated 1M-line payroll file through PayrollImportProcessor: lines/s and the peak heap seen while it runs.
+ * Limits are off - a million salaries from one account is far over any daily limit.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "bank.limits.enabled=false",
+        "bank.payroll.idle-sleep-ms=50"
+})
+class PayrollImportBenchmark extends PostgresContainerTest {
+
+    private static final int LINES = 1_000_000;
+    private static final int PAYEES = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void millionLineFile() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100000000")));
+        List<Account> payees = new ArrayList<>(PAYEES);
+        for (int i = 0; i < PAYEES; i++) {
+            payees.add(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        }
+        payees = accountRepository.saveAll(payees);
+
+        Path file = dir.resolve("payroll.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("account_number,amount,description\n");
+            for (int i = 0; i < LINES; i++) {
+                writer.write(payees.get(i % PAYEES).getAccountNumber());
+                writer.write(",10.00,salary\n");
+            }
+        }
+
+        long fileSize = Files.size(file);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        Long id = jdbcTemplate.queryForObject("INSERT INTO payroll_imports (user_id, from_account_id, file_name, file_path, " +
+                        "status, created_at, updated_at) VALUES (?, ?, 'payroll.csv', ?, 'PENDING', now(), now()) RETURNING id",
+                Long.class, user.getId(), payer.getId(), file.toString());
+
+        Map<String, Object> result;
+        long deadline = System.currentTimeMillis() + 30 * 60_000;
+        while (true) {
+            result = jdbcTemplate.queryForMap("SELECT status, succeeded, failed FROM payroll_imports WHERE id = ?", id);
+            boolean open = "PENDING".equals(result.get("status")) || "RUNNING".equals(result.get("status"));
+            if (!open || System.currentTimeMillis() > deadline) {
+                break;
+            }
+            Thread.sleep(200);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        sampler.interrupt();
+
+        System.out.printf("lines=%d file=%dMB time=%.1fs rate=%.0f lines/s heapBaseline=%dMB heapPeak=%dMB%n",
+                LINES, fileSize >> 20, seconds, LINES / seconds,
+                baseline >> 20, peak.get() >> 20);
+
+        assertThat(result.get("status")).isEqualTo("COMPLETED");
+        assertThat(((Number) result.get("succeeded")).longValue()).isEqualTo(LINES);
+        assertThat(accountRepository.findById(payer.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(new BigDecimal("100000000").subtract(new BigDecimal("10.00").multiply(BigDecimal.valueOf(LINES))));
+    }
+}
@@ -0,0 +1,89 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.risk.AmountOutlierRule;
+import com.company.bank_system.risk.NewPayeeRule;
+import com.company.bank_system.risk.RiskContext;
+import com.company.bank_system.risk.RiskProperties;
+import com.company.bank_system.risk.RiskScoringService;
+import com.company.bank_system.risk.VelocityRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of scoring and recording one posting with all rules, from many threads over many accounts.
+ * No db: the scorer works on in-memory state only (payees are not preloaded here).
+ */
+@Tag("benchmark")
+class RiskScoringBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int CHECKS_PER_THREAD = 200_000;
+    private static final int WARMUP_PER_THREAD = 50_000;
+    private static final int ACCOUNTS = 100_000;
+
+    @Test
+    void scoringLatency() throws Exception {
+        RiskProperties properties = new RiskProperties(true, 50, 100, 200_000, null, null, null);
+        RiskScoringService scoring = new RiskScoringService(List.of(
+                new VelocityRule(properties),
+                new NewPayeeRule(properties, null),
+                new AmountOutlierRule(properties)
+        ), properties, new SimpleMeterRegistry());
+
+        run(scoring, WARMUP_PER_THREAD);
+        long start = System.nanoTime();
+        long[] latencies = run(scoring, CHECKS_PER_THREAD);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1_000_000_000.0;
+        double p50 = latencies[latencies.length / 2] / 1_000.0;
+        double p99 = latencies[(int) (latencies.length * 0.99)] / 1_000.0;
+        double p999 = latencies[(int) (latencies.length * 0.999)] / 1_000.0;
+
+        System.out.printf("risk scoring threads=%d checks=%d throughput=%.0f checks/s p50=%.1fus p99=%.1fus p99.9=%.1fus%n",
+                THREADS, latencies.length, latencies.length / seconds, p50, p99, p999);
+
+        assertThat(p99).isLessThan(1_000);
+    }
+
+    private long[] run(RiskScoringService scoring, int perThread) throws Exception {
+        long[] latencies = new long[THREADS * perThread];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * perThread;
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    long account = random.nextInt(ACCOUNTS);
+                    RiskContext context = new RiskContext(account / 3, account, (long) random.nextInt(ACCOUNTS),
+                            TransactionType.TRANSFER, BigDecimal.valueOf(random.nextInt(1, 100_000), 2), System.currentTimeMillis());
+
+                    long opStart = System.nanoTime();
+                    scoring.assess(context);
+                    scoring.record(context);
+                    latencies[offset + i] = System.nanoTime() - opStart;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return latencies;
+    }
+}
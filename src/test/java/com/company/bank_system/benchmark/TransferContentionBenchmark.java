@@ -0,0 +1,126 @@
+package com.company.bank_system.benchmark;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.AccountBalanceService;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads move money between a few hot accounts.
+ * Prints throughput, p99 latency and retry/deadlock counters per strategy
+ * and checks that no money was lost or created. One nested class per bank.balance.strategy.
+ */
+@Tag("benchmark")
+abstract class TransferContentionBenchmark extends PostgresContainerTest {
+
+    private static final int HOT_ACCOUNTS = 4;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 300;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountBalanceService balanceService;
+    @Autowired
+    private TransactionService transactionService;
+
+    @SpringBootTest(properties = {"bank.balance.strategy=PESSIMISTIC", "bank.balance.max-attempts=20"})
+    static class Pessimistic extends TransferContentionBenchmark {
+    }
+
+    @SpringBootTest(properties = {"bank.balance.strategy=OPTIMISTIC", "bank.balance.max-attempts=20"})
+    static class Optimistic extends TransferContentionBenchmark {
+    }
+
+    @SpringBootTest(properties = {"bank.balance.strategy=CONDITIONAL_UPDATE", "bank.balance.max-attempts=20"})
+    static class ConditionalUpdate extends TransferContentionBenchmark {
+    }
+
+    @Test
+    void hotAccounts() throws Exception {
+        AccountBalanceService.Strategy strategy = balanceService.getStrategy();
+        long retriesBefore = balanceService.getRetryCount();
+        long deadlocksBefore = balanceService.getDeadlockCount();
+
+        User user = userRepository.save(TestData.user());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(TestData.account(user, Currency.RUB, INITIAL_BALANCE)));
+        }
+
+        long[] latencies = new long[THREADS * TRANSFERS_PER_THREAD];
+        AtomicLong failures = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * TRANSFERS_PER_THREAD;
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(HOT_ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+
+                    long opStart = System.nanoTime();
+                    try {
+                        transactionService.transfer(new TransferRequest(
+                                accounts.get(from).getId(),
+                                accounts.get(to).getAccountNumber(),
+                                BigDecimal.ONE,
+                                "bench"
+                        ));
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[offset + i] = System.nanoTime() - opStart;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1_000_000_000.0;
+        double p50 = latencies[latencies.length / 2] / 1_000_000.0;
+        double p99 = latencies[(int) (latencies.length * 0.99)] / 1_000_000.0;
+
+        System.out.printf("%-20s ops=%d time=%.2fs throughput=%.0f ops/s p50=%.2fms p99=%.2fms retries=%d deadlocks=%d failures=%d%n",
+                strategy, latencies.length, seconds, latencies.length / seconds, p50, p99,
+                balanceService.getRetryCount() - retriesBefore, balanceService.getDeadlockCount() - deadlocksBefore, failures.get()
+        );
+
+        BigDecimal total = accounts.stream()
+                .map(a -> accountRepository.findById(a.getId()).orElseThrow().getBalance())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS)));
+    }
+}
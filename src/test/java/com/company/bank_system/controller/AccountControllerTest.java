@@ -11,6 +11,7 @@ import com.company.bank_system.entity.enums.User.UserStatus;
 import com.company.bank_system.repo.AccountRepository;
 import com.company.bank_system.repo.UserRepository;
 import com.company.bank_system.service.JWTService;
+import com.company.bank_system.service.Luhn;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -130,6 +131,7 @@ class AccountControllerTest {
         assertThat(savedAccount.getStatus()).isEqualTo(AccountStatus.ACTIVE);
         assertThat(savedAccount.getAccountNumber()).startsWith("40817");
         assertThat(savedAccount.getAccountNumber()).hasSize(20);
+        assertThat(Luhn.isValid(savedAccount.getAccountNumber())).isTrue();
 
 
 
@@ -0,0 +1,319 @@
+package com.company.bank_system.controller;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.StandingOrder;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Cards.CardType;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.entity.enums.User.UserRole;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.CardRepository;
+import com.company.bank_system.repo.StandingOrderRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.service.JWTService;
+import com.company.bank_system.service.ReconciliationService;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.QueryBudget;
+import com.company.bank_system.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Hibernate statements per GET endpoint: filter (token owner) + current user + the endpoint's own queries.
+ * The fixture has several accounts (one sharded), cards, transactions and standing orders, so an association
+ * loaded row by row goes over the budget. JdbcTemplate-backed reads (history pages, payroll imports, the
+ * portfolio) only count their Hibernate part.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bank.settlement.enabled=false",
+        "bank.standing-orders.enabled=false",
+        "bank.payroll.enabled=false",
+        "bank.outbox.relay.enabled=false"
+})
+@AutoConfigureMockMvc
+class QueryBudgetTest extends PostgresContainerTest {
+
+    // GET endpoints measured elsewhere: an open SSE stream and a statement streamed through JDBC after the request
+    private static final Set<String> UNBUDGETED = Set.of(
+            "/api/accounts/events",
+            "/api/transactions/statement/{accountId}"
+    );
+
+    private static final List<Endpoint> ENDPOINTS = List.of(
+            new Endpoint("/api/accounts/getAll", 4, f -> user(f, "/api/accounts/getAll")),
+            new Endpoint("/api/accounts/getById/{id}", 3, f -> user(f, "/api/accounts/getById/" + f.account().getId())),
+            new Endpoint("/api/accounts/getByNumber/{accountNumber}", 3, f -> user(f, "/api/accounts/getByNumber/" + f.account().getAccountNumber())),
+            new Endpoint("/api/accounts/getByType/{type}", 4, f -> user(f, "/api/accounts/getByType/CHECKING")),
+            new Endpoint("/api/accounts/getByCurrency/{currency}", 4, f -> user(f, "/api/accounts/getByCurrency/RUB")),
+            new Endpoint("/api/accounts/getByStatus/{status}", 4, f -> user(f, "/api/accounts/getByStatus/ACTIVE")),
+            new Endpoint("/api/accounts/{id}/balance", 4, f -> user(f, "/api/accounts/" + f.account().getId() + "/balance")),
+            new Endpoint("/api/accounts/totalBalance/{currency}", 2, f -> user(f, "/api/accounts/totalBalance/RUB")),
+            new Endpoint("/api/accounts/portfolio", 2, f -> user(f, "/api/accounts/portfolio")),
+            new Endpoint("/api/accounts/active", 4, f -> user(f, "/api/accounts/active")),
+            new Endpoint("/api/accounts/count", 3, f -> user(f, "/api/accounts/count")),
+            new Endpoint("/api/accounts/exists/{accountNumber}", 2, f -> user(f, "/api/accounts/exists/" + f.account().getAccountNumber())),
+
+            new Endpoint("/api/cards/getMyCards", 3, f -> user(f, "/api/cards/getMyCards")),
+            new Endpoint("/api/cards/getCard/{id}", 3, f -> user(f, "/api/cards/getCard/" + f.card().getId())),
+            new Endpoint("/api/cards/balance/{id}", 6, f -> user(f, "/api/cards/balance/" + f.card().getId())),
+            new Endpoint("/api/cards/getByAccount/{accountId}", 5, f -> user(f, "/api/cards/getByAccount/" + f.account().getId())),
+            new Endpoint("/api/cards/getByStatus/{status}", 3, f -> user(f, "/api/cards/getByStatus/ACTIVE")),
+            new Endpoint("/api/cards/getByType/{type}", 3, f -> user(f, "/api/cards/getByType/DEBIT")),
+            new Endpoint("/api/cards/active", 3, f -> user(f, "/api/cards/active")),
+            new Endpoint("/api/cards/blocked", 3, f -> user(f, "/api/cards/blocked")),
+            new Endpoint("/api/cards/expired", 3, f -> user(f, "/api/cards/expired")),
+            new Endpoint("/api/cards/count", 3, f -> user(f, "/api/cards/count")),
+            new Endpoint("/api/cards/countByStatus/{status}", 3, f -> user(f, "/api/cards/countByStatus/ACTIVE")),
+            new Endpoint("/api/cards/checkExpiry/{id}", 4, f -> user(f, "/api/cards/checkExpiry/" + f.card().getId())),
+            new Endpoint("/api/cards/admin/getByUser/{userId}", 3, f -> admin(f, "/api/cards/admin/getByUser/" + f.userId())),
+            new Endpoint("/api/cards/admin/getAllCards", 3, f -> admin(f, "/api/cards/admin/getAllCards")),
+            new Endpoint("/api/cards/admin/stats", 6, f -> admin(f, "/api/cards/admin/stats")),
+
+            new Endpoint("/api/admin/hello", 1, f -> admin(f, "/api/admin/hello")),
+            new Endpoint("/api/admin/getAll", 3, f -> admin(f, "/api/admin/getAll")),
+            new Endpoint("/api/admin", 3, f -> admin(f, "/api/admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(f.userId().toString())),
+            new Endpoint("/api/admin/fx/rates", 1, f -> admin(f, "/api/admin/fx/rates")),
+            new Endpoint("/api/admin/interest/runs/{businessDate}", 1, f -> admin(f, "/api/admin/interest/runs/" + f.businessDate())),
+            new Endpoint("/api/admin/limits/accounts/{accountId}", 2, f -> admin(f, "/api/admin/limits/accounts/" + f.account().getId())),
+            new Endpoint("/api/admin/reconciliation", 1, f -> admin(f, "/api/admin/reconciliation")),
+            new Endpoint("/api/admin/risk/reviews", 2, f -> admin(f, "/api/admin/risk/reviews")),
+
+            new Endpoint("/api/dashboard", 4, f -> user(f, "/api/dashboard")),
+
+            new Endpoint("/api/payroll/imports", 2, f -> user(f, "/api/payroll/imports")),
+            new Endpoint("/api/payroll/imports/{id}", 2, f -> user(f, "/api/payroll/imports/" + f.importId())),
+            new Endpoint("/api/payroll/imports/{id}/errors", 2, f -> user(f, "/api/payroll/imports/" + f.importId() + "/errors")),
+
+            new Endpoint("/api/standing-orders", 3, f -> user(f, "/api/standing-orders")),
+            new Endpoint("/api/standing-orders/{id}", 3, f -> user(f, "/api/standing-orders/" + f.standingOrderId())),
+
+            new Endpoint("/api/transactions/{id}", 3, f -> user(f, "/api/transactions/" + f.transactionId())),
+            new Endpoint("/api/transactions/history/{accountId}", 3, f -> user(f, "/api/transactions/history/" + f.account().getId()))
+    );
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+    @Autowired
+    private JWTService jwtService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private StandingOrderRepository standingOrderRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyGetEndpointStaysWithinItsBudget() throws Exception {
+        Fixture fixture = fixture();
+        QueryBudget budget = new QueryBudget(entityManagerFactory);
+
+        for (Endpoint endpoint : ENDPOINTS) {
+            budget.assertWithin(endpoint.pattern(), endpoint.budget(), () ->
+                    mockMvc.perform(endpoint.request().apply(fixture)).andExpect(status().is2xxSuccessful()));
+        }
+    }
+
+    @Test
+    void everyGetEndpointHasABudget() {
+        Set<String> budgeted = ENDPOINTS.stream().map(Endpoint::pattern).collect(Collectors.toSet());
+
+        List<String> missing = handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(e -> e.getValue().getBeanType().getPackageName().equals(QueryBudgetTest.class.getPackageName()))
+                .filter(e -> e.getKey().getMethodsCondition().getMethods().contains(RequestMethod.GET))
+                .flatMap(e -> e.getKey().getPatternValues().stream())
+                .filter(pattern -> !budgeted.contains(pattern) && !UNBUDGETED.contains(pattern))
+                .sorted()
+                .toList();
+
+        assertThat(missing).isEmpty();
+    }
+
+    private Fixture fixture() {
+        User user = userRepository.save(TestData.user());
+        User admin = TestData.user();
+        admin.setRole(UserRole.ADMIN);
+        admin = userRepository.save(admin);
+
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account sharded = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        accountService.configureBalanceSlots(sharded.getId(), 2);
+        List<Account> accounts = new ArrayList<>(List.of(account, sharded));
+        for (int i = 0; i < 3; i++) {
+            accounts.add(accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("10.00"))));
+        }
+        accounts.add(accountRepository.save(TestData.account(user, Currency.USD, BigDecimal.ZERO)));
+
+        List<Card> cards = new ArrayList<>();
+        for (Account a : accounts) {
+            cards.add(card(user, a));
+            cards.add(card(user, a));
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+        Long transactionId;
+        try {
+            transactionId = transactionService.transfer(
+                    new TransferRequest(account.getId(), sharded.getAccountNumber(), BigDecimal.ONE, "to sharded")).id();
+            for (int i = 2; i < 5; i++) {
+                transactionService.transfer(new TransferRequest(account.getId(), accounts.get(i).getAccountNumber(), BigDecimal.ONE, "fan out"));
+                transactionService.transfer(new TransferRequest(accounts.get(i).getId(), account.getAccountNumber(), BigDecimal.ONE, "back"));
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        for (int i = 2; i < 5; i++) {
+            underReview(accounts.get(i), account);
+        }
+
+        Long standingOrderId = standingOrderRepository.save(standingOrder(account, sharded)).getId();
+        for (int i = 2; i < 5; i++) {
+            standingOrderRepository.save(standingOrder(accounts.get(i), account));
+        }
+
+        Long importId = jdbcTemplate.queryForObject("INSERT INTO payroll_imports (user_id, from_account_id, file_name, file_path, " +
+                        "status, created_at, updated_at) VALUES (?, ?, 'june.csv', '/tmp/june.csv', 'PENDING', now(), now()) RETURNING id",
+                Long.class, user.getId(), account.getId());
+
+        LocalDate businessDate = LocalDate.of(2199, 1, 1);
+        jdbcTemplate.update("INSERT INTO interest_runs (business_date, status, started_at, updated_at) " +
+                "VALUES (?, 'COMPLETED', now(), now()) ON CONFLICT DO NOTHING", Date.valueOf(businessDate));
+        reconciliationService.run();
+
+        return new Fixture(
+                jwtService.generateToken(user.getEmail()),
+                jwtService.generateToken(admin.getEmail()),
+                user.getId(),
+                account,
+                cards.getFirst(),
+                transactionId,
+                standingOrderId,
+                importId,
+                businessDate
+        );
+    }
+
+    private Card card(User user, Account account) {
+        Card card = new Card();
+        card.setAccount(account);
+        card.setUser(user);
+        card.setCardNumber(String.format("%016d", ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L)));
+        card.setCvvHash("hash");
+        card.setExpiryDate(LocalDate.now().plusYears(5));
+        card.setCardType(CardType.DEBIT);
+        card.setPaymentSystem(CardPaymentSystem.VISA);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCreatedAt(LocalDateTime.now());
+        return cardRepository.save(card);
+    }
+
+    private void underReview(Account from, Account to) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setAmount(BigDecimal.ONE);
+        transaction.setCurrency(Currency.RUB);
+        transaction.setStatus(TransactionStatus.UNDER_REVIEW);
+        transaction.setCreatedAt(LocalDateTime.now());
+        transactionRepository.save(transaction);
+    }
+
+    private StandingOrder standingOrder(Account from, Account to) {
+        LocalDateTime start = LocalDateTime.now().plusDays(30);
+        StandingOrder order = new StandingOrder();
+        order.setFromAccount(from);
+        order.setToAccountNumber(to.getAccountNumber());
+        order.setAmount(BigDecimal.ONE);
+        order.setFrequency(StandingOrderFrequency.MONTHLY);
+        order.setStartAt(start);
+        order.setNextRunAt(start);
+        order.setNextAttemptAt(start);
+        order.setStatus(StandingOrderStatus.ACTIVE);
+        order.setCreatedAt(LocalDateTime.now());
+        return order;
+    }
+
+    private static MockHttpServletRequestBuilder user(Fixture fixture, String uri) {
+        return get(uri).header("Authorization", "Bearer " + fixture.userToken());
+    }
+
+    private static MockHttpServletRequestBuilder admin(Fixture fixture, String uri) {
+        return get(uri).header("Authorization", "Bearer " + fixture.adminToken());
+    }
+
+    private record Endpoint(String pattern, long budget, Function<Fixture, MockHttpServletRequestBuilder> request) {
+    }
+
+    private record Fixture(String userToken,
+                           String adminToken,
+                           Long userId,
+                           Account account,
+                           Card card,
+                           Long transactionId,
+                           Long standingOrderId,
+                           Long importId,
+                           LocalDate businessDate) {
+    }
+}
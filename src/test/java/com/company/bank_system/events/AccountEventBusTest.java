@@ -0,0 +1,154 @@
+package com.company.bank_system.events;
+
+import com.company.bank_system.dto.AccountUpdateEvent;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AccountEventBusTest extends PostgresContainerTest {
+
+    @Autowired
+    private AccountEventBus accountEventBus;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void committedTransferIsPushedToBothUsers() throws Exception {
+        User payer = userRepository.save(TestData.user());
+        User payee = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(payer, Currency.RUB, new BigDecimal("100.00")));
+        Account to = accountRepository.save(TestData.account(payee, Currency.RUB, BigDecimal.ZERO));
+
+        RecordingEmitter payerStream = subscribe(payer);
+        RecordingEmitter payeeStream = subscribe(payee);
+
+        transactionService.transfer(new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal("30.00"), null));
+
+        AccountUpdateEvent debited = payerStream.await(2).get(1).update();
+        assertThat(payerStream.events.getFirst().data()).isEqualTo("snapshot of " + payer.getId());
+        assertThat(debited.accountId()).isEqualTo(from.getId());
+        assertThat(debited.balance()).isEqualByComparingTo("70.00");
+        assertThat(debited.transaction().amount()).isEqualByComparingTo("30.00");
+
+        AccountUpdateEvent credited = payeeStream.await(2).get(1).update();
+        assertThat(credited.accountId()).isEqualTo(to.getId());
+        assertThat(credited.balance()).isEqualByComparingTo("30.00");
+        assertThat(credited.transaction().id()).isEqualTo(debited.transaction().id());
+    }
+
+    @Test
+    void rolledBackTransferIsNotPushed() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("10.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        RecordingEmitter stream = subscribe(user);
+
+        assertThatThrownBy(() -> transactionService.transfer(
+                new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal("50.00"), null)))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        Thread.sleep(300);
+        assertThat(stream.events).hasSize(1); // the snapshot only
+    }
+
+    @Test
+    void slowStreamIsClosedInsteadOfBuffering() throws Exception {
+        User user = userRepository.save(TestData.user());
+        CountDownLatch stuck = new CountDownLatch(1);
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    stuck.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        accountEventBus.subscribe(user.getId(), slow, () -> "snapshot");
+
+        for (int i = 0; i < 1_000 && accountEventBus.hasSubscribers(user.getId()); i++) {
+            accountEventBus.publishAfterCommit(user.getId(), new AccountUpdateEvent(1L, BigDecimal.ONE, null));
+        }
+        stuck.countDown();
+
+        assertThat(accountEventBus.hasSubscribers(user.getId())).isFalse();
+    }
+
+    @Test
+    void evictedStreamsLeaveTheGauge() {
+        User user = userRepository.save(TestData.user());
+        double before = streamsGauge();
+
+        for (int i = 0; i < 7; i++) {
+            subscribe(user);
+        }
+
+        // bank.events.max-streams-per-user defaults to 5
+        assertThat(streamsGauge()).isEqualTo(before + 5);
+    }
+
+    private double streamsGauge() {
+        return meterRegistry.get("bank.events.streams").gauge().value();
+    }
+
+    private RecordingEmitter subscribe(User user) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        accountEventBus.subscribe(user.getId(), emitter, () -> "snapshot of " + user.getId());
+        return emitter;
+    }
+
+    private record Sent(Object data) {
+        AccountUpdateEvent update() {
+            return (AccountUpdateEvent) data;
+        }
+    }
+
+    // keeps the payloads instead of writing them to a response
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Sent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(data -> !(data instanceof String text) || text.startsWith("snapshot"))
+                    .forEach(data -> events.add(new Sent(data)));
+        }
+
+        List<Sent> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.company.bank_system.interest;
+
+import com.company.bank_system.dto.InterestRunReport;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 10000.00 earns 1.00 a day on SAVED and 2.00 on DEPOSIT
+@SpringBootTest(properties = {
+        "bank.interest.cron=-",
+        "bank.interest.rates.SAVED=0.0365",
+        "bank.interest.rates.DEPOSIT=0.073",
+        "bank.interest.workers=2",
+        "bank.interest.chunk-size=3",
+        "bank.interest.max-passes=1",
+        "bank.interest.pass-delay=10ms"
+})
+class InterestAccrualServiceTest extends PostgresContainerTest {
+
+    @Autowired
+    private InterestAccrualService interestAccrualService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // accounts of other tests are not due for any date used here
+    @BeforeEach
+    void settleExistingAccounts() {
+        jdbcTemplate.update("UPDATE accounts SET interest_accrued_on = DATE '2100-01-01'");
+    }
+
+    @Test
+    void creditsEachDayOnceAndOnlyOnRatedAccounts() {
+        LocalDate date = LocalDate.now().plusDays(1);
+        User user = userRepository.save(TestData.user());
+        List<Account> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            saved.add(account(user, AccountType.SAVED, date.minusDays(1)));
+        }
+        Account deposit = account(user, AccountType.DEPOSIT, date.minusDays(1));
+        Account checking = account(user, AccountType.CHECKING, date.minusDays(1));
+        Account threeDays = account(user, AccountType.SAVED, date.minusDays(3));
+
+        InterestRunReport report = interestAccrualService.accrue(date);
+
+        assertThat(report.status()).isEqualTo("COMPLETED");
+        assertThat(report.accounts()).isEqualTo(9);
+        assertThat(report.interest()).isEqualByComparingTo("12.00");
+        assertThat(saved).allSatisfy(a -> assertThat(balance(a)).isEqualByComparingTo("10001.00"));
+        assertThat(balance(deposit)).isEqualByComparingTo("10002.00");
+        assertThat(balance(threeDays)).isEqualByComparingTo("10003.00");
+        assertThat(balance(checking)).isEqualByComparingTo("10000.00");
+        assertThat(interestTransactions(deposit)).isEqualTo(1);
+
+        // same business date again: nothing to do
+        assertThat(interestAccrualService.accrue(date).accounts()).isEqualTo(9);
+        assertThat(balance(deposit)).isEqualByComparingTo("10002.00");
+
+        interestAccrualService.accrue(date.plusDays(1));
+        assertThat(balance(threeDays)).isEqualByComparingTo("10004.00");
+        assertThat(interestTransactions(threeDays)).isEqualTo(2);
+    }
+
+    @Test
+    void lockedAccountIsSkippedAndCreditedByTheNextRun() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        User user = userRepository.save(TestData.user());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(account(user, AccountType.SAVED, date.minusDays(1)));
+        }
+        Account locked = accounts.get(2);
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofPlatform().start(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE id = ? FOR UPDATE", Long.class, locked.getId());
+            held.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(held.await(10, TimeUnit.SECONDS)).isTrue();
+
+        InterestRunReport first;
+        try {
+            first = interestAccrualService.accrue(date);
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        assertThat(first.status()).isEqualTo("INCOMPLETE");
+        assertThat(first.accounts()).isEqualTo(4);
+        assertThat(balance(locked)).isEqualByComparingTo("10000.00");
+        assertThat(balance(accounts.getFirst())).isEqualByComparingTo("10001.00");
+
+        InterestRunReport second = interestAccrualService.accrue(date);
+
+        assertThat(second.status()).isEqualTo("COMPLETED");
+        assertThat(second.accounts()).isEqualTo(5);
+        assertThat(accounts).allSatisfy(a -> assertThat(balance(a)).isEqualByComparingTo("10001.00"));
+        assertThat(interestTransactions(locked)).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedRunResumesWithoutCreditingTwice() {
+        LocalDate date = LocalDate.now().plusDays(20);
+        User user = userRepository.save(TestData.user());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            accounts.add(account(user, AccountType.SAVED, date.minusDays(1)));
+        }
+
+        // a crashed run that credited the first half
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 1, interest_accrued_on = ? WHERE id IN (?, ?, ?)",
+                Date.valueOf(date), accounts.get(0).getId(), accounts.get(1).getId(), accounts.get(2).getId());
+        jdbcTemplate.update("INSERT INTO interest_runs (business_date, status, checkpoint_id, accounts, interest, started_at, updated_at) " +
+                "VALUES (?, 'RUNNING', ?, 3, 3.00, now(), now())", Date.valueOf(date), accounts.get(3).getId());
+
+        InterestRunReport report = interestAccrualService.accrue(date);
+
+        assertThat(report.status()).isEqualTo("COMPLETED");
+        assertThat(report.accounts()).isEqualTo(6);
+        assertThat(report.interest()).isEqualByComparingTo("6.00");
+        assertThat(accounts).allSatisfy(a -> assertThat(balance(a)).isEqualByComparingTo("10001.00"));
+        assertThat(interestTransactions(accounts.getFirst())).isZero();
+        assertThat(interestTransactions(accounts.getLast())).isEqualTo(1);
+    }
+
+    private Account account(User user, AccountType type, LocalDate createdOn) {
+        Account account = TestData.account(user, Currency.RUB, new BigDecimal("10000.00"));
+        account.setAccountType(type);
+        account.setCreatedAt(createdOn.atStartOfDay());
+        return accountRepository.save(account);
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private int interestTransactions(Account account) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE to_account_id = ? AND transaction_type = 'INTEREST'",
+                Integer.class, account.getId());
+    }
+}
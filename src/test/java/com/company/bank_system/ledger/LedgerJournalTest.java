@@ -0,0 +1,98 @@
+package com.company.bank_system.ledger;
+
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay_shouldReturnFlushedRecordsAfterReopen() throws Exception {
+        LedgerJournal journal = new LedgerJournal(dir, 4096);
+        for (long seq = 1; seq <= 200; seq++) {
+            journal.append(posting(seq));
+        }
+        journal.flush();
+
+        LedgerJournal reopened = new LedgerJournal(dir, 4096);
+        List<LedgerPosting> replayed = new ArrayList<>();
+        reopened.replay(150, replayed::add);
+
+        assertThat(reopened.lastSeq()).isEqualTo(200);
+        assertThat(replayed).hasSize(50);
+        assertThat(replayed.getFirst().seq()).isEqualTo(151);
+        assertThat(replayed.getFirst().description()).isEqualTo("posting 151");
+        assertThat(replayed.getFirst().type()).isEqualTo(TransactionType.TRANSFER);
+    }
+
+    @Test
+    void reader_shouldFollowWriterAcrossSegmentsAndSeeOnlyFlushedRecords() throws Exception {
+        LedgerJournal journal = new LedgerJournal(dir, 1024);
+        LedgerJournal.Reader reader = journal.reader(0);
+
+        for (long seq = 1; seq <= 50; seq++) {
+            journal.append(posting(seq));
+        }
+        assertThat(reader.next(100)).isEmpty();
+
+        journal.flush();
+        List<LedgerPosting> read = reader.next(100);
+
+        assertThat(read).extracting(LedgerPosting::seq).containsExactlyElementsOf(
+                LongStream.rangeClosed(1, 50).boxed().toList()
+        );
+
+        journal.deleteUpTo(50);
+        journal.append(posting(51));
+        journal.flush();
+        assertThat(reader.next(100)).extracting(LedgerPosting::seq).containsExactly(51L);
+    }
+
+    @Test
+    void open_shouldStopAtTornRecordAndOverwriteIt() throws Exception {
+        LedgerJournal journal = new LedgerJournal(dir, 4096);
+        for (long seq = 1; seq <= 10; seq++) {
+            journal.append(posting(seq));
+        }
+        journal.flush();
+
+        // records 1-9 are 52 + 9 bytes, flip a byte inside the amount of record 10
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("journal-00000000000000000001.log").toFile(), "rw")) {
+            int at = 9 * 61 + 34;
+            file.seek(at);
+            int b = file.read();
+            file.seek(at);
+            file.write(b ^ 0xFF);
+        }
+
+        LedgerJournal reopened = new LedgerJournal(dir, 4096);
+        assertThat(reopened.lastSeq()).isEqualTo(9);
+
+        reopened.append(posting(10));
+        reopened.flush();
+        List<LedgerPosting> replayed = new ArrayList<>();
+        new LedgerJournal(dir, 4096).replay(0, replayed::add);
+
+        assertThat(replayed).extracting(LedgerPosting::seq).containsExactlyElementsOf(
+                LongStream.rangeClosed(1, 10).boxed().toList()
+        );
+        assertThat(replayed.getLast().amountMinor()).isEqualTo(100);
+    }
+
+    private LedgerPosting posting(long seq) {
+        return new LedgerPosting(seq, TransactionType.TRANSFER, 1, 2, 100, Currency.RUB,
+                System.currentTimeMillis(), "posting " + seq);
+    }
+}
@@ -0,0 +1,142 @@
+package com.company.bank_system.limits;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.exception.Exceptions.SpendingLimitExceededException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "bank.limits.resync-interval-ms=3600000")
+class SpendingLimitServiceTest extends PostgresContainerTest {
+
+    @Autowired
+    private SpendingLimitService spendingLimitService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void perTransactionLimitRejectsWithoutMovingMoney() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(from.getId(), new BigDecimal("50.00"), null);
+
+        assertThatThrownBy(() -> transfer(from, to, "60.00")).isInstanceOf(SpendingLimitExceededException.class);
+
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getBalance()).isEqualByComparingTo("1000.00");
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void dailyLimitCountsSpendingInTheWindow() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(from.getId(), null, new BigDecimal("100.00"));
+
+        transfer(from, to, "60.00");
+        assertThatThrownBy(() -> transfer(from, to, "60.00")).isInstanceOf(SpendingLimitExceededException.class);
+        transfer(from, to, "40.00");
+
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("100.00");
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getBalance()).isEqualByComparingTo("900.00");
+
+        // counters rebuilt from the transactions table agree with the in-memory ones
+        spendingLimitService.rebuild();
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("100.00");
+        assertThatThrownBy(() -> transfer(from, to, "0.01")).isInstanceOf(SpendingLimitExceededException.class);
+    }
+
+    @Test
+    void rolledBackTransferGivesTheReservationBack() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("30.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(from.getId(), null, new BigDecimal("100.00"));
+
+        assertThatThrownBy(() -> transfer(from, to, "50.00")).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void openReservationSurvivesRebuild() {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(account.getId(), null, new BigDecimal("100.00"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            spendingLimitService.reserve(account, null, new BigDecimal("60.00"));
+            spendingLimitService.rebuild(); // nothing committed yet, the query cannot see it
+
+            assertThat(spendingLimitService.spent(account.getId())).isEqualByComparingTo("60.00");
+            assertThatThrownBy(() -> spendingLimitService.reserve(account, null, new BigDecimal("60.00")))
+                    .isInstanceOf(SpendingLimitExceededException.class);
+            status.setRollbackOnly();
+        });
+
+        // released from the rebuilt counters too
+        assertThat(spendingLimitService.spent(account.getId())).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void defaultLimitsAreInTheAccountCurrency() {
+        User user = userRepository.save(TestData.user());
+        Account rubles = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account dollars = accountRepository.save(TestData.account(user, Currency.USD, BigDecimal.ZERO));
+
+        // CHECKING: 500000 per transaction in RUB, 5000 in USD
+        spendingLimitService.reserve(rubles, null, new BigDecimal("6000.00")).release();
+        assertThatThrownBy(() -> spendingLimitService.reserve(dollars, null, new BigDecimal("6000.00")))
+                .isInstanceOf(SpendingLimitExceededException.class);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void checkIsInMemory() {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(account.getId(), null, new BigDecimal("100000000.00"));
+        BigDecimal amount = new BigDecimal("1.00");
+
+        for (int i = 0; i < 100_000; i++) {
+            spendingLimitService.reserve(account, null, amount).release();
+        }
+        int iterations = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            spendingLimitService.reserve(account, null, amount);
+        }
+        long nanosPerCheck = (System.nanoTime() - start) / iterations;
+
+        assertThat(spendingLimitService.spent(account.getId())).isEqualByComparingTo("1000000.00");
+        assertThat(nanosPerCheck).isLessThan(50_000);
+    }
+
+    private void transfer(Account from, Account to, String amount) {
+        transactionService.transfer(new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal(amount), null));
+    }
+}
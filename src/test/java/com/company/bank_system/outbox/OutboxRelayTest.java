@@ -0,0 +1,122 @@
+package com.company.bank_system.outbox;
+
+import com.company.bank_system.dto.DepositRequest;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// the scheduled relay only runs once at startup, the test drives relayBatch() itself
+@SpringBootTest(properties = "bank.outbox.relay.interval-ms=3600000")
+class OutboxRelayTest extends PostgresContainerTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RecordingSink recordingSink;
+    @Autowired
+    private FlakySink flakySink;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void eventIsDeliveredOncePerSinkAcrossFailedBatch() {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+
+        TransactionResponse deposit = transactionService.deposit(new DepositRequest(account.getId(), BigDecimal.TEN, null));
+
+        // recording sink takes the batch, flaky sink fails -> rolled back, nothing deleted
+        flakySink.failNext.set(true);
+        assertThatThrownBy(() -> outboxRelay.relayBatch()).isInstanceOf(IllegalStateException.class);
+        assertThat(outboxRelay.relayBatch()).isEqualTo(1);
+        assertThat(outboxRelay.relayBatch()).isZero();
+
+        assertThat(recordingSink.events).filteredOn(e -> deposit.id().equals(e.transactionId()))
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.eventType()).isEqualTo(OutboxEvent.TRANSACTION_CREATED);
+                    assertThat(e.payload()).contains("\"amount\":10");
+                });
+        assertThat(flakySink.events).filteredOn(e -> deposit.id().equals(e.transactionId())).hasSize(1);
+    }
+
+    @TestConfiguration
+    static class Sinks {
+
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+
+        @Bean
+        FlakySink flakySink() {
+            return new FlakySink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+        final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void publish(List<OutboxEvent> batch) {
+            events.addAll(batch);
+        }
+    }
+
+    static class FlakySink implements OutboxSink {
+        final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        @Override
+        public String name() {
+            return "flaky";
+        }
+
+        @Override
+        public void publish(List<OutboxEvent> batch) {
+            if (failNext.getAndSet(false)) {
+                throw new IllegalStateException("sink down");
+            }
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.company.bank_system.payroll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayrollCsvReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsLinesAcrossWindowsAndSkipsHeaderAndBlankLines() throws Exception {
+        StringBuilder csv = new StringBuilder("account_number,amount,description\r\n");
+        for (int i = 1; i <= 500; i++) {
+            csv.append("40817").append(String.format("%015d", i)).append(',').append(i).append(".50,\"salary, june\"\r\n");
+            if (i % 100 == 0) {
+                csv.append("\n");
+            }
+        }
+        Path file = write(csv.toString());
+
+        List<PayrollLine> lines = readAll(file, 0, 0, 64);
+
+        assertThat(lines).hasSize(500);
+        assertThat(lines).allSatisfy(line -> assertThat(line.error()).isNull());
+        assertThat(lines.getFirst().lineNumber()).isEqualTo(2);
+        assertThat(lines.getFirst().accountNumber()).isEqualTo("40817000000000000001");
+        assertThat(lines.getFirst().amount()).isEqualByComparingTo("1.50");
+        assertThat(lines.getFirst().description()).isEqualTo("salary, june");
+        assertThat(lines.getLast().amount()).isEqualByComparingTo("500.50");
+    }
+
+    @Test
+    void continuesFromSavedOffset() throws Exception {
+        Path file = write("1,1.00\n2,2.00\n3,3.00\n4,4.00");
+
+        long offset;
+        long lineNumber;
+        try (PayrollCsvReader reader = new PayrollCsvReader(file, 0, 0, 8)) {
+            reader.next();
+            reader.next();
+            offset = reader.offset();
+            lineNumber = reader.lineNumber();
+        }
+
+        List<PayrollLine> rest = readAll(file, offset, lineNumber, 8);
+
+        assertThat(rest).extracting(PayrollLine::accountNumber).containsExactly("3", "4");
+        assertThat(rest).extracting(PayrollLine::lineNumber).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void reportsLinesThatCannotBeParsed() {
+        assertThat(PayrollCsvReader.parse(1, "123").error()).isNotNull();
+        assertThat(PayrollCsvReader.parse(1, ",10").error()).isEqualTo("Account number is missing");
+        assertThat(PayrollCsvReader.parse(1, "123,ten").error()).isEqualTo("Amount is not a number");
+        assertThat(PayrollCsvReader.parse(1, "123,1.005").error()).isEqualTo("Amount has more than 2 decimals");
+        assertThat(PayrollCsvReader.parse(1, "123, 10.00 ,").description()).isNull();
+    }
+
+    private List<PayrollLine> readAll(Path file, long offset, long lineNumber, long window) throws Exception {
+        List<PayrollLine> lines = new ArrayList<>();
+        try (PayrollCsvReader reader = new PayrollCsvReader(file, offset, lineNumber, window)) {
+            PayrollLine line;
+            while ((line = reader.next()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = dir.resolve("payroll.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,140 @@
+package com.company.bank_system.payroll;
+
+import com.company.bank_system.dto.PayrollImportLineError;
+import com.company.bank_system.dto.PayrollImportResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "bank.payroll.chunk-size=2",
+        "bank.payroll.idle-sleep-ms=50"
+})
+class PayrollImportProcessorTest extends PostgresContainerTest {
+
+    @TempDir
+    static Path dir;
+
+    @Autowired
+    private PayrollImportService payrollImportService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void postsValidLinesAndReportsTheRest() throws Exception {
+        User user = login();
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+        Account first = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account second = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account dollars = accountRepository.save(TestData.account(user, Currency.USD, BigDecimal.ZERO));
+
+        String csv = "account_number,amount,description\r\n" +
+                first.getAccountNumber() + ",30.00,salary\r\n" +
+                second.getAccountNumber() + ",ten\r\n" +
+                "40817999999999999999,5.00\r\n" +
+                second.getAccountNumber() + ",20.00,\"bonus, q2\"\r\n" +
+                dollars.getAccountNumber() + ",1.00\r\n" +
+                first.getAccountNumber() + ",60.00\r\n";
+
+        PayrollImportResponse queued = payrollImportService.upload(payer.getId(),
+                new MockMultipartFile("file", "june.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+        PayrollImportResponse done = await(queued.id());
+
+        assertThat(done.status()).isEqualTo("COMPLETED");
+        assertThat(done.succeeded()).isEqualTo(2);
+        assertThat(done.failed()).isEqualTo(4);
+        assertThat(done.totalAmount()).isEqualByComparingTo("50.00");
+        assertThat(balance(payer)).isEqualByComparingTo("50.00");
+        assertThat(balance(first)).isEqualByComparingTo("30.00");
+        assertThat(balance(second)).isEqualByComparingTo("20.00");
+
+        List<PayrollImportLineError> errors = payrollImportService.getErrors(queued.id(), 0, 100);
+        assertThat(errors).extracting(PayrollImportLineError::lineNumber).containsExactly(3L, 4L, 6L, 7L);
+        assertThat(errors.get(0).error()).isEqualTo("Amount is not a number");
+        assertThat(errors.get(1).error()).contains("not found");
+        assertThat(errors.get(2).error()).contains("Currency mismatch");
+        assertThat(errors.get(3).error()).contains("low balance");
+        assertThat(payrollImportService.getErrors(queued.id(), 4, 2)).extracting(PayrollImportLineError::lineNumber)
+                .containsExactly(6L, 7L);
+    }
+
+    @Test
+    void abandonedImportResumesAfterItsLastCommittedChunk() throws Exception {
+        User user = login();
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+        Account payee = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        String done = payee.getAccountNumber() + ",1.00\n" + payee.getAccountNumber() + ",2.00\n";
+        String left = payee.getAccountNumber() + ",3.00\n" + payee.getAccountNumber() + ",4.00\n";
+        Path file = dir.resolve("abandoned.csv");
+        Files.writeString(file, done + left, StandardCharsets.UTF_8);
+
+        // a worker died after its first chunk: the lease has run out
+        Long id = jdbcTemplate.queryForObject("INSERT INTO payroll_imports (user_id, from_account_id, file_name, file_path, " +
+                        "status, next_offset, lines, succeeded, total_amount, locked_until, created_at, updated_at) " +
+                        "VALUES (?, ?, 'abandoned.csv', ?, 'RUNNING', ?, 2, 2, 3.00, now() - interval '1 minute', now(), now()) RETURNING id",
+                Long.class, user.getId(), payer.getId(), file.toString(), done.getBytes(StandardCharsets.UTF_8).length);
+
+        PayrollImportResponse resumed = await(id);
+
+        assertThat(resumed.status()).isEqualTo("COMPLETED");
+        assertThat(resumed.succeeded()).isEqualTo(4);
+        assertThat(resumed.totalAmount()).isEqualByComparingTo("10.00");
+        assertThat(resumed.lines()).isEqualTo(4);
+        assertThat(balance(payee)).isEqualByComparingTo("7.00");
+        assertThat(balance(payer)).isEqualByComparingTo("93.00");
+    }
+
+    private User login() {
+        User user = userRepository.save(TestData.user());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+        return user;
+    }
+
+    private PayrollImportResponse await(Long importId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (true) {
+            PayrollImportResponse current = payrollImportService.getImport(importId);
+            if (current.finishedAt() != null || System.currentTimeMillis() > deadline) {
+                return current;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,100 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.dto.PortfolioSummary;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.service.AccountService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PortfolioRepositoryTest extends PostgresContainerTest {
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void groupsAccountsAndCardsOfTheUser() {
+        User user = userRepository.save(TestData.user());
+        Account checking = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+        Account sharded = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("20.00")));
+        Account blocked = TestData.account(user, Currency.RUB, new BigDecimal("50.00"));
+        blocked.setStatus(AccountStatus.BLOCKED);
+        accountRepository.save(blocked);
+        Account savings = TestData.account(user, Currency.USD, new BigDecimal("10.00"));
+        savings.setAccountType(AccountType.SAVED);
+        accountRepository.save(savings);
+
+        accountService.configureBalanceSlots(sharded.getId(), 2);
+        jdbcTemplate.update("UPDATE account_balance_slots SET balance = 5.00 WHERE account_id = ?", sharded.getId());
+
+        card(user, checking, CardStatus.ACTIVE);
+        card(user, checking, CardStatus.ACTIVE);
+        card(user, sharded, CardStatus.BLOCKED);
+
+        // someone else's account is not counted
+        User other = userRepository.save(TestData.user());
+        accountRepository.save(TestData.account(other, Currency.RUB, new BigDecimal("1000.00")));
+
+        PortfolioSummary summary = portfolioRepository.summarize(user.getId());
+
+        assertThat(summary.balances()).containsOnlyKeys(Currency.RUB, Currency.USD);
+        assertThat(summary.balances().get(Currency.RUB)).isEqualByComparingTo("130.00");
+        assertThat(summary.balances().get(Currency.USD)).isEqualByComparingTo("10.00");
+        assertThat(summary.accountsByStatus()).isEqualTo(Map.of(AccountStatus.ACTIVE, 3L, AccountStatus.BLOCKED, 1L));
+        assertThat(summary.accountsByType()).isEqualTo(Map.of(AccountType.CHECKING, 3L, AccountType.SAVED, 1L));
+        assertThat(summary.cardsByStatus()).isEqualTo(Map.of(CardStatus.ACTIVE, 2L, CardStatus.BLOCKED, 1L));
+    }
+
+    @Test
+    void userWithoutAccountsGetsEmptyGroups() {
+        User user = userRepository.save(TestData.user());
+
+        PortfolioSummary summary = portfolioRepository.summarize(user.getId());
+
+        assertThat(summary.balances()).isEmpty();
+        assertThat(summary.accountsByStatus()).isEmpty();
+        assertThat(summary.cardsByStatus()).isEmpty();
+    }
+
+    private void card(User user, Account account, CardStatus status) {
+        Card card = new Card();
+        card.setAccount(account);
+        card.setUser(user);
+        card.setCardNumber(String.format("%016d", ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L)));
+        card.setCvvHash("hash");
+        card.setExpiryDate(LocalDate.now().plusYears(5));
+        card.setPaymentSystem(CardPaymentSystem.MIR);
+        card.setStatus(status);
+        card.setCreatedAt(LocalDateTime.now());
+        cardRepository.save(card);
+    }
+}
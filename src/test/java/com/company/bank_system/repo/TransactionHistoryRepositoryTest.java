@@ -0,0 +1,121 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TransactionHistoryRepositoryTest extends PostgresContainerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(TestData.user());
+        account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account other = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        // incoming and outgoing interleaved, several rows per timestamp to exercise the id tie-break
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            boolean outgoing = i % 2 == 0;
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount(outgoing ? account : other);
+            transaction.setToAccount(outgoing ? other : account);
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setAmount(BigDecimal.ONE);
+            transaction.setCurrency(Currency.RUB);
+            transaction.setStatus(i % 5 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED);
+            transaction.setCreatedAt(START.plusMinutes(i / 3));
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Test
+    void pagesCoverHistoryOnceNewestFirst() {
+        List<TransactionResponse> all = new ArrayList<>();
+        LocalDateTime cursorCreatedAt = END;
+        long cursorId = Long.MAX_VALUE;
+
+        while (true) {
+            List<TransactionResponse> page = transactionHistoryRepository.findPage(account.getId(), START, END,
+                    EnumSet.allOf(TransactionType.class), EnumSet.allOf(TransactionStatus.class),
+                    cursorCreatedAt, cursorId, 40);
+            all.addAll(page);
+            if (page.size() < 40) {
+                break;
+            }
+            cursorCreatedAt = page.getLast().createdAt();
+            cursorId = page.getLast().id();
+        }
+
+        assertThat(all).hasSize(250);
+        assertThat(all).extracting(TransactionResponse::id).doesNotHaveDuplicates();
+        assertThat(all).isSortedAccordingTo(Comparator.comparing(TransactionResponse::createdAt)
+                .thenComparing(TransactionResponse::id)
+                .reversed());
+    }
+
+    @Test
+    void filtersByStatusAndDateRange() {
+        LocalDateTime from = START.plusMinutes(10);
+        LocalDateTime to = START.plusMinutes(20);
+
+        List<TransactionResponse> page = transactionHistoryRepository.findPage(account.getId(), from, to,
+                EnumSet.allOf(TransactionType.class), EnumSet.of(TransactionStatus.FAILED),
+                END, Long.MAX_VALUE, 500);
+
+        // minutes 10..19 are rows 30..59, every fifth is FAILED
+        assertThat(page).hasSize(6);
+        assertThat(page).allSatisfy(t -> {
+            assertThat(t.status()).isEqualTo(TransactionStatus.FAILED);
+            assertThat(t.createdAt()).isBetween(from, to.minus(1, ChronoUnit.MICROS));
+        });
+    }
+
+    @Test
+    void filtersByType() {
+        List<TransactionResponse> transfers = transactionHistoryRepository.findPage(account.getId(), START, END,
+                EnumSet.of(TransactionType.TRANSFER), EnumSet.allOf(TransactionStatus.class),
+                END, Long.MAX_VALUE, 500);
+        List<TransactionResponse> deposits = transactionHistoryRepository.findPage(account.getId(), START, END,
+                EnumSet.of(TransactionType.DEPOSIT), EnumSet.allOf(TransactionStatus.class),
+                END, Long.MAX_VALUE, 500);
+
+        assertThat(transfers).hasSize(250);
+        assertThat(deposits).isEmpty();
+    }
+}
@@ -0,0 +1,69 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransactionInsertBatchingTest extends PostgresContainerTest {
+
+    private static final int COUNT = 1_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insertsAreBatchedWithPooledIds() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000000")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        List<Transaction> transactions = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount(from);
+            transaction.setToAccount(to);
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setAmount(new BigDecimal("1.00"));
+            transaction.setCurrency(Currency.RUB);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setCreatedAt(LocalDateTime.now());
+            transactions.add(transaction);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        transactionRepository.saveAll(transactions);
+
+        // 1000 inserts in batches of 50 + one sequence call per 50 ids, instead of 1000 INSERT ... RETURNING
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * COUNT / 50 + 10);
+        assertThat(transactions).extracting(Transaction::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(transactionRepository.count()).isGreaterThanOrEqualTo(COUNT);
+    }
+}
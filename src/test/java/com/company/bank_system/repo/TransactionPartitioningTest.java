@@ -0,0 +1,121 @@
+package com.company.bank_system.repo;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.service.TransactionPartitionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TransactionPartitioningTest extends PostgresContainerTest {
+
+    @Autowired
+    private TransactionPartitionService transactionPartitionService;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    // future months: pre-created at startup and guaranteed to have nothing in the default partition
+    private final YearMonth month = YearMonth.now().plusMonths(1);
+
+    @Test
+    void historyPageScansOnlyTheMonthInRange() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", 1L)
+                .addValue("from", Timestamp.valueOf(month.atDay(1).atStartOfDay()))
+                .addValue("to", Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()))
+                .addValue("types", List.of("TRANSFER"))
+                .addValue("statuses", List.of("COMPLETED"))
+                .addValue("cursorCreatedAt", Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()))
+                .addValue("cursorId", Long.MAX_VALUE)
+                .addValue("limit", 50);
+
+        assertScansOnly(explain(TransactionHistoryRepository.PAGE, params), month);
+    }
+
+    @Test
+    void statementScansOnlyTheMonthInRange() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", 1L)
+                .addValue("from", Timestamp.valueOf(month.atDay(10).atStartOfDay()))
+                .addValue("to", Timestamp.valueOf(month.atDay(20).atStartOfDay()));
+
+        assertScansOnly(explain(TransactionHistoryRepository.STATEMENT, params), month);
+    }
+
+    @Test
+    void expiredPartitionIsMovedToArchive() {
+        YearMonth old = YearMonth.now().minusMonths(40);
+        String partition = TransactionPartitionService.partitionName(old);
+        assertThat(transactionPartitionService.createPartitions(old, old)).containsExactly(partition);
+
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        LocalDateTime createdAt = old.atDay(15).atStartOfDay();
+        jdbcTemplate.update("INSERT INTO transactions (to_account_id, transaction_type, amount, currency, status, created_at) " +
+                "VALUES (?, 'DEPOSIT', 5, 'RUB', 'COMPLETED', ?)", account.getId(), Timestamp.valueOf(createdAt));
+
+        assertThat(transactionPartitionService.archiveBefore(old.plusMonths(1))).contains(partition);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions WHERE to_account_id = ?",
+                Long.class, account.getId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions_archive." + partition +
+                " WHERE to_account_id = ?", Long.class, account.getId())).isEqualTo(1);
+        // live months are untouched
+        assertThat(explain("SELECT * FROM transactions", new MapSqlParameterSource()))
+                .contains(TransactionPartitionService.partitionName(YearMonth.now()));
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionMoveIntoTheNewMonth() {
+        YearMonth far = YearMonth.now().plusMonths(60);
+        String partition = TransactionPartitionService.partitionName(far);
+
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        jdbcTemplate.update("INSERT INTO transactions (to_account_id, transaction_type, amount, currency, status, created_at) " +
+                "VALUES (?, 'DEPOSIT', 5, 'RUB', 'COMPLETED', ?)", account.getId(), Timestamp.valueOf(far.atDay(3).atStartOfDay()));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions_default WHERE to_account_id = ?",
+                Long.class, account.getId())).isEqualTo(1);
+
+        assertThat(transactionPartitionService.createPartitions(far, far)).containsExactly(partition);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions_default WHERE to_account_id = ?",
+                Long.class, account.getId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM " + partition + " WHERE to_account_id = ?",
+                Long.class, account.getId())).isEqualTo(1);
+    }
+
+    private String explain(String sql, MapSqlParameterSource params) {
+        return String.join("\n", namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class));
+    }
+
+    private void assertScansOnly(String plan, YearMonth expected) {
+        assertThat(plan).contains(TransactionPartitionService.partitionName(expected));
+        assertThat(plan).doesNotContain(
+                TransactionPartitionService.partitionName(expected.minusMonths(1)),
+                TransactionPartitionService.partitionName(expected.plusMonths(1)),
+                "transactions_default"
+        );
+    }
+}
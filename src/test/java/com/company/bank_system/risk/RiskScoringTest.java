@@ -0,0 +1,123 @@
+package com.company.bank_system.risk;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.exception.Exceptions.TransactionBlockedException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.TransactionService;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "bank.settlement.idle-sleep-ms=20")
+@TestPropertySource(properties = {
+        "bank.risk.enabled=true",
+        "bank.risk.velocity.max-per-account=5",
+        "bank.risk.velocity.max-per-user=100",
+        "bank.risk.outlier.min-samples=4"
+})
+class RiskScoringTest extends PostgresContainerTest {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void burstIsHeldForReviewThenBlocked() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        List<TransactionResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(transfer(from, to, "10.00"));
+        }
+        assertThat(responses.subList(0, 5)).allMatch(r -> r.status() == TransactionStatus.COMPLETED);
+        assertThat(responses.subList(5, 10)).allMatch(r -> r.status() == TransactionStatus.UNDER_REVIEW);
+        assertThatThrownBy(() -> transfer(from, to, "10.00")).isInstanceOf(TransactionBlockedException.class);
+
+        // held transfers are debited, not credited
+        assertThat(balance(from)).isEqualByComparingTo("900.00");
+        assertThat(balance(to)).isEqualByComparingTo("50.00");
+
+        Long approved = responses.get(5).id();
+        Long rejected = responses.get(6).id();
+        assertThat(transactionService.approveReview(approved).status()).isEqualTo(TransactionStatus.PENDING);
+        assertThat(transactionService.rejectReview(rejected).status()).isEqualTo(TransactionStatus.FAILED);
+        assertThatThrownBy(() -> transactionService.rejectReview(approved)).hasMessageContaining("not under review");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (transactionRepository.findById(approved).orElseThrow().getStatus() != TransactionStatus.COMPLETED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(balance(to)).isEqualByComparingTo("60.00");
+        assertThat(balance(from)).isEqualByComparingTo("910.00");
+        assertThat(transactionService.getTransactionsUnderReview()).extracting(TransactionResponse::id)
+                .doesNotContain(approved, rejected)
+                .contains(responses.get(7).id());
+    }
+
+    @Test
+    void unusualAmountIsBlockedToANewPayeeAndHeldOtherwise() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100000.00")));
+        Account known = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account stranger = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(transfer(from, known, "10.00").status()).isEqualTo(TransactionStatus.COMPLETED);
+        }
+
+        // outlier and new payee together reach the block score, the outlier alone only a review
+        assertThatThrownBy(() -> transfer(from, stranger, "5000.00")).isInstanceOf(TransactionBlockedException.class);
+        assertThat(balance(stranger)).isEqualByComparingTo("0.00");
+        assertThat(transfer(from, known, "5000.00").status()).isEqualTo(TransactionStatus.UNDER_REVIEW);
+    }
+
+    @Test
+    void failedPostingsDoNotCountAsVelocity() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("50.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> transfer(from, to, "100.00")).isInstanceOf(InsufficientFundsException.class);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(transfer(from, to, "10.00").status()).isEqualTo(TransactionStatus.COMPLETED);
+        }
+        assertThat(balance(to)).isEqualByComparingTo("50.00");
+    }
+
+    private TransactionResponse transfer(Account from, Account to, String amount) {
+        return transactionService.transfer(new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal(amount), null));
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,149 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.repo.AccountBalanceSlotRepository;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AccountBalanceSlotsTest extends PostgresContainerTest {
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void debitLargerThanAnySlotIsPaidFromAllOfThem() {
+        Account merchant = shardedAccount("5.00", 4, "20.00");
+
+        // 85 in total, no slot holds more than 20
+        debit(merchant, "70.00");
+
+        assertThat(slotRepository.sumByAccountId(merchant.getId())).isEqualByComparingTo("0.00");
+        assertThat(total(merchant)).isEqualByComparingTo("15.00");
+        assertThat(accountRepository.findById(merchant.getId()).orElseThrow().getBalance()).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    void debitLargerThanTheTotalLeavesTheSlotsAlone() {
+        Account merchant = shardedAccount("5.00", 4, "20.00");
+
+        assertThatThrownBy(() -> debit(merchant, "90.00")).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(slotRepository.sumByAccountId(merchant.getId())).isEqualByComparingTo("80.00");
+        assertThat(total(merchant)).isEqualByComparingTo("85.00");
+    }
+
+    @Test
+    void reshardingKeepsTheBalance() {
+        Account merchant = shardedAccount("5.00", 4, "20.00");
+
+        accountService.configureBalanceSlots(merchant.getId(), 2);
+        assertThat(slotRepository.sumByAccountId(merchant.getId())).isEqualByComparingTo("0.00");
+        assertThat(total(merchant)).isEqualByComparingTo("85.00");
+
+        credit(merchant.getId(), "10.00");
+        accountService.configureBalanceSlots(merchant.getId(), 0);
+        Account unsharded = accountRepository.findById(merchant.getId()).orElseThrow();
+        assertThat(unsharded.getBalanceSlots()).isZero();
+        assertThat(unsharded.getBalance()).isEqualByComparingTo("95.00");
+        assertThat(slotRepository.sumByAccountId(merchant.getId())).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void creditsRacingReshardingAreNotLost() throws Exception {
+        Account merchant = shardedAccount("0.00", 4, "0.00");
+        int threads = 8;
+        int creditsPerThread = 50;
+
+        AtomicBoolean crediting = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        Future<?> resharding = pool.submit(() -> {
+            int[] counts = {2, 0, 8, 1, 4};
+            for (int i = 0; crediting.get(); i++) {
+                accountService.configureBalanceSlots(merchant.getId(), counts[i % counts.length]);
+            }
+        });
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < creditsPerThread; i++) {
+                    credit(merchant.getId(), "1.00");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        crediting.set(false);
+        resharding.get();
+        pool.shutdown();
+
+        assertThat(total(merchant)).isEqualByComparingTo(BigDecimal.valueOf(threads * creditsPerThread));
+    }
+
+    // balance on the account row, the same amount in each of the slots
+    private Account shardedAccount(String balance, int slots, String perSlot) {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal(balance)));
+        accountService.configureBalanceSlots(account.getId(), slots);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int slot = 0; slot < slots; slot++) {
+                slotRepository.credit(account.getId(), slot, new BigDecimal(perSlot));
+            }
+        });
+        return account;
+    }
+
+    private void debit(Account account, String amount) {
+        accountBalanceService.execute(() -> {
+            Account current = accountRepository.findById(account.getId()).orElseThrow();
+            accountBalanceService.lockForUpdate(current);
+            return accountBalanceService.debit(current, new BigDecimal(amount));
+        });
+    }
+
+    // what a deposit does
+    private void credit(Long accountId, String amount) {
+        accountBalanceService.execute(() -> {
+            Account current = accountRepository.findById(accountId).orElseThrow();
+            accountBalanceService.lockForUpdate(current);
+            return accountBalanceService.credit(current, new BigDecimal(amount));
+        });
+    }
+
+    private BigDecimal total(Account account) {
+        return accountBalanceService.totalBalance(accountRepository.findById(account.getId()).orElseThrow());
+    }
+}
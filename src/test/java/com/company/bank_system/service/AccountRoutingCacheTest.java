@@ -0,0 +1,105 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountRoute;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.AccountNotFoundException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountRoutingCacheTest extends PostgresContainerTest {
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void repeatedLookupsDoNotQueryAndStatusChangesAreSeen() {
+        User user = login();
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        AccountRoute route = accountService.getAccountRoute(account.getAccountNumber());
+        assertThat(route).isEqualTo(new AccountRoute(account.getId(), account.getAccountNumber(), Currency.RUB,
+                AccountStatus.ACTIVE, user.getId()));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        accountService.getAccountRoute(account.getAccountNumber());
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+
+        accountService.updateAccountStatus(account.getId(), AccountStatus.BLOCKED);
+        assertThat(accountService.getAccountRoute(account.getAccountNumber()).status()).isEqualTo(AccountStatus.BLOCKED);
+
+        accountService.updateAccountStatus(account.getId(), AccountStatus.ACTIVE);
+        accountService.closeAccount(account.getId());
+        assertThat(accountService.getAccountRoute(account.getAccountNumber()).status()).isEqualTo(AccountStatus.CLOSED);
+    }
+
+    @Test
+    void unknownNumberIsNotCached() {
+        User user = login();
+        Account account = TestData.account(user, Currency.RUB, BigDecimal.ZERO);
+
+        assertThatThrownBy(() -> accountService.getAccountRoute(account.getAccountNumber()))
+                .isInstanceOf(AccountNotFoundException.class);
+
+        accountRepository.save(account);
+        assertThat(accountService.getAccountRoute(account.getAccountNumber()).id()).isEqualTo(account.getId());
+    }
+
+    @Test
+    void transferToCachedPayeeCreditsIt() {
+        User user = login();
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+        Account payee = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        accountService.getAccountRoute(payee.getAccountNumber());
+
+        for (int i = 0; i < 3; i++) {
+            transactionService.transfer(new TransferRequest(payer.getId(), payee.getAccountNumber(), BigDecimal.TEN, "rent"));
+        }
+
+        assertThat(accountRepository.findById(payee.getId()).orElseThrow().getBalance()).isEqualByComparingTo("30.00");
+        assertThat(accountRepository.findById(payer.getId()).orElseThrow().getBalance()).isEqualByComparingTo("70.00");
+    }
+
+    private User login() {
+        User user = userRepository.save(TestData.user());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+        return user;
+    }
+}
@@ -0,0 +1,134 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.InsufficientFundsException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A short contended run per bank.balance.strategy: every transfer that went through moved exactly its amount,
+ * and a transfer the source cannot pay is refused without moving anything. The load test is
+ * TransferContentionBenchmark.
+ */
+abstract class BalanceStrategyTest extends PostgresContainerTest {
+
+    private static final int ACCOUNTS = 3;
+    private static final int THREADS = 6;
+    private static final int TRANSFERS_PER_THREAD = 20;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    abstract AccountBalanceService.Strategy strategy();
+
+    @SpringBootTest(properties = {"bank.balance.strategy=PESSIMISTIC", "bank.balance.max-attempts=20"})
+    static class Pessimistic extends BalanceStrategyTest {
+        @Override
+        AccountBalanceService.Strategy strategy() {
+            return AccountBalanceService.Strategy.PESSIMISTIC;
+        }
+    }
+
+    @SpringBootTest(properties = {"bank.balance.strategy=OPTIMISTIC", "bank.balance.max-attempts=20"})
+    static class Optimistic extends BalanceStrategyTest {
+        @Override
+        AccountBalanceService.Strategy strategy() {
+            return AccountBalanceService.Strategy.OPTIMISTIC;
+        }
+    }
+
+    @SpringBootTest(properties = {"bank.balance.strategy=CONDITIONAL_UPDATE", "bank.balance.max-attempts=20"})
+    static class ConditionalUpdate extends BalanceStrategyTest {
+        @Override
+        AccountBalanceService.Strategy strategy() {
+            return AccountBalanceService.Strategy.CONDITIONAL_UPDATE;
+        }
+    }
+
+    @Test
+    void contendedTransfersMoveExactlyWhatWentThrough() throws Exception {
+        assertThat(accountBalanceService.getStrategy()).isEqualTo(strategy());
+
+        User user = userRepository.save(TestData.user());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(TestData.account(user, Currency.RUB, INITIAL_BALANCE)));
+        }
+
+        // net change in cents per account, of the transfers that returned
+        AtomicLongArray net = new AtomicLongArray(ACCOUNTS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    int cents = random.nextInt(1, 500); // no account can run out: 120 transfers * 5.00 < 1000.00
+                    transactionService.transfer(new TransferRequest(accounts.get(from).getId(),
+                            accounts.get(to).getAccountNumber(), BigDecimal.valueOf(cents, 2), null));
+                    net.addAndGet(from, -cents);
+                    net.addAndGet(to, cents);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BigDecimal balance = balance(accounts.get(i));
+            assertThat(balance).isEqualByComparingTo(INITIAL_BALANCE.add(BigDecimal.valueOf(net.get(i), 2)));
+            total = total.add(balance);
+        }
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+
+    @Test
+    void transferOverTheBalanceIsRefused() {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("10.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        assertThatThrownBy(() -> transactionService.transfer(
+                new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal("10.01"), null)))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(balance(from)).isEqualByComparingTo("10.00");
+        assertThat(balance(to)).isEqualByComparingTo("0.00");
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,172 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.BatchTransferItemResult;
+import com.company.bank_system.dto.BatchTransferRequest;
+import com.company.bank_system.dto.BatchTransferResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.limits.SpendingLimitService;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// chunks of two, so a batch of a few transfers spans several chunks
+@SpringBootTest(properties = {"bank.batch.chunk-size=2", "bank.limits.resync-interval-ms=3600000"})
+class BatchTransferServiceTest extends PostgresContainerTest {
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+    @Autowired
+    private SpendingLimitService spendingLimitService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void authenticate() {
+        user = userRepository.save(TestData.user());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void invalidTransfersFailWithoutStoppingTheBatch() {
+        User stranger = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account usd = accountRepository.save(TestData.account(user, Currency.USD, BigDecimal.ZERO));
+        Account foreign = accountRepository.save(TestData.account(stranger, Currency.RUB, new BigDecimal("100.00")));
+
+        BatchTransferResponse response = batch(
+                transfer(Long.MAX_VALUE, to, "10.00"),
+                transfer(foreign.getId(), to, "10.00"),
+                new TransferRequest(from.getId(), "40817999999999999999", new BigDecimal("10.00"), null),
+                transfer(from.getId(), from, "10.00"),
+                transfer(from.getId(), usd, "10.00"),
+                transfer(from.getId(), to, "10.00")
+        );
+
+        assertThat(response.total()).isEqualTo(6);
+        assertThat(response.succeeded()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(5);
+        List<BatchTransferItemResult> results = response.results();
+        assertThat(results.get(0).error()).contains("not found");
+        assertThat(results.get(1).error()).contains("Access denied");
+        assertThat(results.get(2).error()).contains("not found");
+        assertThat(results.get(3).error()).contains("same account");
+        assertThat(results.get(4).error()).contains("Currency mismatch");
+        assertThat(results.subList(0, 5)).allSatisfy(r -> {
+            assertThat(r.status()).isEqualTo(TransactionStatus.FAILED);
+            assertThat(r.transactionId()).isNull();
+        });
+        assertThat(results.get(5).status()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(transactionRepository.findById(results.get(5).transactionId())).isPresent();
+
+        assertThat(balance(from)).isEqualByComparingTo("90.00");
+        assertThat(balance(to)).isEqualByComparingTo("10.00");
+        assertThat(balance(foreign)).isEqualByComparingTo("100.00");
+        assertThat(balance(usd)).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void lowBalanceFailsOnlyTheTransfersItCannotPay() {
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("15.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        // the second transfer runs out of money in the middle of the first chunk
+        BatchTransferResponse response = batch(
+                transfer(from.getId(), to, "10.00"),
+                transfer(from.getId(), to, "10.00"),
+                transfer(from.getId(), to, "5.00")
+        );
+
+        assertThat(response.results()).extracting(BatchTransferItemResult::status).containsExactly(
+                TransactionStatus.COMPLETED, TransactionStatus.FAILED, TransactionStatus.COMPLETED);
+        assertThat(response.results().get(1).error()).contains("low balance");
+        assertThat(balance(from)).isEqualByComparingTo("0.00");
+        assertThat(balance(to)).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    void transferOverTheSpendingLimitFails() {
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        spendingLimitService.setOverride(from.getId(), new BigDecimal("50.00"), null);
+
+        BatchTransferResponse response = batch(
+                transfer(from.getId(), to, "60.00"),
+                transfer(from.getId(), to, "10.00")
+        );
+
+        assertThat(response.results()).extracting(BatchTransferItemResult::status).containsExactly(
+                TransactionStatus.FAILED, TransactionStatus.COMPLETED);
+        assertThat(response.results().getFirst().error()).isNotBlank();
+        assertThat(balance(from)).isEqualByComparingTo("990.00");
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void failedChunkIsRolledBackAsAWhole() {
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        // the description does not fit the column, so the insert of the second chunk fails
+        BatchTransferResponse response = batch(
+                transfer(from.getId(), to, "10.00"),
+                transfer(from.getId(), to, "10.00"),
+                transfer(from.getId(), to, "10.00"),
+                new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal("10.00"), "x".repeat(300))
+        );
+
+        assertThat(response.succeeded()).isEqualTo(2);
+        assertThat(response.results().subList(2, 4)).allSatisfy(r -> {
+            assertThat(r.status()).isEqualTo(TransactionStatus.FAILED);
+            assertThat(r.transactionId()).isNull();
+            assertThat(r.error()).startsWith("Chunk rolled back");
+        });
+        assertThat(balance(from)).isEqualByComparingTo("980.00");
+        assertThat(balance(to)).isEqualByComparingTo("20.00");
+        // the reservations of the rolled back chunk are given back
+        assertThat(spendingLimitService.spent(from.getId())).isEqualByComparingTo("20.00");
+    }
+
+    private BatchTransferResponse batch(TransferRequest... transfers) {
+        return batchTransferService.transfer(new BatchTransferRequest(List.of(transfers)));
+    }
+
+    private TransferRequest transfer(Long fromId, Account to, String amount) {
+        return new TransferRequest(fromId, to.getAccountNumber(), new BigDecimal(amount), null);
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,119 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.CardRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CardNumberAllocatorTest extends PostgresContainerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void nodesIssueDistinctLuhnValidNumbersUnderTheirBin() {
+        CardNumberAllocator first = allocator("990001", "990002", "990003");
+        CardNumberAllocator second = allocator("990001", "990002", "990003");
+
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            numbers.add(first.next(CardPaymentSystem.VISA));
+            numbers.add(second.next(CardPaymentSystem.VISA));
+            numbers.add(first.next(CardPaymentSystem.MIR));
+        }
+
+        assertThat(numbers).hasSize(75);
+        assertThat(numbers).allSatisfy(number -> {
+            assertThat(number).hasSize(16);
+            assertThat(Luhn.isValid(number)).isTrue();
+        });
+        assertThat(numbers).filteredOn(n -> n.startsWith("990001")).hasSize(50);
+        assertThat(numbers).filteredOn(n -> n.startsWith("990003")).hasSize(25);
+    }
+
+    @Test
+    void skipsNumberAlreadyOnACard() {
+        String taken = "990004000000000";
+        taken += Luhn.checkDigit(taken);
+        card(taken);
+
+        CardNumberAllocator allocator = allocator("990004", "990005", "990006");
+
+        String number = allocator.next(CardPaymentSystem.VISA);
+        assertThat(number).isNotEqualTo(taken).startsWith("990004000000001");
+    }
+
+    @Test
+    void leaseSurvivesRollbackOfTheIssuingTransaction() {
+        CardNumberAllocator first = allocator("990007", "990008", "990009");
+        CardNumberAllocator second = allocator("990007", "990008", "990009");
+
+        String rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+            String number = first.next(CardPaymentSystem.VISA);
+            status.setRollbackOnly(); // createCard failing after the number was taken
+            return number;
+        });
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT next_serial FROM card_number_ranges WHERE bin = '990007'", Long.class)).isEqualTo(10);
+        String afterRollback = first.next(CardPaymentSystem.VISA);
+        String otherNode = second.next(CardPaymentSystem.VISA);
+
+        assertThat(otherNode).startsWith("990007000000010").isNotIn(rolledBack, afterRollback);
+    }
+
+    private CardNumberAllocator allocator(String visa, String mastercard, String mir) {
+        Map<CardPaymentSystem, String> bins = Map.of(
+                CardPaymentSystem.VISA, visa,
+                CardPaymentSystem.MASTERCARD, mastercard,
+                CardPaymentSystem.MIR, mir
+        );
+        return new CardNumberAllocator(jdbcTemplate, transactionManager, cardRepository, new CardNumberProperties(bins, 10, 1000, 0.01));
+    }
+
+    private void card(String number) {
+        User user = userRepository.save(TestData.user());
+        Account account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Card card = new Card();
+        card.setAccount(account);
+        card.setUser(user);
+        card.setCardNumber(number);
+        card.setCvvHash("hash");
+        card.setExpiryDate(LocalDate.now().plusYears(5));
+        card.setPaymentSystem(CardPaymentSystem.VISA);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCreatedAt(LocalDateTime.now());
+        cardRepository.save(card);
+    }
+}
@@ -42,6 +42,8 @@ public class CardServiceTest {
     private CurrentUserService currentUserService;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
 
     private User user1;
     private Account account1;
@@ -104,7 +106,7 @@ public class CardServiceTest {
 
         when(currentUserService.getCurrentUser()).thenReturn(user1);
         when(accountService.getAccountEntityById(request.accountId())).thenReturn(account1);
-        when(cardRepository.existsByCardNumber(any())).thenReturn(false);
+        when(cardNumberAllocator.next(CardPaymentSystem.VISA)).thenReturn("4276000000000017");
         when(passwordEncoder.encode(any())).thenReturn("hashed_cvv");
         when(cardRepository.save(any(Card.class))).thenReturn(savedCard);
 
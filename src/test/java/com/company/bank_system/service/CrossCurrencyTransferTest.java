@@ -0,0 +1,125 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.CurrencyMismatchException;
+import com.company.bank_system.fx.FxConversion;
+import com.company.bank_system.fx.FxRateService;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionHistoryRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CrossCurrencyTransferTest extends PostgresContainerTest {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private FxRateService fxRateService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void transferIsConvertedWithTheCurrentRate() {
+        fxRateService.update(Currency.RUB, Map.of(Currency.USD, new BigDecimal("90.00"), Currency.EUR, new BigDecimal("100.00")), "test");
+        User user = userRepository.save(TestData.user());
+        Account usd = accountRepository.save(TestData.account(user, Currency.USD, new BigDecimal("100.00")));
+        Account eur = accountRepository.save(TestData.account(user, Currency.EUR, BigDecimal.ZERO));
+
+        TransactionResponse response = transactionService.transfer(
+                new TransferRequest(usd.getId(), eur.getAccountNumber(), new BigDecimal("10.00"), null));
+
+        assertThat(accountRepository.findById(usd.getId()).orElseThrow().getBalance()).isEqualByComparingTo("90.00");
+        assertThat(accountRepository.findById(eur.getId()).orElseThrow().getBalance()).isEqualByComparingTo("9.00");
+
+        Transaction transaction = transactionRepository.findById(response.id()).orElseThrow();
+        assertThat(transaction.getCurrency()).isEqualTo(Currency.USD);
+        assertThat(transaction.getAmount()).isEqualByComparingTo("10.00");
+        assertThat(transaction.getFxRate()).isEqualByComparingTo("0.9");
+        assertThat(transaction.getCreditedAmount()).isEqualByComparingTo("9.00");
+        assertThat(transaction.getCreditedCurrency()).isEqualTo(Currency.EUR);
+    }
+
+    @Test
+    void recipientHistoryShowsTheCreditedAmount() {
+        fxRateService.update(Currency.RUB, Map.of(Currency.USD, new BigDecimal("90.00")), "test");
+        User user = userRepository.save(TestData.user());
+        Account usd = accountRepository.save(TestData.account(user, Currency.USD, new BigDecimal("100.00")));
+        Account rub = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        TransactionResponse response = transactionService.transfer(
+                new TransferRequest(usd.getId(), rub.getAccountNumber(), new BigDecimal("10.00"), null));
+        assertThat(response.creditedAmount()).isEqualByComparingTo("900.00");
+
+        List<TransactionResponse> history = transactionHistoryRepository.findLatest(List.of(rub.getId()), 10).get(rub.getId());
+        assertThat(history).hasSize(1);
+        TransactionResponse received = history.getFirst();
+        assertThat(received.amount()).isEqualByComparingTo("10.00");
+        assertThat(received.currency()).isEqualTo(Currency.USD);
+        assertThat(received.fxRate()).isEqualByComparingTo("90");
+        assertThat(received.creditedAmount()).isEqualByComparingTo("900.00");
+        assertThat(received.creditedCurrency()).isEqualTo(Currency.RUB);
+        assertThat(received.creditedAmount())
+                .isEqualByComparingTo(accountRepository.findById(rub.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void missingRateIsRejectedWithoutMovingMoney() {
+        fxRateService.update(Currency.RUB, Map.of(Currency.USD, new BigDecimal("90.00")), "test");
+        User user = userRepository.save(TestData.user());
+        Account usd = accountRepository.save(TestData.account(user, Currency.USD, new BigDecimal("100.00")));
+        Account eur = accountRepository.save(TestData.account(user, Currency.EUR, BigDecimal.ZERO));
+
+        assertThatThrownBy(() -> transactionService.transfer(
+                new TransferRequest(usd.getId(), eur.getAccountNumber(), new BigDecimal("10.00"), null)))
+                .isInstanceOf(CurrencyMismatchException.class);
+
+        assertThat(accountRepository.findById(usd.getId()).orElseThrow().getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void conversionIsInMemory() {
+        fxRateService.update(Currency.RUB, Map.of(Currency.USD, new BigDecimal("92.15"), Currency.EUR, new BigDecimal("99.80")), "test");
+        BigDecimal amount = new BigDecimal("123.45");
+        for (int i = 0; i < 100_000; i++) {
+            fxRateService.convert(amount, Currency.USD, Currency.EUR); // warm up
+        }
+
+        int iterations = 1_000_000;
+        long start = System.nanoTime();
+        FxConversion last = null;
+        for (int i = 0; i < iterations; i++) {
+            last = fxRateService.convert(amount, Currency.USD, Currency.EUR);
+        }
+        long nanosPerConversion = (System.nanoTime() - start) / iterations;
+        System.out.printf("FX conversion: %d ns%n", nanosPerConversion);
+
+        assertThat(last.amount()).isEqualByComparingTo("113.99");
+        assertThat(nanosPerConversion).isLessThan(10_000);
+    }
+}
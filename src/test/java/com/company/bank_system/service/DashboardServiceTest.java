@@ -0,0 +1,150 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.CardResponse;
+import com.company.bank_system.dto.DashboardAccount;
+import com.company.bank_system.dto.DashboardResponse;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Card;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Cards.CardPaymentSystem;
+import com.company.bank_system.entity.enums.Cards.CardStatus;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.CardRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.StatementCounter;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class DashboardServiceTest extends PostgresContainerTest {
+
+    // user, accounts with cards, slot sums, latest transactions
+    private static final long STATEMENTS = 4;
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void loadsAccountsCardsAndLatestTransactions() {
+        User user = login();
+        Account main = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account sharded = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account empty = accountRepository.save(TestData.account(user, Currency.USD, BigDecimal.ZERO));
+        accountService.configureBalanceSlots(sharded.getId(), 2);
+        card(user, main);
+        card(user, main);
+        card(user, sharded);
+        for (int i = 1; i <= 4; i++) {
+            transactionService.transfer(new TransferRequest(main.getId(), sharded.getAccountNumber(), BigDecimal.valueOf(i), "t" + i));
+        }
+
+        StatementCounter.reset();
+        DashboardResponse dashboard = dashboardService.getDashboard(3);
+        long statements = StatementCounter.count();
+
+        assertThat(statements).isEqualTo(STATEMENTS);
+        assertThat(dashboard.userId()).isEqualTo(user.getId());
+        assertThat(dashboard.accountsCount()).isEqualTo(3);
+        assertThat(dashboard.cardsCount()).isEqualTo(3);
+        assertThat(dashboard.accounts()).extracting(a -> a.account().id())
+                .containsExactly(main.getId(), sharded.getId(), empty.getId());
+
+        DashboardAccount first = dashboard.accounts().getFirst();
+        assertThat(first.account().balance()).isEqualByComparingTo("990.00");
+        assertThat(first.cards()).extracting(CardResponse::cardNumber).allMatch(n -> n.startsWith("**** **** **** "));
+        assertThat(first.recentTransactions()).extracting(TransactionResponse::description).containsExactly("t4", "t3", "t2");
+
+        DashboardAccount second = dashboard.accounts().get(1);
+        assertThat(second.account().balance()).isEqualByComparingTo("10.00");
+        assertThat(second.cards()).hasSize(1);
+        assertThat(second.recentTransactions()).hasSize(3)
+                .isSortedAccordingTo(Comparator.comparing(TransactionResponse::createdAt).reversed());
+
+        assertThat(dashboard.accounts().getLast().cards()).isEmpty();
+        assertThat(dashboard.accounts().getLast().recentTransactions()).isEmpty();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithAccountsAndCards() {
+        User user = login();
+        for (int i = 0; i < 10; i++) {
+            Account account = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("100.00")));
+            card(user, account);
+            card(user, account);
+            if (i % 3 == 0) {
+                accountService.configureBalanceSlots(account.getId(), 2);
+            }
+        }
+        List<Account> accounts = accountRepository.findByUser(user);
+        for (int i = 0; i < accounts.size(); i++) {
+            Account to = accounts.get((i + 1) % accounts.size());
+            transactionService.transfer(new TransferRequest(accounts.get(i).getId(), to.getAccountNumber(), BigDecimal.ONE, "ring"));
+        }
+
+        StatementCounter.reset();
+        DashboardResponse dashboard = dashboardService.getDashboard(5);
+
+        assertThat(StatementCounter.count()).isEqualTo(STATEMENTS);
+        assertThat(dashboard.accountsCount()).isEqualTo(10);
+        assertThat(dashboard.cardsCount()).isEqualTo(20);
+        assertThat(dashboard.accounts()).allSatisfy(a -> assertThat(a.recentTransactions()).hasSize(2));
+        BigDecimal total = dashboard.accounts().stream().map(a -> a.account().balance()).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo("1000.00");
+    }
+
+    private User login() {
+        User user = userRepository.save(TestData.user());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+        return user;
+    }
+
+    private void card(User user, Account account) {
+        Card card = new Card();
+        card.setAccount(account);
+        card.setUser(user);
+        card.setCardNumber(String.format("%016d", ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L)));
+        card.setCvvHash("hash");
+        card.setExpiryDate(LocalDate.now().plusYears(5));
+        card.setPaymentSystem(CardPaymentSystem.VISA);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCreatedAt(LocalDateTime.now());
+        cardRepository.save(card);
+    }
+}
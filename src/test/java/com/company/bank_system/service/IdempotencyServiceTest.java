@@ -0,0 +1,132 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.DepositRequest;
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.exception.Exceptions.IdempotencyKeyMismatchException;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotencyServiceTest extends PostgresContainerTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(TestData.user());
+        account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        authenticate();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentDuplicatesMoveMoneyOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        DepositRequest request = new DepositRequest(account.getId(), new BigDecimal("100.00"), "top up");
+        AtomicInteger executions = new AtomicInteger();
+        long transactionsBefore = transactionRepository.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransactionResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                authenticate();
+                start.await();
+                return idempotencyService.execute(key, "DEPOSIT", request, () -> {
+                    executions.incrementAndGet();
+                    return transactionService.deposit(request);
+                });
+            }));
+        }
+        start.countDown();
+
+        List<TransactionResponse> responses = new ArrayList<>();
+        for (Future<TransactionResponse> future : futures) {
+            responses.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(executions).hasValue(1);
+        assertThat(responses).extracting(TransactionResponse::id).containsOnly(responses.getFirst().id());
+        assertThat(transactionRepository.count()).isEqualTo(transactionsBefore + 1);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        DepositRequest first = new DepositRequest(account.getId(), new BigDecimal("10.00"), null);
+        DepositRequest second = new DepositRequest(account.getId(), new BigDecimal("20.00"), null);
+
+        idempotencyService.execute(key, "DEPOSIT", first, () -> transactionService.deposit(first));
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, "DEPOSIT", second, () -> transactionService.deposit(second)))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    void sameAmountWithDifferentScaleIsTheSameRequest() {
+        String key = UUID.randomUUID().toString();
+        DepositRequest first = new DepositRequest(account.getId(), new BigDecimal("100"), "top up");
+        DepositRequest second = new DepositRequest(account.getId(), new BigDecimal("100.00"), "top up");
+
+        TransactionResponse original = idempotencyService.execute(key, "DEPOSIT", first, () -> transactionService.deposit(first));
+        TransactionResponse replayed = idempotencyService.execute(key, "DEPOSIT", second, () -> transactionService.deposit(second));
+
+        assertThat(replayed.id()).isEqualTo(original.id());
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    private void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())
+        );
+    }
+}
@@ -0,0 +1,119 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.AccountDrift;
+import com.company.bank_system.dto.ReconciliationReport;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.Transaction;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.entity.enums.Transaction.TransactionType;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "bank.reconciliation.range-size=3")
+class ReconciliationServiceTest extends PostgresContainerTest {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionPartitionService transactionPartitionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsOnlyAccountsWhoseBalanceDoesNotMatchTheirTransactions() {
+        User user = userRepository.save(TestData.user());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            accounts.add(fund(accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO)), "100.00"));
+        }
+        for (int i = 0; i < 20; i++) {
+            transactionService.transfer(new TransferRequest(accounts.get(i).getId(),
+                    accounts.get((i + 7) % 20).getAccountNumber(), new BigDecimal("12.34"), null));
+        }
+        transactionService.transferAsync(new TransferRequest(accounts.get(3).getId(),
+                accounts.get(4).getAccountNumber(), new BigDecimal("5.00"), null));
+
+        Account broken = accounts.get(11);
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 0.01 WHERE id = ?", broken.getId());
+
+        ReconciliationReport report = reconciliationService.run();
+
+        assertThat(report.status()).isEqualTo("COMPLETED");
+        assertThat(report.rangesDone()).isEqualTo(report.rangesTotal()).isGreaterThan(1);
+        assertThat(report.progressPercent()).isEqualTo(100.0);
+        assertThat(report.accountsChecked()).isGreaterThanOrEqualTo(20);
+        assertThat(report.drifts()).extracting(AccountDrift::accountId)
+                .contains(broken.getId())
+                .doesNotContainAnyElementsOf(accounts.stream().filter(a -> a != broken).map(Account::getId).toList());
+        AccountDrift drift = report.drifts().stream().filter(d -> d.accountId().equals(broken.getId())).findFirst().orElseThrow();
+        assertThat(drift.drift()).isEqualByComparingTo("0.01");
+        assertThat(reconciliationService.report().runId()).isEqualTo(report.runId());
+    }
+
+    @Test
+    void archivedHistoryStillBalances() {
+        YearMonth old = YearMonth.now().minusMonths(50);
+        transactionPartitionService.createPartitions(old, old);
+
+        User user = userRepository.save(TestData.user());
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("70.00")));
+        Account payee = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("30.00")));
+        Timestamp createdAt = Timestamp.valueOf(old.atDay(15).atStartOfDay());
+        jdbcTemplate.update("INSERT INTO transactions (to_account_id, transaction_type, amount, currency, status, created_at) " +
+                "VALUES (?, 'DEPOSIT', 100, 'RUB', 'COMPLETED', ?)", payer.getId(), createdAt);
+        jdbcTemplate.update("INSERT INTO transactions (from_account_id, to_account_id, transaction_type, amount, currency, " +
+                "status, created_at) VALUES (?, ?, 'TRANSFER', 30, 'RUB', 'COMPLETED', ?)", payer.getId(), payee.getId(), createdAt);
+
+        assertThat(transactionPartitionService.archiveBefore(old.plusMonths(1)))
+                .contains(TransactionPartitionService.partitionName(old));
+
+        ReconciliationReport report = reconciliationService.run();
+
+        assertThat(report.status()).isEqualTo("COMPLETED");
+        assertThat(report.drifts()).extracting(AccountDrift::accountId)
+                .doesNotContain(payer.getId(), payee.getId());
+    }
+
+    // the balance an account is created with is backed by a deposit
+    private Account fund(Account account, String amount) {
+        Transaction deposit = new Transaction();
+        deposit.setToAccount(account);
+        deposit.setTransactionType(TransactionType.DEPOSIT);
+        deposit.setAmount(new BigDecimal(amount));
+        deposit.setCurrency(account.getCurrency());
+        deposit.setStatus(TransactionStatus.COMPLETED);
+        deposit.setCreatedAt(LocalDateTime.now());
+        deposit.setCompletedAt(LocalDateTime.now());
+        transactionRepository.save(deposit);
+
+        account.setBalance(new BigDecimal(amount));
+        return accountRepository.save(account);
+    }
+}
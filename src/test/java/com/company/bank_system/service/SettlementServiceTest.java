@@ -0,0 +1,74 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.dto.TransactionResponse;
+import com.company.bank_system.dto.TransferRequest;
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.Transaction.TransactionStatus;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.TransactionRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "bank.settlement.idle-sleep-ms=20")
+class SettlementServiceTest extends PostgresContainerTest {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void pendingTransfersAreSettledOrRefunded() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account from = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        Account to = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account closed = TestData.account(user, Currency.RUB, BigDecimal.ZERO);
+        closed.setStatus(AccountStatus.CLOSED);
+        closed = accountRepository.save(closed);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            TransactionResponse accepted = transactionService.transferAsync(
+                    new TransferRequest(from.getId(), to.getAccountNumber(), new BigDecimal("10.00"), null));
+            assertThat(accepted.status()).isEqualTo(TransactionStatus.PENDING);
+            ids.add(accepted.id());
+        }
+        TransactionResponse toClosed = transactionService.transferAsync(
+                new TransferRequest(from.getId(), closed.getAccountNumber(), new BigDecimal("5.00"), null));
+
+        // reserved right away, credited later
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getBalance()).isEqualByComparingTo("495.00");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (transactionRepository.findById(toClosed.id()).orElseThrow().getStatus() == TransactionStatus.PENDING
+                || transactionRepository.findAllById(ids).stream().anyMatch(t -> t.getStatus() == TransactionStatus.PENDING)) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+
+        assertThat(transactionRepository.findAllById(ids)).allSatisfy(t -> {
+            assertThat(t.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+            assertThat(t.getCompletedAt()).isNotNull();
+        });
+        assertThat(transactionRepository.findById(toClosed.id()).orElseThrow().getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(accountRepository.findById(to.getId()).orElseThrow().getBalance()).isEqualByComparingTo("500.00");
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getBalance()).isEqualByComparingTo("500.00");
+    }
+}
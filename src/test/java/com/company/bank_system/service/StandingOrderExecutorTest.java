@@ -0,0 +1,135 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.StandingOrder;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderFrequency;
+import com.company.bank_system.entity.enums.StandingOrder.StandingOrderStatus;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.StandingOrderRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "bank.standing-orders.idle-sleep-ms=50",
+        "bank.standing-orders.chunk-size=50",
+        "bank.standing-orders.max-attempts=2",
+        "bank.standing-orders.retry-delay=1h"
+})
+class StandingOrderExecutorTest extends PostgresContainerTest {
+
+    @Autowired
+    private StandingOrderRepository standingOrderRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dueOrdersRunOnceAndMoveToTheNextMonth() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("1000.00")));
+        List<Account> payees = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            payees.add(accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO)));
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(standingOrderRepository.save(
+                    order(payer, payees.get(i % payees.size()), StandingOrderFrequency.MONTHLY, start)).getId());
+        }
+
+        List<StandingOrder> orders = await(ids, o -> o.getRunCount() == 1);
+
+        assertThat(orders).allSatisfy(o -> {
+            assertThat(o.getStatus()).isEqualTo(StandingOrderStatus.ACTIVE);
+            assertThat(o.getNextRunAt()).isEqualTo(start.plusMonths(1));
+            assertThat(o.getFailureCount()).isZero();
+            assertThat(o.getLockedUntil()).isNull();
+        });
+        assertThat(accountRepository.findById(payer.getId()).orElseThrow().getBalance()).isEqualByComparingTo("700.00");
+        assertThat(accountRepository.findById(payees.getFirst().getId()).orElseThrow().getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void onceOrderCompletes() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account payer = accountRepository.save(TestData.account(user, Currency.RUB, new BigDecimal("5.00")));
+        Account payee = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+
+        Long id = standingOrderRepository.save(order(payer, payee, StandingOrderFrequency.ONCE, LocalDateTime.now())).getId();
+
+        assertThat(await(List.of(id), o -> o.getStatus() != StandingOrderStatus.ACTIVE).getFirst().getStatus())
+                .isEqualTo(StandingOrderStatus.COMPLETED);
+        assertThat(accountRepository.findById(payee.getId()).orElseThrow().getBalance()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void failedRunIsRetriedThenSkipped() throws Exception {
+        User user = userRepository.save(TestData.user());
+        Account empty = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        Account payee = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        LocalDateTime start = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+
+        Long id = standingOrderRepository.save(order(empty, payee, StandingOrderFrequency.MONTHLY, start)).getId();
+
+        StandingOrder failedOnce = await(List.of(id), o -> o.getFailureCount() == 1).getFirst();
+        assertThat(failedOnce.getRunCount()).isZero();
+        assertThat(failedOnce.getLastError()).contains("InsufficientFunds");
+        assertThat(failedOnce.getNextAttemptAt()).isAfter(LocalDateTime.now().plusMinutes(30));
+
+        // retry is due now; max-attempts=2, so the second failure gives up this run
+        jdbcTemplate.update("UPDATE standing_orders SET next_attempt_at = now() WHERE id = ?", id);
+
+        StandingOrder skipped = await(List.of(id), o -> o.getRunCount() == 1).getFirst();
+        assertThat(skipped.getStatus()).isEqualTo(StandingOrderStatus.ACTIVE);
+        assertThat(skipped.getFailureCount()).isZero();
+        assertThat(skipped.getLastError()).contains("InsufficientFunds");
+        assertThat(skipped.getNextRunAt()).isEqualTo(start.plusMonths(1));
+        assertThat(accountRepository.findById(payee.getId()).orElseThrow().getBalance()).isEqualByComparingTo("0.00");
+    }
+
+    private List<StandingOrder> await(List<Long> ids, Predicate<StandingOrder> done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (true) {
+            List<StandingOrder> orders = standingOrderRepository.findAllById(ids);
+            if (orders.stream().allMatch(done) || System.currentTimeMillis() > deadline) {
+                return orders;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private StandingOrder order(Account from, Account to, StandingOrderFrequency frequency, LocalDateTime start) {
+        StandingOrder order = new StandingOrder();
+        order.setFromAccount(from);
+        order.setToAccountNumber(to.getAccountNumber());
+        order.setAmount(BigDecimal.ONE);
+        order.setFrequency(frequency);
+        order.setStartAt(start);
+        order.setNextRunAt(start);
+        order.setNextAttemptAt(start);
+        order.setStatus(StandingOrderStatus.ACTIVE);
+        order.setCreatedAt(start);
+        return order;
+    }
+}
@@ -0,0 +1,126 @@
+package com.company.bank_system.service;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.repo.AccountRepository;
+import com.company.bank_system.repo.UserRepository;
+import com.company.bank_system.service.StatementExportService.Format;
+import com.company.bank_system.support.PostgresContainerTest;
+import com.company.bank_system.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StatementExportServiceTest extends PostgresContainerTest {
+
+    private static final String INSERT_ROWS =
+            "INSERT INTO transactions (from_account_id, to_account_id, transaction_type, amount, currency, " +
+                    "description, status, created_at, completed_at) " +
+                    "SELECT CASE WHEN g % 2 = 0 THEN ? ELSE ? END, CASE WHEN g % 2 = 0 THEN ? ELSE ? END, " +
+                    "'TRANSFER', 1.00, 'RUB', ?, 'COMPLETED', " +
+                    "timestamp '2025-01-01' + g * interval '1 second', timestamp '2025-01-01' + g * interval '1 second' " +
+                    "FROM generate_series(1, ?) g";
+
+    @Autowired
+    private StatementExportService statementExportService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account account;
+    private Account other;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(TestData.user());
+        account = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+        other = accountRepository.save(TestData.account(user, Currency.RUB, BigDecimal.ZERO));
+    }
+
+    @Test
+    void writesCsvAndNdjsonOldestFirst() throws Exception {
+        insertRows(3, "rent, \"march\"");
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertThat(statementExportService.write(account.getId(), null, null, Format.CSV, csv)).isEqualTo(3);
+
+        List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.getFirst()).startsWith("id,created_at,");
+        assertThat(lines.get(1)).contains("2025-01-01T00:00:01").endsWith(",1.00,RUB,,,,\"rent, \"\"march\"\"\"");
+        assertThat(lines.get(3)).contains("2025-01-01T00:00:03");
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        statementExportService.write(account.getId(), null, null, Format.NDJSON, ndjson);
+
+        List<String> json = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(json).hasSize(3);
+        assertThat(json).allSatisfy(line -> assertThat(line).startsWith("{").contains("\"currency\":\"RUB\""));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void millionRowStatementInConstantMemory() throws Exception {
+        int rows = 1_000_000;
+        insertRows(rows, null);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+
+        // halfway through, live heap must not contain the rows already written
+        long[] midway = {-1};
+        OutputStream sink = new OutputStream() {
+            long bytes;
+
+            @Override
+            public void write(int b) {
+                count(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                count(len);
+            }
+
+            private void count(int len) {
+                bytes += len;
+                if (midway[0] < 0 && bytes > 30L * 1024 * 1024) {
+                    System.gc();
+                    midway[0] = runtime.totalMemory() - runtime.freeMemory();
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        long written = statementExportService.write(account.getId(), null, null, Format.CSV, sink);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("rows=%d time=%.1fs rate=%.0f rows/s heapGrowthAtMidwayMb=%d%n",
+                written, seconds, written / seconds, (midway[0] - baseline) / (1024 * 1024));
+
+        assertThat(written).isEqualTo(rows);
+        assertThat(midway[0]).isNotNegative();
+        assertThat(midway[0] - baseline).isLessThan(48L * 1024 * 1024);
+    }
+
+    private void insertRows(int count, String description) {
+        jdbcTemplate.update(INSERT_ROWS, account.getId(), other.getId(), other.getId(), account.getId(), description, count);
+    }
+}
@@ -0,0 +1,43 @@
+package com.company.bank_system.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements Hibernate prepares while a block runs, from its {@link Statistics}.
+ * Needs spring.jpa.properties.hibernate.generate_statistics=true. The counters are global, so the background
+ * workers (settlement, standing orders, payroll, outbox relay) have to be switched off in the test. JdbcTemplate
+ * queries are not counted - see {@link StatementCounter} for those.
+ */
+public final class QueryBudget {
+
+    private final Statistics statistics;
+
+    public QueryBudget(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public long count(Block block) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        block.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    /**
+     * Fails when the block prepares more than {@code budget} statements.
+     */
+    public void assertWithin(String name, long budget, Block block) throws Exception {
+        long statements = count(block);
+        assertThat(statements)
+                .as("%s prepared %d statements, budget %d", name, statements, budget)
+                .isLessThanOrEqualTo(budget);
+    }
+
+    @FunctionalInterface
+    public interface Block {
+        void run() throws Exception;
+    }
+}
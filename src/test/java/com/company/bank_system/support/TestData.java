@@ -0,0 +1,49 @@
+package com.company.bank_system.support;
+
+import com.company.bank_system.entity.Account;
+import com.company.bank_system.entity.User;
+import com.company.bank_system.entity.enums.Account.AccountStatus;
+import com.company.bank_system.entity.enums.Account.AccountType;
+import com.company.bank_system.entity.enums.Currency;
+import com.company.bank_system.entity.enums.User.UserRole;
+import com.company.bank_system.entity.enums.User.UserStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class TestData {
+
+    private static final AtomicLong SEQ = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    private TestData() {
+    }
+
+    public static User user() {
+        long n = SEQ.incrementAndGet();
+
+        User user = new User();
+        user.setEmail("user" + n + "@example.com");
+        user.setPhone("+7950" + String.format("%07d", n % 10_000_000));
+        user.setPasswordHash("hash");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setRole(UserRole.USER);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setConfirmed(true);
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    public static Account account(User user, Currency currency, BigDecimal balance) {
+        Account account = new Account();
+        account.setUser(user);
+        account.setAccountNumber("40817" + String.format("%015d", SEQ.incrementAndGet()));
+        account.setAccountType(AccountType.CHECKING);
+        account.setCurrency(currency);
+        account.setBalance(balance);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setCreatedAt(LocalDateTime.now());
+        return account;
+    }
+}